@@ -0,0 +1,135 @@
+#!/usr/bin/env bash
+#
+# Load test for the read endpoints: servlet application (Spring MVC + JPA) against the
+# reactive read API (WebFlux + R2DBC). For each concurrency level it reports throughput,
+# p99 latency, errors and the most database connections each stack had checked out, then
+# the highest level each stack sustained within the p99 target without errors.
+#
+# Usage (from backend/, both applications running against the same database):
+#   java -jar target/backend-*.jar --app.rate-limit.enabled=false
+#   java -cp target/backend-*.jar -Dloader.main=com.brightpath.backend.reactive.ReactiveReadApplication \
+#       org.springframework.boot.loader.launch.PropertiesLauncher
+#   scripts/read-load-test.sh [duration] [levels...]
+#
+# Rate limiting has to be off on the servlet side, every request comes from one client.
+# The servlet side also serves /api/courses and /api/courses/{id} from the course cache,
+# so its connection count mostly reflects /api/enrollments/user/{id}/courses.
+#
+# Environment:
+#   MVC_URL, READ_URL   base URLs (default http://localhost:8080 and http://localhost:8081)
+#   COURSE_ID, USER_ID  existing course and enrolled user (default 1)
+#   P99_TARGET_MS       latency target for the summary (default 250)
+#   THREADS             wrk threads (default 4)
+# Requires wrk (https://github.com/wg/wrk) and curl.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+DURATION=${1:-30s}
+shift || true
+if (($#)); then
+    LEVELS=("$@")
+else
+    LEVELS=(64 256 1024 4096)
+fi
+MVC_URL=${MVC_URL:-http://localhost:8080}
+READ_URL=${READ_URL:-http://localhost:8081}
+COURSE_ID=${COURSE_ID:-1}
+USER_ID=${USER_ID:-1}
+P99_TARGET_MS=${P99_TARGET_MS:-250}
+THREADS=${THREADS:-4}
+WORK=target/read-load-test
+
+PATHS=("/api/courses" "/api/courses/${COURSE_ID}" "/api/enrollments/user/${USER_ID}/courses")
+
+if ! command -v wrk >/dev/null; then
+    echo "wrk not found on PATH" >&2
+    exit 1
+fi
+for base in "$MVC_URL" "$READ_URL"; do
+    if ! curl -sf -o /dev/null "$base/actuator/health"; then
+        echo "Nothing healthy at $base" >&2
+        exit 1
+    fi
+done
+
+mkdir -p "$WORK"
+
+# Database connections checked out right now: Hikari on the servlet side, the R2DBC pool
+# on the reactive side
+connections() {
+    local base=$1 metric=$2
+    curl -sf "$base/actuator/metrics/$metric" | sed -n 's/.*"value":\([0-9.]*\).*/\1/p' | cut -d. -f1
+}
+
+# Samples the metric until the given process exits and prints the maximum
+max_connections() {
+    local pid=$1 base=$2 metric=$3 max=0 current
+    while kill -0 "$pid" 2>/dev/null; do
+        current=$(connections "$base" "$metric" || true)
+        if [[ -n "$current" && "$current" -gt "$max" ]]; then
+            max=$current
+        fi
+        sleep 0.5
+    done
+    echo "$max"
+}
+
+# wrk prints latencies as 812.00us, 12.34ms or 1.02s
+to_ms() {
+    awk -v v="$1" 'BEGIN {
+        n = v + 0
+        if (v ~ /us$/) n /= 1000
+        else if (v ~ /ms$/) n += 0
+        else if (v ~ /s$/) n *= 1000
+        else if (v ~ /m$/) n *= 60000
+        printf "%.1f", n
+    }'
+}
+
+# Runs wrk on one URL and prints "<req/s> <p99 ms> <errors> <max connections>"
+run() {
+    local base=$1 metric=$2 path=$3 concurrency=$4 out pid max rps p99 errors
+    out="$WORK/$(echo "$base$path-$concurrency" | tr -c 'A-Za-z0-9-' '_').txt"
+    wrk -t"$THREADS" -c"$concurrency" -d"$DURATION" --latency "$base$path" >"$out" 2>&1 &
+    pid=$!
+    max=$(max_connections "$pid" "$base" "$metric")
+    wait "$pid"
+    rps=$(awk '/^Requests\/sec:/ {printf "%d", $2}' "$out")
+    p99=$(to_ms "$(awk '$1 == "99%" {print $2}' "$out")")
+    errors=$(awk '/Non-2xx or 3xx responses:/ {n += $NF}
+        /Socket errors:/ {gsub(",", ""); n += $4 + $6 + $8 + $10}
+        END {print n + 0}' "$out")
+    echo "$rps $p99 $errors $max"
+}
+
+declare -A SUSTAINED
+printf "%-8s %-40s %7s %10s %10s %8s %6s\n" "stack" "path" "conns" "req/s" "p99 ms" "errors" "db"
+for concurrency in "${LEVELS[@]}"; do
+    for stack in mvc reactive; do
+        if [[ $stack == mvc ]]; then
+            base=$MVC_URL metric=hikaricp.connections.active
+        else
+            base=$READ_URL metric=r2dbc.pool.acquired
+        fi
+        ok=1
+        for path in "${PATHS[@]}"; do
+            read -r rps p99 errors max <<<"$(run "$base" "$metric" "$path" "$concurrency")"
+            printf "%-8s %-40s %7d %10d %10s %8d %6d\n" "$stack" "$path" "$concurrency" "$rps" "$p99" "$errors" "$max"
+            if [[ "$errors" -gt 0 ]] || awk -v p="$p99" -v t="$P99_TARGET_MS" 'BEGIN {exit !(p > t)}'; then
+                ok=0
+            fi
+        done
+        if [[ $ok == 1 ]]; then
+            SUSTAINED[$stack]=$concurrency
+        fi
+    done
+done
+
+echo
+echo "Highest concurrency with p99 <= ${P99_TARGET_MS} ms and no errors on every path:"
+for stack in mvc reactive; do
+    printf "  %-8s %s\n" "$stack" "${SUSTAINED[$stack]:-none}"
+done
+echo "Raw wrk output in $WORK"
@@ -0,0 +1,110 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark for the fast-start packaging modes.
+# Reports time to the first successful request and resident memory for each mode.
+#
+# Usage (from backend/, with DB_* and AZURE_* set as for a normal run):
+#   ./mvnw -Pfast-start package -DskipTests
+#   scripts/startup-benchmark.sh [runs]
+#
+# Modes:
+#   jar       java -jar on the packaged fat jar (baseline)
+#   cds       extracted jar + class data sharing archive
+#   cds-aot   extracted jar + CDS archive + Spring AOT bean definitions
+#   crac      restore from a CRaC checkpoint (only when the JDK supports CRaC)
+#   native    GraalVM native image (only if target/backend exists: ./mvnw -Pnative native:compile)
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-3}
+PORT=${PORT:-8080}
+URL="http://localhost:${PORT}/actuator/health/liveness"
+JAR=$(ls target/backend-*.jar 2>/dev/null | grep -v plain | head -n 1 || true)
+WORK=target/fast-start
+APP=$WORK/$(basename "${JAR:-backend.jar}")
+
+if [[ -z "$JAR" ]]; then
+    echo "No jar in target/. Build first: ./mvnw -Pfast-start package -DskipTests" >&2
+    exit 1
+fi
+if [[ ! -d target/spring-aot ]]; then
+    echo "Jar was built without Spring AOT. Rebuild with -Pfast-start" >&2
+    exit 1
+fi
+
+export PORT
+
+now_ms() {
+    date +%s%3N
+}
+
+rss_mb() {
+    local kb
+    kb=$(awk '/VmRSS/ {print $2}' "/proc/$1/status" 2>/dev/null || ps -o rss= -p "$1")
+    echo $((kb / 1024))
+}
+
+# Starts the command in the background, waits for the first 200 and prints "<ms> <rss MB>"
+measure() {
+    local start pid elapsed rss
+    start=$(now_ms)
+    "$@" >"$WORK/last-run.log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$URL"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Process exited before serving a request, see $WORK/last-run.log" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+    elapsed=$(( $(now_ms) - start ))
+    rss=$(rss_mb "$pid")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+report() {
+    local mode=$1
+    shift
+    local total_ms=0 total_rss=0 result ms rss
+    for ((i = 1; i <= RUNS; i++)); do
+        result=$(measure "$@") || { printf "%-8s failed\n" "$mode"; return 0; }
+        read -r ms rss <<<"$result"
+        total_ms=$((total_ms + ms))
+        total_rss=$((total_rss + rss))
+    done
+    printf "%-8s %10d ms %10d MB\n" "$mode" $((total_ms / RUNS)) $((total_rss / RUNS))
+}
+
+echo "Preparing extracted layout and training runs in $WORK"
+rm -rf "$WORK"
+java -Djarmode=tools -jar "$JAR" extract --destination "$WORK"
+
+# Training runs stop right after the context refreshes and dump the loaded classes
+java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.context.exit=onRefresh \
+    -jar "$APP" >"$WORK/train-cds.log" 2>&1
+java -XX:ArchiveClassesAtExit="$WORK/app-aot.jsa" -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+    -jar "$APP" >"$WORK/train-cds-aot.log" 2>&1
+
+printf "%-8s %13s %13s\n" "mode" "first request" "RSS"
+report jar java -jar "$JAR"
+report cds java -XX:SharedArchiveFile="$WORK/app.jsa" -jar "$APP"
+report cds-aot java -XX:SharedArchiveFile="$WORK/app-aot.jsa" -Dspring.aot.enabled=true -jar "$APP"
+
+if java -XX:CRaCCheckpointTo="$WORK/crac-probe" -version >/dev/null 2>&1; then
+    # Checkpoint once after refresh (the JVM exits), then every run restores from it
+    java -XX:CRaCCheckpointTo="$WORK/crac" -Dspring.context.checkpoint=onRefresh -Dspring.aot.enabled=true \
+        -jar "$APP" >"$WORK/checkpoint.log" 2>&1 || true
+    report crac java -XX:CRaCRestoreFrom="$WORK/crac"
+else
+    echo "crac     skipped (JDK without CRaC support)"
+fi
+
+if [[ -x target/backend ]]; then
+    report native target/backend
+else
+    echo "native   skipped (build with ./mvnw -Pnative native:compile)"
+fi
@@ -0,0 +1,126 @@
+package com.brightpath.backend.analytics;
+
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.repository.CourseRepository.CoursePrice;
+import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.repository.EnrollmentRepository.EnrollmentFacts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps an {@link EnrollmentTable} for the admin reports, loaded in the background once
+ * the application is ready and reloaded periodically. The
+ * enrollments are read as plain columns in id order, batch by batch, straight into
+ * primitive arrays sized from a count taken first, so loading never holds entities or
+ * a second copy of the table.
+ */
+@Service
+public class EnrollmentAnalytics {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentAnalytics.class);
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final CourseRepository courseRepository;
+    private final int batchSize;
+
+    private volatile EnrollmentTable table;
+
+    public EnrollmentAnalytics(EnrollmentRepository enrollmentRepository, CourseRepository courseRepository,
+                               @Value("${app.analytics.batch-size:10000}") int batchSize) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.courseRepository = courseRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * The latest load, or empty until the first one completes
+     */
+    public Optional<EnrollmentTable> table() {
+        return Optional.ofNullable(table);
+    }
+
+    // On the task executor, so readiness doesn't wait for a scan of every enrollment
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialReload() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.reload-minutes:15}",
+            initialDelayString = "${app.analytics.reload-minutes:15}", timeUnit = TimeUnit.MINUTES)
+    public void reload() {
+        long started = System.currentTimeMillis();
+        try {
+            table = load();
+            logger.info("Loaded {} enrollments for reporting in {} ms", table.size(),
+                    System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.error("Failed to load enrollments for reporting: {}", e.getMessage());
+        }
+    }
+
+    private EnrollmentTable load() {
+        Date loadedAt = new Date();
+        List<CoursePrice> prices = courseRepository.findAllPrices().stream()
+                .sorted(Comparator.comparing(CoursePrice::getId))
+                .toList();
+        long[] courseIds = new long[prices.size()];
+        String[] courseNames = new String[prices.size()];
+        for (int i = 0; i < prices.size(); i++) {
+            courseIds[i] = prices.get(i).getId();
+            courseNames[i] = prices.get(i).getName();
+        }
+
+        // Rows added while loading go into the slack or grow the arrays
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, enrollmentRepository.count() + batchSize);
+        int[] courses = new int[capacity];
+        int[] days = new int[capacity];
+        float[] progress = new float[capacity];
+        int size = 0;
+        int skipped = 0;
+
+        long afterId = 0;
+        List<EnrollmentFacts> batch;
+        do {
+            batch = enrollmentRepository.findFactsAfter(afterId, PageRequest.of(0, batchSize));
+            for (EnrollmentFacts facts : batch) {
+                afterId = facts.getId();
+                int course = Arrays.binarySearch(courseIds, facts.getCourseId());
+                if (course < 0) {
+                    // A course created after the course list was read; picked up next time
+                    skipped++;
+                    continue;
+                }
+                if (size == courses.length) {
+                    int grown = courses.length + Math.max(batchSize, courses.length >> 3);
+                    courses = Arrays.copyOf(courses, grown);
+                    days = Arrays.copyOf(days, grown);
+                    progress = Arrays.copyOf(progress, grown);
+                }
+                courses[size] = course;
+                days[size] = EnrollmentTable.epochDay(facts.getEnrollmentDate());
+                progress[size] = (float) facts.getProgress();
+                size++;
+            }
+        } while (batch.size() == batchSize);
+
+        if (skipped > 0) {
+            logger.debug("Skipped {} enrollments in courses newer than the course list", skipped);
+        }
+        return new EnrollmentTable(size, courses, days, progress, courseIds, courseNames, loadedAt);
+    }
+}
@@ -0,0 +1,156 @@
+package com.brightpath.backend.analytics;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable, column-per-field copy of the enrollments table for reporting: per row a
+ * dense course index, the enrollment day and the progress, 12 bytes in all. Courses are
+ * numbered in a side table holding their ids and names.
+ *
+ * <p>Queries scan fixed slices of rows in parallel, each into its own small arrays
+ * indexed by course or day, and add the slices up at the end; nothing is allocated per row.
+ */
+public final class EnrollmentTable {
+
+    private static final int SLICE_ROWS = 1 << 16;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    public record CourseStats(long courseId, String name, long enrollments, double averageProgress,
+                              BigDecimal revenue) {
+    }
+
+    public record Totals(long enrollments, double averageProgress, BigDecimal revenue) {
+    }
+
+    private final int size;
+    private final int[] courses;
+    private final int[] days;
+    private final float[] progress;
+    private final long[] courseIds;
+    private final String[] courseNames;
+    private final Date loadedAt;
+
+    EnrollmentTable(int size, int[] courses, int[] days, float[] progress,
+                    long[] courseIds, String[] courseNames, Date loadedAt) {
+        this.size = size;
+        this.courses = courses;
+        this.days = days;
+        this.progress = progress;
+        this.courseIds = courseIds;
+        this.courseNames = courseNames;
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Days are counted in UTC from 1970-01-01
+     */
+    static int epochDay(Date date) {
+        return (int) Math.floorDiv(date.getTime(), MILLIS_PER_DAY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Date getLoadedAt() {
+        return new Date(loadedAt.getTime());
+    }
+
+    /**
+     * Enrollments, average progress and revenue for every course, including courses nobody
+     * has enrolled in. Revenue is taken from {@code revenueByCourse} (zero where missing),
+     * since what was charged isn't part of the table.
+     */
+    public List<CourseStats> courseStats(Map<Long, BigDecimal> revenueByCourse) {
+        int courseCount = courseIds.length;
+        int slices = slices();
+        long[][] counts = new long[slices][];
+        double[][] progressSums = new double[slices][];
+        IntStream.range(0, slices).parallel().forEach(slice -> {
+            long[] sliceCounts = new long[courseCount];
+            double[] sliceProgress = new double[courseCount];
+            int end = Math.min(size, (slice + 1) * SLICE_ROWS);
+            for (int row = slice * SLICE_ROWS; row < end; row++) {
+                int course = courses[row];
+                sliceCounts[course]++;
+                sliceProgress[course] += progress[row];
+            }
+            counts[slice] = sliceCounts;
+            progressSums[slice] = sliceProgress;
+        });
+
+        List<CourseStats> stats = new ArrayList<>(courseCount);
+        for (int course = 0; course < courseCount; course++) {
+            long enrollments = 0;
+            double progressSum = 0;
+            for (int slice = 0; slice < slices; slice++) {
+                enrollments += counts[slice][course];
+                progressSum += progressSums[slice][course];
+            }
+            stats.add(new CourseStats(courseIds[course], courseNames[course], enrollments,
+                    enrollments == 0 ? 0 : progressSum / enrollments,
+                    revenueByCourse.getOrDefault(courseIds[course], BigDecimal.ZERO)));
+        }
+        return stats;
+    }
+
+    public static Totals totals(List<CourseStats> courseStats) {
+        long enrollments = 0;
+        double progressSum = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (CourseStats course : courseStats) {
+            enrollments += course.enrollments();
+            progressSum += course.averageProgress() * course.enrollments();
+            revenue = revenue.add(course.revenue());
+        }
+        return new Totals(enrollments, enrollments == 0 ? 0 : progressSum / enrollments, revenue);
+    }
+
+    /**
+     * Enrollments per day from {@code fromDay} to {@code toDay} inclusive, optionally for a
+     * single course (null for all). Element i is the count for {@code fromDay + i}.
+     */
+    public long[] dailyEnrollments(int fromDay, int toDay, Long courseId) {
+        int dayCount = Math.max(0, toDay - fromDay + 1);
+        int onlyCourse = -1;
+        if (courseId != null) {
+            onlyCourse = Arrays.binarySearch(courseIds, courseId);
+            if (onlyCourse < 0) {
+                return new long[dayCount];
+            }
+        }
+
+        int course = onlyCourse;
+        int slices = slices();
+        long[][] counts = new long[slices][];
+        IntStream.range(0, slices).parallel().forEach(slice -> {
+            long[] sliceCounts = new long[dayCount];
+            int end = Math.min(size, (slice + 1) * SLICE_ROWS);
+            for (int row = slice * SLICE_ROWS; row < end; row++) {
+                int day = days[row] - fromDay;
+                if (day >= 0 && day < dayCount && (course < 0 || courses[row] == course)) {
+                    sliceCounts[day]++;
+                }
+            }
+            counts[slice] = sliceCounts;
+        });
+
+        long[] total = new long[dayCount];
+        for (long[] sliceCounts : counts) {
+            for (int day = 0; day < dayCount; day++) {
+                total[day] += sliceCounts[day];
+            }
+        }
+        return total;
+    }
+
+    private int slices() {
+        return Math.max(1, (size + SLICE_ROWS - 1) / SLICE_ROWS);
+    }
+}
@@ -0,0 +1,74 @@
+package com.brightpath.backend.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Multi-get over a by-id cache: cached entries are served from the cache and the rest
+ * are loaded with a single query, then cached for the single-item lookups too.
+ */
+public final class BatchLookup {
+
+    private BatchLookup() {
+    }
+
+    /**
+     * The entities for the given ids, in the order first requested. Ids that don't exist
+     * are left out.
+     */
+    public static <T> List<T> load(Cache cache, Collection<Long> ids, Class<T> type,
+                                   Function<Collection<Long>, List<T>> loader, Function<T, Long> idOf) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        Map<Long, T> found = new HashMap<>();
+        if (cache != null) {
+            cached(cache, distinct).forEach((key, value) -> {
+                if (type.isInstance(value)) {
+                    found.put((Long) key, type.cast(value));
+                }
+            });
+        }
+
+        List<Long> missing = distinct.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            for (T loaded : loader.apply(missing)) {
+                found.put(idOf.apply(loaded), loaded);
+                if (cache != null) {
+                    cache.put(idOf.apply(loaded), loaded);
+                }
+            }
+        }
+
+        List<T> result = new ArrayList<>(found.size());
+        for (Long id : distinct) {
+            T value = found.get(id);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    private static Map<Object, Object> cached(Cache cache, Collection<Long> ids) {
+        Cache target = cache instanceof TransactionAwareCacheDecorator decorator ? decorator.getTargetCache() : cache;
+        if (target instanceof TwoLevelCache twoLevel) {
+            return twoLevel.getAll(ids);
+        }
+        Map<Object, Object> found = new HashMap<>();
+        for (Long id : ids) {
+            Cache.ValueWrapper value = target.get(id);
+            if (value != null && value.get() != null) {
+                found.put(id, value.get());
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,29 @@
+package com.brightpath.backend.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The cache tier shared by all backend nodes, plus the pub/sub channels they use to tell
+ * each other about changes. Values are JSON strings.
+ */
+public interface SharedCache {
+
+    String get(String key);
+
+    /**
+     * Values for several keys in one round trip, in key order, null where absent
+     */
+    List<String> getAll(List<String> keys);
+
+    void put(String key, String value, Duration ttl);
+
+    void delete(String key);
+
+    void deleteByPrefix(String prefix);
+
+    void publish(String channel, String message);
+
+    void subscribe(String channel, Consumer<String> listener);
+}
@@ -0,0 +1,194 @@
+package com.brightpath.backend.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache with a small per-node near cache in front of the {@link SharedCache}. Both
+ * tiers hold JSON, so every read hands out a fresh copy that callers may modify.
+ * Evictions are broadcast so other nodes drop their near copies too.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private record NearEntry(String json, long expiresAt) {
+    }
+
+    private final String name;
+    private final TwoLevelCacheManager manager;
+    private final SharedCache shared;
+    private final ObjectMapper objectMapper;
+    private final Map<String, NearEntry> near = new ConcurrentHashMap<>();
+
+    TwoLevelCache(String name, TwoLevelCacheManager manager, SharedCache shared, ObjectMapper objectMapper) {
+        super(false);
+        this.name = name;
+        this.manager = manager;
+        this.shared = shared;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return near;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String nearKey = key.toString();
+        NearEntry entry = near.get(nearKey);
+        if (entry != null && entry.expiresAt() > System.currentTimeMillis()) {
+            return read(entry.json());
+        }
+
+        String json = shared.get(sharedKey(nearKey));
+        if (json == null) {
+            return null;
+        }
+        putNear(nearKey, json);
+        return read(json);
+    }
+
+    /**
+     * Looks up several keys, going to the shared tier once for all near cache misses.
+     * Keys with no entry are left out of the result.
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> found = new HashMap<>();
+        List<Object> sharedKeys = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Object key : keys) {
+            NearEntry entry = near.get(key.toString());
+            Object value = entry != null && entry.expiresAt() > now ? read(entry.json()) : null;
+            if (value != null) {
+                found.put(key, value);
+            } else {
+                sharedKeys.add(key);
+            }
+        }
+        if (sharedKeys.isEmpty()) {
+            return found;
+        }
+
+        List<String> values = shared.getAll(sharedKeys.stream().map(key -> sharedKey(key.toString())).toList());
+        for (int i = 0; i < sharedKeys.size(); i++) {
+            String json = values.get(i);
+            Object value = json != null ? read(json) : null;
+            if (value != null) {
+                putNear(sharedKeys.get(i).toString(), json);
+                found.put(sharedKeys.get(i), value);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = lookup(key);
+        if (value != null) {
+            return (T) value;
+        }
+        try {
+            T loaded = valueLoader.call();
+            if (loaded != null) {
+                put(key, loaded);
+            }
+            return loaded;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        String nearKey = key.toString();
+        String json = write(value);
+        putNear(nearKey, json);
+        shared.put(sharedKey(nearKey), json, manager.getSharedTtl());
+    }
+
+    @Override
+    public void evict(Object key) {
+        String nearKey = key.toString();
+        near.remove(nearKey);
+        shared.delete(sharedKey(nearKey));
+        manager.invalidated(name, nearKey);
+    }
+
+    @Override
+    public void clear() {
+        near.clear();
+        shared.deleteByPrefix(sharedKey(""));
+        manager.invalidated(name, TwoLevelCacheManager.ALL_KEYS);
+    }
+
+    void evictShared(String nearKey) {
+        shared.delete(sharedKey(nearKey));
+    }
+
+    void evictLocal(String nearKey) {
+        if (TwoLevelCacheManager.ALL_KEYS.equals(nearKey)) {
+            near.clear();
+        } else {
+            near.remove(nearKey);
+        }
+    }
+
+    private void putNear(String nearKey, String json) {
+        if (near.size() >= manager.getNearMaxEntries()) {
+            trimNear();
+        }
+        near.put(nearKey, new NearEntry(json, System.currentTimeMillis() + manager.getNearTtl().toMillis()));
+    }
+
+    // Drop expired entries, then arbitrary ones, until there is room again
+    private void trimNear() {
+        long now = System.currentTimeMillis();
+        near.values().removeIf(entry -> entry.expiresAt() <= now);
+        Iterator<String> keys = near.keySet().iterator();
+        while (near.size() >= manager.getNearMaxEntries() && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private String sharedKey(String nearKey) {
+        return "brightpath:" + name + ":" + nearKey;
+    }
+
+    private String write(Object value) {
+        try {
+            // As Object, so final types such as records get a type id too
+            return objectMapper.writerFor(Object.class).writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot cache value of type " + value.getClass().getName(), e);
+        }
+    }
+
+    // An entry written by an older version of a class reads as a miss
+    private Object read(String json) {
+        try {
+            return objectMapper.readValue(json, Object.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
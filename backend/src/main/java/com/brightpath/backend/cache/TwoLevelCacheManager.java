@@ -0,0 +1,181 @@
+package com.brightpath.backend.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Creates {@link TwoLevelCache}s and relays invalidations between nodes. Puts and evicts
+ * are applied after the surrounding transaction commits, so other nodes never reload
+ * the old row after being told it changed.
+ *
+ * <p>A node that read the old row just before the commit can still write it back to the
+ * shared tier, so evictions are repeated once after a short delay.
+ */
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    static final String ALL_KEYS = "*";
+
+    private static final String CHANNEL = "cache-invalidation";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final SharedCache shared;
+    private final List<String> cacheNames;
+    private final ObjectMapper objectMapper;
+    // Undecorated caches; getCache() hands out transaction-aware wrappers
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, String>> invalidationListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService redeleteExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-redelete");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Duration nearTtl = Duration.ofSeconds(60);
+    private int nearMaxEntries = 10_000;
+    private Duration sharedTtl = Duration.ofMinutes(10);
+    private long redeleteDelayMillis = 500;
+
+    public TwoLevelCacheManager(SharedCache shared, List<String> cacheNames) {
+        this.shared = shared;
+        this.cacheNames = cacheNames;
+        this.objectMapper = cacheObjectMapper();
+        setTransactionAware(true);
+        shared.subscribe(CHANNEL, this::onMessage);
+    }
+
+    /**
+     * Called with (cache name, key) when another node invalidates an entry; the key is
+     * {@code "*"} when the whole cache was cleared.
+     */
+    public void addInvalidationListener(BiConsumer<String, String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return cacheNames.stream().map(this::createCache).toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    private TwoLevelCache createCache(String name) {
+        return caches.computeIfAbsent(name, n -> new TwoLevelCache(n, this, shared, objectMapper));
+    }
+
+    void invalidated(String cacheName, String key) {
+        publish(cacheName, key);
+        if (redeleteDelayMillis > 0 && !ALL_KEYS.equals(key)) {
+            redeleteExecutor.schedule(() -> {
+                TwoLevelCache cache = caches.get(cacheName);
+                if (cache != null) {
+                    cache.evictLocal(key);
+                    cache.evictShared(key);
+                }
+                publish(cacheName, key);
+            }, redeleteDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            shared.publish(CHANNEL, nodeId + "|" + cacheName + "|" + key);
+        } catch (Exception e) {
+            logger.warn("Failed to publish invalidation of {} {}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        String cacheName = parts[1];
+        String key = parts[2];
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+        for (BiConsumer<String, String> listener : invalidationListeners) {
+            try {
+                listener.accept(cacheName, key);
+            } catch (Exception e) {
+                logger.warn("Invalidation listener failed for {} {}: {}", cacheName, key, e.getMessage());
+            }
+        }
+    }
+
+    public void shutdown() {
+        redeleteExecutor.shutdownNow();
+    }
+
+    // Fields rather than getters, with type ids restricted to our model, DTOs and java.util.
+    // Loaded entities hold JDBC's java.util.Date subclasses, which would otherwise read as a miss
+    private static ObjectMapper cacheObjectMapper() {
+        BasicPolymorphicTypeValidator typeValidator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.brightpath.backend.model.")
+                .allowIfSubType("com.brightpath.backend.dto.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType(java.sql.Date.class)
+                .allowIfSubType(java.sql.Timestamp.class)
+                .build();
+        return JsonMapper.builder()
+                .visibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .visibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .activateDefaultTyping(typeValidator, ObjectMapper.DefaultTyping.NON_FINAL)
+                .build();
+    }
+
+    public Duration getNearTtl() {
+        return nearTtl;
+    }
+
+    public void setNearTtl(Duration nearTtl) {
+        this.nearTtl = nearTtl;
+    }
+
+    public int getNearMaxEntries() {
+        return nearMaxEntries;
+    }
+
+    public void setNearMaxEntries(int nearMaxEntries) {
+        this.nearMaxEntries = nearMaxEntries;
+    }
+
+    public Duration getSharedTtl() {
+        return sharedTtl;
+    }
+
+    public void setSharedTtl(Duration sharedTtl) {
+        this.sharedTtl = sharedTtl;
+    }
+
+    public void setRedeleteDelayMillis(long redeleteDelayMillis) {
+        this.redeleteDelayMillis = redeleteDelayMillis;
+    }
+}
@@ -1,15 +1,22 @@
 package com.brightpath.backend.config;
 
+import com.azure.core.http.HttpClient;
+import com.azure.core.util.HttpClientOptions;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
-import com.azure.storage.blob.models.PublicAccessType;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.azure.storage.common.policy.RetryPolicyType;
+import com.brightpath.backend.trace.BlobCallCountingPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class AzureBlobConfig {
 
@@ -31,17 +38,54 @@ public class AzureBlobConfig {
     @Value("${azure.storage.course-resources-container-name}")
     private String courseResourcesContainerName;
 
+    @Value("${app.storage.timeout.connect-ms:3000}")
+    private long connectTimeoutMs;
+
+    // Waiting for the response headers, and then between reads or writes of the body
+    @Value("${app.storage.timeout.io-ms:10000}")
+    private long ioTimeoutMs;
+
+    // Per attempt, from sending the request to the end of the response
+    @Value("${app.storage.timeout.try-seconds:30}")
+    private long tryTimeoutSeconds;
+
+    @Bean
+    public BlobResiliencePolicy blobResiliencePolicy(
+            @Value("${app.storage.bulkhead.max-concurrent:16}") int maxConcurrent,
+            @Value("${app.storage.bulkhead.max-wait-ms:250}") long maxWaitMs,
+            @Value("${app.storage.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${app.storage.circuit.open-seconds:30}") long openSeconds,
+            @Value("${app.storage.retry.max-attempts:3}") int maxAttempts,
+            @Value("${app.storage.retry.base-delay-ms:100}") long baseDelayMs,
+            @Value("${app.storage.retry.max-delay-ms:2000}") long maxDelayMs) {
+        return new BlobResiliencePolicy(new BlobResiliencePolicy.Settings(maxConcurrent, Duration.ofMillis(maxWaitMs),
+                failureThreshold, Duration.ofSeconds(openSeconds), maxAttempts, Duration.ofMillis(baseDelayMs),
+                Duration.ofMillis(maxDelayMs)));
+    }
 
     @Bean
-    public BlobServiceClient blobServiceClient() {
+    public BlobServiceClient blobServiceClient(ObjectProvider<HttpClient> httpClient,
+                                               BlobResiliencePolicy resiliencePolicy) {
         try {
             String connectionString = String.format(
                     "DefaultEndpointsProtocol=https;AccountName=%s;AccountKey=%s;EndpointSuffix=core.windows.net",
                     accountName, accountKey);
 
-            BlobServiceClient client = new BlobServiceClientBuilder()
+            // Retries are left to BlobResiliencePolicy (with jitter, idempotent calls only);
+            // the client makes a single try, bounded by the try timeout
+            BlobServiceClientBuilder builder = new BlobServiceClientBuilder()
                     .connectionString(connectionString)
-                    .buildClient();
+                    .retryOptions(new RequestRetryOptions(RetryPolicyType.EXPONENTIAL, 1,
+                            Duration.ofSeconds(tryTimeoutSeconds), null, null, null))
+                    .addPolicy(new BlobCallCountingPolicy())
+                    .addPolicy(resiliencePolicy);
+            // An HttpClient bean replaces the default transport, e.g. a fake in tests
+            builder.httpClient(httpClient.getIfAvailable(() -> HttpClient.createDefault(new HttpClientOptions()
+                    .setConnectTimeout(Duration.ofMillis(connectTimeoutMs))
+                    .setResponseTimeout(Duration.ofMillis(ioTimeoutMs))
+                    .setReadTimeout(Duration.ofMillis(ioTimeoutMs))
+                    .setWriteTimeout(Duration.ofMillis(ioTimeoutMs)))));
+            BlobServiceClient client = builder.buildClient();
 
             logger.info("Successfully created BlobServiceClient for account: {}", accountName);
             return client;
@@ -66,23 +110,10 @@ public class AzureBlobConfig {
         return createContainerClient(blobServiceClient, courseResourcesContainerName, "course resources");
     }
 
+    // Only builds the client; containers are created in the background by BlobContainerInitializer
     private BlobContainerClient createContainerClient(BlobServiceClient blobServiceClient,
                                                       String containerName, String description) {
-        try {
-            BlobContainerClient containerClient = blobServiceClient.getBlobContainerClient(containerName);
-
-            if (!containerClient.exists()) {
-                logger.info("Creating new container: {} for {}", containerName, description);
-                containerClient.createIfNotExists();
-                logger.info("Successfully created container: {}", containerName);
-            } else {
-                logger.info("Container already exists: {}", containerName);
-            }
-
-            return containerClient;
-        } catch (Exception e) {
-            logger.error("Failed to create container client for {}: {}", containerName, e.getMessage());
-            throw new RuntimeException("Failed to initialize container: " + containerName, e);
-        }
+        logger.info("Using container {} for {}", containerName, description);
+        return blobServiceClient.getBlobContainerClient(containerName);
     }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.brightpath.backend.config;
+
+/**
+ * A blob storage call refused without being sent, because the container's circuit is
+ * open or its bulkhead is full. See {@link BlobResiliencePolicy}.
+ */
+public class BlobCallRejectedException extends RuntimeException {
+
+    public BlobCallRejectedException(String message) {
+        super(message);
+    }
+}
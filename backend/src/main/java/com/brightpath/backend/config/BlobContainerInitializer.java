@@ -0,0 +1,104 @@
+package com.brightpath.backend.config;
+
+import com.azure.storage.blob.BlobContainerClient;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Creates the blob containers off the startup path. All containers are initialized in
+ * parallel once the application is ready, and writers call {@link #ensureCreated} so a
+ * container is also created on first use. A failed attempt is retried on the next call.
+ */
+@Component
+public class BlobContainerInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobContainerInitializer.class);
+
+    private static final long FIRST_USE_TIMEOUT_SECONDS = 30;
+
+    private final List<BlobContainerClient> containerClients;
+    private final Map<String, CompletableFuture<Void>> initializations = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "blob-container-init");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BlobContainerInitializer(List<BlobContainerClient> containerClients) {
+        this.containerClients = containerClients;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeAll() {
+        containerClients.forEach(this::initialize);
+    }
+
+    /**
+     * Blocks until the container exists, creating it if needed.
+     */
+    public void ensureCreated(BlobContainerClient containerClient) throws IOException {
+        try {
+            initialize(containerClient).get(FIRST_USE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while initializing container " + containerClient.getBlobContainerName(), e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Blob container " + containerClient.getBlobContainerName() + " is not available", e);
+        }
+    }
+
+    /**
+     * Initialization state per container: true once created, false while pending or failed.
+     * Failed containers are retried in the background.
+     */
+    public Map<String, Boolean> status() {
+        Map<String, Boolean> status = new LinkedHashMap<>();
+        for (BlobContainerClient containerClient : containerClients) {
+            CompletableFuture<Void> initialization = initialize(containerClient);
+            status.put(containerClient.getBlobContainerName(),
+                    initialization.isDone() && !initialization.isCompletedExceptionally());
+        }
+        return status;
+    }
+
+    private CompletableFuture<Void> initialize(BlobContainerClient containerClient) {
+        String containerName = containerClient.getBlobContainerName();
+        return initializations.compute(containerName, (name, existing) -> {
+            if (existing != null && !existing.isCompletedExceptionally()) {
+                return existing;
+            }
+            return CompletableFuture.runAsync(() -> {
+                if (containerClient.createIfNotExists()) {
+                    logger.info("Created container: {}", name);
+                } else {
+                    logger.info("Container already exists: {}", name);
+                }
+            }, executor).whenComplete((result, error) -> {
+                if (error != null) {
+                    logger.error("Failed to initialize container {}: {}", name, error.getMessage());
+                }
+            });
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
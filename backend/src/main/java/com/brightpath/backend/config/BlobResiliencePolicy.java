@@ -0,0 +1,231 @@
+package com.brightpath.backend.config;
+
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpPipelineNextSyncPolicy;
+import com.azure.core.http.HttpPipelinePosition;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.azure.core.util.BinaryData;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Guards every blob storage call with a bulkhead and a circuit breaker per container,
+ * and retries calls that are safe to repeat with jittered exponential backoff. It runs
+ * once per call, outside the client's own (single) try, so each retry goes through the
+ * rest of the pipeline again with a fresh per-try timeout.
+ *
+ * <p>While a container's circuit is open, or when its bulkhead stays full for longer than
+ * the configured wait, calls fail straight away with {@link BlobCallRejectedException}
+ * instead of tying up request threads. Exceptions (timeouts, connection errors) and 408,
+ * 429 and 5xx responses count as failures; other responses such as 404 or 412 are
+ * answers. The bulkhead permit is held until the response headers arrive.
+ *
+ * <p>Only bodyless GET, HEAD, DELETE and PUT requests, or ones with a replayable body, are
+ * retried, and PUTs and DELETEs only without an If-Match or If-None-Match condition. The
+ * synchronous clients of this SDK version run the asynchronous pipeline, so both paths
+ * guard and retry the same way.
+ */
+public class BlobResiliencePolicy implements HttpPipelinePolicy {
+
+    public record Settings(int maxConcurrent, Duration maxWait, int failureThreshold, Duration openFor,
+                           int maxAttempts, Duration baseDelay, Duration maxDelay) {
+    }
+
+    private final Settings settings;
+    private final LongSupplier clock;
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    public BlobResiliencePolicy(Settings settings) {
+        this(settings, System::nanoTime);
+    }
+
+    BlobResiliencePolicy(Settings settings, LongSupplier clock) {
+        this.settings = settings;
+        this.clock = clock;
+    }
+
+    @Override
+    public HttpResponse processSync(HttpPipelineCallContext context, HttpPipelineNextSyncPolicy next) {
+        HttpRequest request = context.getHttpRequest();
+        Guard guard = guardFor(request);
+        boolean retryable = isRetryable(request);
+        for (int attempt = 1; ; attempt++) {
+            guard.enter(settings.maxWait());
+            HttpResponse response;
+            try {
+                response = next.clone().processSync();
+            } catch (RuntimeException e) {
+                guard.exit(false);
+                if (!retryable || attempt >= settings.maxAttempts()) {
+                    throw e;
+                }
+                pause(attempt, e);
+                continue;
+            }
+            boolean failed = isFailure(response.getStatusCode());
+            guard.exit(!failed);
+            if (!failed || !retryable || attempt >= settings.maxAttempts()) {
+                return response;
+            }
+            response.close();
+            pause(attempt, null);
+        }
+    }
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next) {
+        HttpRequest request = context.getHttpRequest();
+        return attempt(1, guardFor(request), isRetryable(request), next, settings.maxWait());
+    }
+
+    // Retries run on a timer thread after the backoff, so they don't wait for the bulkhead.
+    // Each attempt's response or error is judged in a single stage, so what a later attempt
+    // returns passes straight through instead of being judged again by the earlier ones
+    private Mono<HttpResponse> attempt(int attempt, Guard guard, boolean retryable, HttpPipelineNextPolicy next,
+                                       Duration maxWait) {
+        return Mono.defer(() -> {
+            guard.enter(maxWait);
+            AtomicBoolean exited = new AtomicBoolean();
+            return next.clone().process()
+                    .doOnCancel(() -> {
+                        if (exited.compareAndSet(false, true)) {
+                            guard.exit(false);
+                        }
+                    })
+                    .map(Outcome::answered)
+                    .onErrorResume(error -> Mono.just(Outcome.failed(error)))
+                    .flatMap(outcome -> {
+                        boolean failed = outcome.error() != null || isFailure(outcome.response().getStatusCode());
+                        if (exited.compareAndSet(false, true)) {
+                            guard.exit(!failed);
+                        }
+                        if (!failed || !retryable || attempt >= settings.maxAttempts()) {
+                            return outcome.error() != null ? Mono.error(outcome.error()) : Mono.just(outcome.response());
+                        }
+                        if (outcome.response() != null) {
+                            outcome.response().close();
+                        }
+                        return Mono.delay(backoff(attempt))
+                                .then(attempt(attempt + 1, guard, true, next, Duration.ZERO));
+                    });
+        });
+    }
+
+    private record Outcome(HttpResponse response, Throwable error) {
+
+        static Outcome answered(HttpResponse response) {
+            return new Outcome(response, null);
+        }
+
+        static Outcome failed(Throwable error) {
+            return new Outcome(null, error);
+        }
+    }
+
+    @Override
+    public HttpPipelinePosition getPipelinePosition() {
+        return HttpPipelinePosition.PER_CALL;
+    }
+
+    /**
+     * Circuit state per container seen so far, for health reporting
+     */
+    public Map<String, String> circuitStates() {
+        Map<String, String> states = new TreeMap<>();
+        guards.forEach((container, guard) -> states.put(container, guard.breaker.state().name()));
+        return states;
+    }
+
+    private Guard guardFor(HttpRequest request) {
+        return guards.computeIfAbsent(containerOf(request), container -> new Guard(container,
+                new Semaphore(settings.maxConcurrent()),
+                new CircuitBreaker(settings.failureThreshold(), settings.openFor().toNanos(), clock)));
+    }
+
+    // The first path segment; account-level calls (e.g. batches) share the "" guard
+    private static String containerOf(HttpRequest request) {
+        String path = request.getUrl().getPath();
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private static boolean isRetryable(HttpRequest request) {
+        HttpMethod method = request.getHttpMethod();
+        if (method != HttpMethod.GET && method != HttpMethod.HEAD && method != HttpMethod.DELETE
+                && method != HttpMethod.PUT) {
+            return false;
+        }
+        // A conditional write may have been applied before its try timed out, and its retry
+        // would then be refused with 412 although it succeeded
+        boolean write = method == HttpMethod.PUT || method == HttpMethod.DELETE;
+        if (write && (request.getHeaders().getValue(HttpHeaderName.IF_MATCH) != null
+                || request.getHeaders().getValue(HttpHeaderName.IF_NONE_MATCH) != null)) {
+            return false;
+        }
+        BinaryData body = request.getBodyAsBinaryData();
+        return body == null || body.isReplayable();
+    }
+
+    private static boolean isFailure(int status) {
+        return status == 408 || status == 429 || status >= 500;
+    }
+
+    // Full jitter: a random delay up to the exponential backoff for this attempt
+    private Duration backoff(int attempt) {
+        long ceiling = Math.min(settings.maxDelay().toMillis(),
+                settings.baseDelay().toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    }
+
+    private void pause(int attempt, RuntimeException failure) {
+        try {
+            Thread.sleep(backoff(attempt).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (failure != null) {
+                throw failure;
+            }
+            throw new BlobCallRejectedException("Interrupted while retrying a blob storage call");
+        }
+    }
+
+    private record Guard(String container, Semaphore bulkhead, CircuitBreaker breaker) {
+
+        void enter(Duration maxWait) {
+            boolean permitted;
+            try {
+                permitted = bulkhead.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                permitted = false;
+            }
+            if (!permitted) {
+                throw new BlobCallRejectedException("Too many concurrent calls to blob container '" + container + "'");
+            }
+            if (!breaker.tryAcquire()) {
+                bulkhead.release();
+                throw new BlobCallRejectedException("Circuit for blob container '" + container + "' is open");
+            }
+        }
+
+        void exit(boolean success) {
+            breaker.record(success);
+            bulkhead.release();
+        }
+    }
+}
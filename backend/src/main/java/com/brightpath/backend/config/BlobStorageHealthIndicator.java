@@ -0,0 +1,35 @@
+package com.brightpath.backend.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Reports blob storage as up once every container has been initialized. Part of the
+ * readiness group (/actuator/health/readiness), so traffic waits for storage without
+ * storage holding up startup. Open circuits are shown but leave the status alone: the
+ * rest of the API keeps serving while storage is unavailable.
+ */
+@Component("blobStorage")
+public class BlobStorageHealthIndicator implements HealthIndicator {
+
+    private final BlobContainerInitializer containerInitializer;
+    private final BlobResiliencePolicy resiliencePolicy;
+
+    public BlobStorageHealthIndicator(BlobContainerInitializer containerInitializer,
+                                      BlobResiliencePolicy resiliencePolicy) {
+        this.containerInitializer = containerInitializer;
+        this.resiliencePolicy = resiliencePolicy;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, Boolean> status = containerInitializer.status();
+        Health.Builder builder = status.containsValue(false) ? Health.down() : Health.up();
+        status.forEach((container, ready) -> builder.withDetail(container, ready ? "ready" : "initializing"));
+        builder.withDetail("circuits", resiliencePolicy.circuitStates());
+        return builder.build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.brightpath.backend.config;
+
+import com.brightpath.backend.cache.InMemorySharedCache;
+import com.brightpath.backend.cache.RedisSharedCache;
+import com.brightpath.backend.cache.SharedCache;
+import com.brightpath.backend.cache.TwoLevelCacheManager;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.User;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Service-level caching for courses and users across nodes: a near cache on each node
+ * in front of Redis, with invalidations published on every write. Without Redis
+ * (app.cache.redis.enabled=false) an in-process stand-in is used, which is enough for a
+ * single node.
+ *
+ * <p>Remote invalidations also evict the Hibernate second-level cache entry, which is
+ * otherwise local to each node.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig implements CachingConfigurer {
+
+    public static final String COURSES = "courses";
+    public static final String COURSE_LIST = "course-list";
+    public static final String USERS = "users";
+
+    @Value("${app.cache.redis.enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${app.cache.near-ttl-seconds:60}")
+    private long nearTtlSeconds;
+
+    @Value("${app.cache.near-max-entries:10000}")
+    private int nearMaxEntries;
+
+    @Value("${app.cache.shared-ttl-seconds:600}")
+    private long sharedTtlSeconds;
+
+    @Value("${app.cache.redelete-delay-ms:500}")
+    private long redeleteDelayMillis;
+
+    // The listener container is created here rather than as a conditional bean: with Spring
+    // AOT (-Pfast-start) bean conditions are fixed at build time, so a property condition
+    // wouldn't follow app.cache.redis.enabled at runtime
+    @Bean
+    public SharedCache sharedCache(ObjectProvider<StringRedisTemplate> redisTemplate,
+                                   ObjectProvider<RedisConnectionFactory> connectionFactory) throws Exception {
+        if (!redisEnabled) {
+            return new InMemorySharedCache();
+        }
+        RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory.getObject());
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        return new RedisSharedCache(redisTemplate.getObject(), listenerContainer);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public TwoLevelCacheManager cacheManager(SharedCache sharedCache, EntityManagerFactory entityManagerFactory) {
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(sharedCache, List.of(COURSES, COURSE_LIST, USERS));
+        cacheManager.setNearTtl(Duration.ofSeconds(nearTtlSeconds));
+        cacheManager.setNearMaxEntries(nearMaxEntries);
+        cacheManager.setSharedTtl(Duration.ofSeconds(sharedTtlSeconds));
+        cacheManager.setRedeleteDelayMillis(redeleteDelayMillis);
+
+        Cache secondLevelCache = entityManagerFactory.getCache();
+        cacheManager.addInvalidationListener((cacheName, key) -> {
+            Class<?> entity = switch (cacheName) {
+                case COURSES -> Course.class;
+                case USERS -> User.class;
+                default -> null;
+            };
+            if (entity == null) {
+                return;
+            }
+            if (key.equals("*")) {
+                secondLevelCache.evict(entity);
+            } else {
+                secondLevelCache.evict(entity, Long.valueOf(key));
+            }
+            if (entity == User.class) {
+                // A username may have changed
+                entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                        .evictQueryRegion("users-by-username");
+            }
+        });
+        return cacheManager;
+    }
+
+    // A cache that cannot be reached is treated as a miss rather than failing the request
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+}
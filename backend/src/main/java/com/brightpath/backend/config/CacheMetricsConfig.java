@@ -0,0 +1,74 @@
+package com.brightpath.backend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exports hit/miss/put counters and the hit ratio of each Hibernate second-level
+ * cache region as {@code hibernate.cache.*} metrics (see /actuator/metrics).
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    // Query regions are created on first use, so they are listed here rather than discovered
+    private static final List<String> QUERY_REGIONS = List.of("users-by-username");
+
+    @Bean
+    public MeterBinder hibernateCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : statistics.getSecondLevelCacheRegionNames()) {
+                if (!QUERY_REGIONS.contains(region)) {
+                    bindRegion(registry, statistics, region, s -> s.getDomainDataRegionStatistics(region));
+                }
+            }
+            for (String region : QUERY_REGIONS) {
+                bindRegion(registry, statistics, region, s -> s.getQueryRegionStatistics(region));
+            }
+        };
+    }
+
+    private void bindRegion(MeterRegistry registry, Statistics statistics, String region,
+                            Function<Statistics, CacheRegionStatistics> lookup) {
+        FunctionCounter.builder("hibernate.cache.hits", statistics,
+                        s -> count(lookup.apply(s), CacheRegionStatistics::getHitCount))
+                .tag("region", region)
+                .register(registry);
+        FunctionCounter.builder("hibernate.cache.misses", statistics,
+                        s -> count(lookup.apply(s), CacheRegionStatistics::getMissCount))
+                .tag("region", region)
+                .register(registry);
+        FunctionCounter.builder("hibernate.cache.puts", statistics,
+                        s -> count(lookup.apply(s), CacheRegionStatistics::getPutCount))
+                .tag("region", region)
+                .register(registry);
+        Gauge.builder("hibernate.cache.hit.ratio", statistics, s -> hitRatio(lookup.apply(s)))
+                .tag("region", region)
+                .register(registry);
+    }
+
+    private double count(CacheRegionStatistics stats, ToLongFunction<CacheRegionStatistics> counter) {
+        return stats == null ? 0 : counter.applyAsLong(stats);
+    }
+
+    private double hitRatio(CacheRegionStatistics stats) {
+        if (stats == null) {
+            return 0.0;
+        }
+        long hits = stats.getHitCount();
+        long total = hits + stats.getMissCount();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
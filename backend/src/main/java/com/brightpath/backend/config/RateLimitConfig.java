@@ -0,0 +1,71 @@
+package com.brightpath.backend.config;
+
+import com.brightpath.backend.config.RateLimitFilter.EndpointClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registers {@link RateLimitFilter} ahead of every other filter, with limits from
+ * app.rate-limit.*. Client addresses come from the forwarded headers of trusted proxies,
+ * which Tomcat applies before any filter (server.forward-headers-strategy=native).
+ */
+@Configuration
+public class RateLimitConfig {
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.auth-per-minute:20}")
+    private long authPerMinute;
+
+    @Value("${app.rate-limit.download-per-minute:60}")
+    private long downloadPerMinute;
+
+    @Value("${app.rate-limit.upload-per-minute:30}")
+    private long uploadPerMinute;
+
+    @Value("${app.rate-limit.default-per-minute:600}")
+    private long defaultPerMinute;
+
+    @Value("${app.rate-limit.max-concurrent-downloads:32}")
+    private int maxConcurrentDownloads;
+
+    @Value("${app.rate-limit.max-concurrent-uploads:16}")
+    private int maxConcurrentUploads;
+
+    @Value("${cors.allowed-origins}")
+    private String allowedOrigins;
+
+    private RateLimitFilter rateLimitFilter;
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(MeterRegistry meterRegistry) {
+        RateLimitFilter.Limits limits = new RateLimitFilter.Limits(
+                Map.of(EndpointClass.AUTH, authPerMinute,
+                        EndpointClass.DOWNLOAD, downloadPerMinute,
+                        EndpointClass.UPLOAD, uploadPerMinute,
+                        EndpointClass.DEFAULT, defaultPerMinute),
+                maxConcurrentDownloads, maxConcurrentUploads);
+        rateLimitFilter = new RateLimitFilter(limits, meterRegistry, WebConfig.corsConfiguration(allowedOrigins));
+
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public void evictIdleBuckets() {
+        if (rateLimitFilter != null) {
+            rateLimitFilter.evictIdleBuckets();
+        }
+    }
+}
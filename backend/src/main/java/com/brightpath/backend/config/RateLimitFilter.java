@@ -0,0 +1,162 @@
+package com.brightpath.backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsProcessor;
+import org.springframework.web.cors.DefaultCorsProcessor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Rejects excess traffic before any database or blob work starts: 429 when a client's
+ * token bucket (per IP and endpoint class) is empty, 503 when too many downloads or
+ * uploads are already in flight. Rejections are counted as
+ * {@code http.server.requests.rejected}. The client address is the one the server resolved
+ * from the forwarded headers of trusted proxies (server.forward-headers-strategy).
+ *
+ * <p>Rejections are written before Spring MVC's CORS handling runs, so they carry the CORS
+ * headers themselves; otherwise browsers would hide them and their Retry-After from the
+ * frontend.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    enum EndpointClass {
+        AUTH, DOWNLOAD, UPLOAD, DEFAULT
+    }
+
+    /**
+     * Requests per minute for each endpoint class, plus in-flight limits
+     */
+    record Limits(Map<EndpointClass, Long> perMinute, int maxConcurrentDownloads, int maxConcurrentUploads) {
+    }
+
+    private static final Pattern DOWNLOAD = Pattern.compile("/api/courses/\\d+/download");
+    // Chunk PUTs of a resumable upload fall under DEFAULT; a single upload sends hundreds
+    private static final Pattern UPLOAD = Pattern.compile(
+            "/api/courses|/api/courses/\\d+/(image|resource)|/api/courses/\\d+/resource/uploads(/[^/]+/commit)?"
+                    + "|/api/uploads/.*|/api/users/\\d+/profile-image");
+
+    private final Limits limits;
+    private final LongSupplier clock;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<EndpointClass, Semaphore> inFlight = new EnumMap<>(EndpointClass.class);
+    private final MeterRegistry meterRegistry;
+    private final CorsConfiguration cors;
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    RateLimitFilter(Limits limits, MeterRegistry meterRegistry, CorsConfiguration cors) {
+        this(limits, meterRegistry, cors, System::nanoTime);
+    }
+
+    RateLimitFilter(Limits limits, MeterRegistry meterRegistry, CorsConfiguration cors, LongSupplier clock) {
+        this.limits = limits;
+        this.meterRegistry = meterRegistry;
+        this.cors = cors;
+        this.clock = clock;
+        inFlight.put(EndpointClass.DOWNLOAD, new Semaphore(limits.maxConcurrentDownloads()));
+        inFlight.put(EndpointClass.UPLOAD, new Semaphore(limits.maxConcurrentUploads()));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+
+        TokenBucket ipBucket = bucket("ip:" + endpointClass + ":" + request.getRemoteAddr(),
+                limits.perMinute().get(endpointClass));
+        if (!ipBucket.tryAcquire()) {
+            reject(request, response, endpointClass, HttpStatus.TOO_MANY_REQUESTS, "rate_limited",
+                    ipBucket.nanosUntilAvailable());
+            return;
+        }
+
+        Semaphore permits = inFlight.get(endpointClass);
+        if (permits == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            reject(request, response, endpointClass, HttpStatus.SERVICE_UNAVAILABLE, "overloaded",
+                    TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely; a new request simply recreates them.
+     */
+    public void evictIdleBuckets() {
+        buckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    static EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if ("POST".equals(method) && (path.equals("/api/users/login") || path.equals("/api/users/register"))) {
+            return EndpointClass.AUTH;
+        }
+        if ("GET".equals(method) && DOWNLOAD.matcher(path).matches()) {
+            return EndpointClass.DOWNLOAD;
+        }
+        if (("POST".equals(method) || "PUT".equals(method)) && UPLOAD.matcher(path).matches()) {
+            return EndpointClass.UPLOAD;
+        }
+        return EndpointClass.DEFAULT;
+    }
+
+    private TokenBucket bucket(String key, long perMinute) {
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(perMinute, perMinute, clock));
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, EndpointClass endpointClass,
+                        HttpStatus status, String reason, long retryAfterNanos) throws IOException {
+        Counter.builder("http.server.requests.rejected")
+                .tag("endpoint", endpointClass.name().toLowerCase())
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+
+        // Only for the frontend's origin; other origins still get the rejection, just unreadable
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        if (origin != null && cors.checkOrigin(origin) != null) {
+            corsProcessor.processRequest(cors, request, response);
+        }
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        response.setStatus(status.value());
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(status == HttpStatus.TOO_MANY_REQUESTS
+                ? "{\"success\":false,\"message\":\"Too many requests, please try again later\"}"
+                : "{\"success\":false,\"message\":\"Server is busy, please try again shortly\"}");
+    }
+}
@@ -0,0 +1,59 @@
+package com.brightpath.backend.config;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Per-request state used by {@link ReplicaRoutingDataSource} to send reads to the
+ * primary once the request (or a recent request from the same client) has written.
+ */
+public final class ReadYourWrites {
+
+    public static final String HEADER = "X-Primary-Until";
+
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    static void begin(HttpServletResponse response, long pinnedUntil, long windowMillis) {
+        CONTEXT.set(new Context(response, pinnedUntil, windowMillis));
+    }
+
+    static void end() {
+        CONTEXT.remove();
+    }
+
+    /**
+     * Called when a read-write transaction takes a primary connection. Pins the rest of
+     * the request to the primary and tells the client how long to keep reading from it.
+     */
+    static void markWrite() {
+        Context context = CONTEXT.get();
+        if (context == null || context.wrote) {
+            return;
+        }
+        context.wrote = true;
+        if (!context.response.isCommitted()) {
+            long until = System.currentTimeMillis() + context.windowMillis;
+            context.response.setHeader(HEADER, Long.toString(until));
+        }
+    }
+
+    static boolean isPinnedToPrimary() {
+        Context context = CONTEXT.get();
+        return context != null && (context.wrote || context.pinnedUntil > System.currentTimeMillis());
+    }
+
+    private static final class Context {
+        private final HttpServletResponse response;
+        private final long pinnedUntil;
+        private final long windowMillis;
+        private boolean wrote;
+
+        private Context(HttpServletResponse response, long pinnedUntil, long windowMillis) {
+            this.response = response;
+            this.pinnedUntil = pinnedUntil;
+            this.windowMillis = windowMillis;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.brightpath.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Sets up {@link ReadYourWrites} for each request. Clients that echo the
+ * {@code X-Primary-Until} header from a write keep reading from the primary until
+ * that time, so they don't see replica lag right after their own mutation.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final long windowMillis;
+
+    public ReadYourWritesFilter(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        long pinnedUntil = Math.min(parse(request.getHeader(ReadYourWrites.HEADER)), now + windowMillis);
+
+        ReadYourWrites.begin(response, pinnedUntil, windowMillis);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.end();
+        }
+    }
+
+    private long parse(String header) {
+        if (header == null || header.isBlank()) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.brightpath.backend.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket. Instead of a token count it keeps the time at which the bucket
+ * will be full again (the generic cell rate algorithm), so taking a token is a single
+ * compare-and-set on one long.
+ */
+class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final LongSupplier clock;
+    private final AtomicLong fullAt;
+
+    TokenBucket(long tokensPerMinute, long capacity, LongSupplier clock) {
+        this.nanosPerToken = 60_000_000_000L / Math.max(1, tokensPerMinute);
+        this.burstNanos = nanosPerToken * Math.max(1, capacity);
+        this.clock = clock;
+        this.fullAt = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Takes a token if one is available.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            long now = clock.getAsLong();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds until the next token is available, 0 if one is available now.
+     */
+    long nanosUntilAvailable() {
+        long now = clock.getAsLong();
+        return Math.max(0, fullAt.get() + nanosPerToken - burstNanos - now);
+    }
+
+    /**
+     * True when the bucket has refilled completely, i.e. it carries no state worth keeping.
+     */
+    boolean isFull() {
+        return fullAt.get() <= clock.getAsLong();
+    }
+}
@@ -0,0 +1,57 @@
+package com.brightpath.backend.config;
+
+import com.brightpath.backend.trace.CallBudgetInterceptor;
+import com.brightpath.backend.trace.HibernateCallCounter;
+import com.brightpath.backend.trace.RequestTraceFilter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Per-request counts of SQL statements, entity loads and blob calls, checked against each
+ * handler's {@link com.brightpath.backend.trace.CallBudget}. The blob counter is added to
+ * the storage pipeline in {@link AzureBlobConfig}.
+ */
+@Configuration
+public class TraceConfig implements WebMvcConfigurer {
+
+    @Value("${app.trace.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.trace.response-headers:false}")
+    private boolean responseHeaders;
+
+    @Bean
+    public FilterRegistrationBean<RequestTraceFilter> requestTraceFilter() {
+        FilterRegistrationBean<RequestTraceFilter> registration =
+                new FilterRegistrationBean<>(new RequestTraceFilter(responseHeaders));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCallCounter() {
+        HibernateCallCounter counter = new HibernateCallCounter();
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+            properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                    (IntegratorProvider) () -> List.of(counter));
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new CallBudgetInterceptor());
+    }
+}
@@ -1,13 +1,22 @@
 package com.brightpath.backend.config;
 import org.springframework.beans.factory.annotation.Value;
 
+import com.brightpath.backend.trace.RequestTrace;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private static final String[] ALLOWED_METHODS = {"GET", "POST", "PUT", "DELETE", "OPTIONS"};
+    private static final String[] EXPOSED_HEADERS = {ReadYourWrites.HEADER, HttpHeaders.RETRY_AFTER,
+            RequestTrace.SQL_HEADER, RequestTrace.ENTITY_LOADS_HEADER, RequestTrace.BLOB_CALLS_HEADER};
+
     @Value("${cors.allowed-origins}")
     private String allowedOrigins;
 
@@ -15,8 +24,23 @@ public class WebConfig implements WebMvcConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins(allowedOrigins)
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedMethods(ALLOWED_METHODS)
                 .allowedHeaders("*")
+                .exposedHeaders(EXPOSED_HEADERS)
                 .allowCredentials(false);
     }
+
+    /**
+     * The same CORS rules, for {@link RateLimitFilter}, which writes its rejections before
+     * MVC runs
+     */
+    static CorsConfiguration corsConfiguration(String allowedOrigins) {
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(List.of(allowedOrigins));
+        cors.setAllowedMethods(List.of(ALLOWED_METHODS));
+        cors.setAllowedHeaders(List.of("*"));
+        cors.setExposedHeaders(List.of(EXPOSED_HEADERS));
+        cors.setAllowCredentials(false);
+        return cors;
+    }
 }
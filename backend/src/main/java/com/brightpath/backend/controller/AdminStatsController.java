@@ -0,0 +1,165 @@
+package com.brightpath.backend.controller;
+
+import com.brightpath.backend.analytics.EnrollmentAnalytics;
+import com.brightpath.backend.analytics.EnrollmentTable;
+import com.brightpath.backend.analytics.EnrollmentTable.CourseStats;
+import com.brightpath.backend.model.CourseRevenue;
+import com.brightpath.backend.model.RevenuePeriod;
+import com.brightpath.backend.service.RevenueRollupService;
+import com.brightpath.backend.trace.CallBudget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Enrollment reports, answered from the in-memory {@link EnrollmentTable}; figures are as
+ * of its last load ({@code loadedAt}), not live. Revenue, here and per period, comes from
+ * the rollups kept by {@link RevenueRollupService}, which are up to date.
+ */
+@RestController
+@RequestMapping("/api/admin/stats")
+@CrossOrigin(origins = "*")
+public class AdminStatsController {
+
+    private static final int MAX_DAYS = 3660;
+
+    @Autowired
+    private EnrollmentAnalytics enrollmentAnalytics;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    /**
+     * Totals plus enrollments, average progress and net revenue per course
+     */
+    @GetMapping
+    @CallBudget(sql = 1, entityLoads = 0)
+    public ResponseEntity<?> getStats() {
+        Optional<EnrollmentTable> table = enrollmentAnalytics.table();
+        if (table.isEmpty()) {
+            return notLoaded();
+        }
+
+        List<CourseStats> courses = table.get().courseStats(revenueRollupService.netByCourse());
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("loadedAt", table.get().getLoadedAt());
+        response.put("totals", EnrollmentTable.totals(courses));
+        response.put("courses", courses);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * New enrollments per day (UTC) between two dates, by default the last 30 days,
+     * optionally for one course
+     */
+    @GetMapping("/daily")
+    @CallBudget(sql = 0, entityLoads = 0)
+    public ResponseEntity<?> getDailyEnrollments(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "courseId", required = false) Long courseId) {
+        LocalDate last = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate first = from != null ? from : last.minusDays(29);
+        if (first.isAfter(last) || last.toEpochDay() - first.toEpochDay() >= MAX_DAYS) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "from must not be after to, and at most " + MAX_DAYS + " days apart");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        Optional<EnrollmentTable> table = enrollmentAnalytics.table();
+        if (table.isEmpty()) {
+            return notLoaded();
+        }
+
+        long[] counts = table.get().dailyEnrollments((int) first.toEpochDay(), (int) last.toEpochDay(), courseId);
+        List<Map<String, Object>> days = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            days.add(Map.of("date", first.plusDays(i).toString(), "enrollments", counts[i]));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("loadedAt", table.get().getLoadedAt());
+        response.put("days", days);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Revenue per course per day or month (UTC) from the rollups, by default by month for
+     * the last 12 months, optionally for one course
+     */
+    @GetMapping("/revenue")
+    @CallBudget(sql = 1, entityLoads = CallBudget.UNLIMITED)
+    public ResponseEntity<?> getRevenue(
+            @RequestParam(value = "period", defaultValue = "month") String period,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "courseId", required = false) Long courseId) {
+        RevenuePeriod revenuePeriod;
+        try {
+            revenuePeriod = RevenuePeriod.valueOf(period.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "period must be day or month");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        LocalDate last = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate first = from != null ? from
+                : revenuePeriod == RevenuePeriod.MONTH ? last.minusMonths(11).withDayOfMonth(1) : last.minusDays(29);
+        if (first.isAfter(last) || last.toEpochDay() - first.toEpochDay() >= MAX_DAYS) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "from must not be after to, and at most " + MAX_DAYS + " days apart");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        List<CourseRevenue> rows = revenueRollupService.report(revenuePeriod, first, last, courseId);
+        long enrollments = 0;
+        long refunds = 0;
+        BigDecimal gross = BigDecimal.ZERO;
+        BigDecimal refunded = BigDecimal.ZERO;
+        for (CourseRevenue row : rows) {
+            enrollments += row.getEnrollments();
+            refunds += row.getRefunds();
+            gross = gross.add(row.getGross());
+            refunded = refunded.add(row.getRefunded());
+        }
+
+        Map<String, Object> totals = new HashMap<>();
+        totals.put("enrollments", enrollments);
+        totals.put("refunds", refunds);
+        totals.put("gross", gross);
+        totals.put("refunded", refunded);
+        totals.put("net", gross.subtract(refunded));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("period", revenuePeriod);
+        response.put("totals", totals);
+        response.put("rows", rows);
+        return ResponseEntity.ok(response);
+    }
+
+    private ResponseEntity<?> notLoaded() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", "Statistics are still loading, try again shortly");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+}
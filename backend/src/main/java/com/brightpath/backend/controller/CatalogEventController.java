@@ -0,0 +1,29 @@
+package com.brightpath.backend.controller;
+
+import com.brightpath.backend.events.CatalogEventHub;
+import com.brightpath.backend.trace.CallBudget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "*")
+public class CatalogEventController {
+
+    @Autowired
+    private CatalogEventHub catalogEventHub;
+
+    /**
+     * Server-sent "catalog" events for course changes and enrollment count deltas
+     */
+    @GetMapping(value = "/catalog", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @CallBudget(sql = 0, entityLoads = 0)
+    public SseEmitter subscribe() {
+        return catalogEventHub.subscribe();
+    }
+}
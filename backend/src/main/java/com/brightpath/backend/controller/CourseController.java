@@ -1,18 +1,28 @@
 package com.brightpath.backend.controller;
 
+import com.brightpath.backend.dto.CourseDto;
 import com.brightpath.backend.model.Course;
+import com.brightpath.backend.service.CourseChangeService;
+import com.brightpath.backend.service.CourseImageUploadQueue;
+import com.brightpath.backend.service.CourseRecommendations;
 import com.brightpath.backend.service.CourseService;
 import com.brightpath.backend.service.ImageStorageService;
+import com.brightpath.backend.service.ResourceCache;
 import com.brightpath.backend.service.ResourceStorageService;
+import com.brightpath.backend.service.StorageUnavailableException;
+import com.brightpath.backend.trace.CallBudget;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -29,20 +39,57 @@ public class CourseController {
     @Autowired
     private CourseService courseService;
 
+    @Autowired
+    private CourseChangeService courseChangeService;
+
+    @Autowired
+    private CourseRecommendations courseRecommendations;
+
     @Autowired
     private ImageStorageService imageStorageService;
 
     @Autowired
     private ResourceStorageService resourceStorageService;
 
+    @Autowired
+    private CourseImageUploadQueue courseImageUploadQueue;
+
+    // How long clients are told to wait when storage is unavailable: about as long as a circuit stays open
+    @Value("${app.storage.circuit.open-seconds:30}")
+    private long storageRetryAfterSeconds;
+
+    // Caps the IN list of the batch lookup
+    @Value("${app.batch.max-ids:100}")
+    private int maxBatchIds;
+
 
     @GetMapping
-    public ResponseEntity<List<Course>> getAllCourses() {
-        List<Course> courses = courseService.getAllCourses();
+    @CallBudget(sql = 1, entityLoads = CallBudget.UNLIMITED)
+    public ResponseEntity<List<CourseDto>> getAllCourses() {
+        List<CourseDto> courses = courseService.getAllCourses().stream().map(CourseDto::from).toList();
         return new ResponseEntity<>(courses, HttpStatus.OK);
     }
 
+    /**
+     * The courses with the given ids ({@code ?ids=1,2,3}) in one request; ids that don't
+     * exist are left out. Cached courses are not looked up again and the rest take one query.
+     */
+    @GetMapping(params = "ids")
+    @CallBudget(sql = 1, entityLoads = CallBudget.UNLIMITED)
+    public ResponseEntity<?> getCourses(@RequestParam("ids") List<Long> ids) {
+        if (ids.isEmpty() || ids.contains(null) || ids.size() > maxBatchIds) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", ids.size() > maxBatchIds
+                    ? "At most " + maxBatchIds + " ids per request" : "ids is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        List<CourseDto> courses = courseService.findAllById(ids).stream().map(CourseDto::from).toList();
+        return ResponseEntity.ok(courses);
+    }
+
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @CallBudget(sql = 7, entityLoads = 0, blobCalls = 3)
     public ResponseEntity<?> createCourse(
             @RequestParam("name") String name,
             @RequestParam("description") String description,
@@ -61,6 +108,7 @@ public class CourseController {
 
         try {
             String imageUrl = null;
+            boolean queueImage = false;
 
             // Handle image upload to Azure Blob Storage
             if (imageFile != null && !imageFile.isEmpty()) {
@@ -68,6 +116,10 @@ public class CourseController {
                 try {
                     imageUrl = imageStorageService.uploadCourseImage(imageFile);
                     logger.info("✅ Image uploaded to Azure Blob Storage: {}", imageUrl);
+                } catch (StorageUnavailableException e) {
+                    // Save the course without its image; the upload is retried in the background
+                    logger.warn("Storage unavailable, queuing image upload: {}", e.getMessage());
+                    queueImage = true;
                 } catch (IOException e) {
                     logger.error("Failed to upload image: {}", e.getMessage());
                     response.put("success", false);
@@ -99,10 +151,16 @@ public class CourseController {
             // Save course
             Course savedCourse = courseService.saveCourse(course);
             logger.info("✅ Course saved to DB with ID: {}", savedCourse.getId());
+            if (queueImage) {
+                courseImageUploadQueue.enqueue(savedCourse.getId(), imageFile);
+            }
 
             response.put("success", true);
-            response.put("message", "Course created successfully");
+            response.put("message", queueImage
+                    ? "Course created; its image will be added once storage is available"
+                    : "Course created successfully");
             response.put("course", savedCourse);
+            response.put("imageQueued", queueImage);
 
             return new ResponseEntity<>(response, HttpStatus.CREATED);
 
@@ -114,7 +172,60 @@ public class CourseController {
         }
     }
 
+    /**
+     * Courses changed after the {@code since} token, deleted ones as tombstones; without
+     * a token, the whole catalog. Clients keep the returned token for the next poll and
+     * fetch again straight away while {@code hasMore} is set.
+     */
+    @GetMapping("/changes")
+    @CallBudget(sql = 3, entityLoads = CallBudget.UNLIMITED)
+    public ResponseEntity<?> getCourseChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            CourseChangeService.ChangePage page;
+            if (since == null || since.isEmpty()) {
+                page = courseChangeService.snapshot();
+            } else {
+                long token;
+                try {
+                    token = Long.parseLong(since);
+                } catch (NumberFormatException e) {
+                    token = -1;
+                }
+                if (token < 0) {
+                    response.put("success", false);
+                    response.put("message", "Invalid sync token");
+                    return ResponseEntity.badRequest().body(response);
+                }
+                Optional<CourseChangeService.ChangePage> changes = courseChangeService.changesSince(token, limit);
+                if (changes.isEmpty()) {
+                    response.put("success", false);
+                    response.put("message", "Sync token expired, fetch again without one");
+                    return ResponseEntity.status(HttpStatus.GONE).body(response);
+                }
+                page = changes.get();
+            }
+
+            response.put("success", true);
+            response.put("changes", page.changes());
+            // A string so JavaScript clients don't lose precision
+            response.put("token", String.valueOf(page.token()));
+            response.put("hasMore", page.hasMore());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error retrieving course changes since {}: {}", since, e.getMessage());
+            response.put("success", false);
+            response.put("message", "Internal server error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     @GetMapping("/{id}")
+    @CallBudget(sql = 1, entityLoads = 1)
     public ResponseEntity<?> getCourse(@PathVariable Long id) {
         Map<String, Object> response = new HashMap<>();
 
@@ -126,9 +237,8 @@ public class CourseController {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            Course course = courseOptional.get();
             response.put("success", true);
-            response.put("course", course);
+            response.put("course", CourseDto.from(courseOptional.get()));
 
             return ResponseEntity.ok(response);
 
@@ -140,7 +250,37 @@ public class CourseController {
         }
     }
 
+    /**
+     * Courses most often taken by students of this course, from the in-memory
+     * co-enrollment counts (rebuilt periodically, so new enrollments show up later)
+     */
+    @GetMapping("/{id}/related")
+    @CallBudget(sql = 1, entityLoads = CallBudget.UNLIMITED)
+    public ResponseEntity<?> getRelatedCourses(@PathVariable Long id,
+                                               @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            long[] relatedIds = courseRecommendations.relatedCourseIds(id, limit);
+            // Courses deleted since the last rebuild drop out here
+            List<CourseDto> courses = relatedIds.length == 0 ? List.of()
+                    : courseService.findAllById(Arrays.stream(relatedIds).boxed().toList()).stream()
+                            .map(CourseDto::from).toList();
+
+            response.put("success", true);
+            response.put("courses", courses);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error retrieving courses related to {}: {}", id, e.getMessage());
+            response.put("success", false);
+            response.put("message", "Internal server error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     @PutMapping("/{id}")
+    @CallBudget(sql = 3, entityLoads = 1)
     public ResponseEntity<?> updateCourse(
             @PathVariable Long id,
             @RequestBody Course courseDetails) {
@@ -166,6 +306,7 @@ public class CourseController {
     }
 
     @PutMapping("/{id}/image")
+    @CallBudget(sql = 4, entityLoads = 2, blobCalls = 1)
     public ResponseEntity<?> updateCourseImage(
             @PathVariable Long id,
             @RequestParam("image") MultipartFile imageFile) {
@@ -182,14 +323,7 @@ public class CourseController {
             }
 
             Course course = courseOptional.get();
-
-            // Delete old course image if exists
-            if (course.getImageUrl() != null && !course.getImageUrl().isEmpty()) {
-                String oldFilename = imageStorageService.extractFilenameFromUrl(course.getImageUrl());
-                if (oldFilename != null) {
-                    imageStorageService.deleteCourseImage(oldFilename);
-                }
-            }
+            String oldImageUrl = course.getImageUrl();
 
             // Upload new image
             String imageUrl = imageStorageService.uploadCourseImage(imageFile);
@@ -198,6 +332,14 @@ public class CourseController {
             course.setImageUrl(imageUrl);
             courseService.saveCourse(course);
 
+            // Delete old course image only once nothing points at it
+            if (oldImageUrl != null && !oldImageUrl.isEmpty()) {
+                String oldFilename = imageStorageService.extractFilenameFromUrl(oldImageUrl);
+                if (oldFilename != null) {
+                    imageStorageService.deleteCourseImage(oldFilename);
+                }
+            }
+
             response.put("success", true);
             response.put("message", "Course image updated successfully");
             response.put("imageUrl", imageUrl);
@@ -219,16 +361,20 @@ public class CourseController {
     }
 
     @DeleteMapping("/{id}")
+    @CallBudget(sql = 7, entityLoads = 3)
     public ResponseEntity<?> deleteCourse(@PathVariable Long id) {
         Map<String, Object> response = new HashMap<>();
 
         try {
             // Get course to check if image exists
             Optional<Course> courseOptional = courseService.findById(id);
+
+            // Delete course from database
+            courseService.deleteCourse(id);
+
+            // Delete associated image from Azure Blob Storage
             if (courseOptional.isPresent()) {
                 Course course = courseOptional.get();
-
-                // Delete associated image from Azure Blob Storage
                 if (course.getImageUrl() != null && !course.getImageUrl().isEmpty()) {
                     String filename = imageStorageService.extractFilenameFromUrl(course.getImageUrl());
                     if (filename != null) {
@@ -237,8 +383,10 @@ public class CourseController {
                 }
             }
 
-            // Delete course from database
-            courseService.deleteCourse(id);
+            // Release the course PDF; the blob is deleted once no other course shares it
+            if (courseOptional.isPresent() && courseOptional.get().getResourceUrl() != null) {
+                resourceStorageService.releaseResource(courseOptional.get().getResourceUrl());
+            }
 
             response.put("success", true);
             response.put("message", "Course deleted successfully");
@@ -257,6 +405,7 @@ public class CourseController {
     }
 
     @DeleteMapping("/{id}/image")
+    @CallBudget(sql = 4, entityLoads = 2)
     public ResponseEntity<?> deleteCourseImage(@PathVariable Long id) {
         Map<String, Object> response = new HashMap<>();
 
@@ -273,11 +422,11 @@ public class CourseController {
             if (course.getImageUrl() != null && !course.getImageUrl().isEmpty()) {
                 String filename = imageStorageService.extractFilenameFromUrl(course.getImageUrl());
                 if (filename != null) {
+                    course.setImageUrl(null);
+                    courseService.saveCourse(course);
+
                     boolean deleted = imageStorageService.deleteCourseImage(filename);
                     if (deleted) {
-                        course.setImageUrl(null);
-                        courseService.saveCourse(course);
-
                         response.put("success", true);
                         response.put("message", "Course image deleted successfully");
                     } else {
@@ -303,6 +452,7 @@ public class CourseController {
         }
     }
     @PutMapping("/{id}/resource")
+    @CallBudget(sql = 7, entityLoads = 2, blobCalls = 2)
     public ResponseEntity<?> uploadCourseResource(
             @PathVariable Long id,
             @RequestParam("file") MultipartFile file) {
@@ -318,22 +468,20 @@ public class CourseController {
             }
 
             Course course = courseOptional.get();
+            String oldResourceUrl = course.getResourceUrl();
 
-            // Delete old PDF if exists
-            if (course.getResourceUrl() != null && !course.getResourceUrl().isEmpty()) {
-                String oldFilename = resourceStorageService.extractFilenameFromUrl(course.getResourceUrl());
-                if (oldFilename != null) {
-                    resourceStorageService.deleteResource(oldFilename);
-                }
-            }
-
-            // Upload new PDF
+            // Upload new PDF (or take a reference to identical stored content)
             String resourceUrl = resourceStorageService.uploadResource(file);
 
             // Save URL to course
             course.setResourceUrl(resourceUrl);
             courseService.saveCourse(course);
 
+            // Release old PDF if exists
+            if (oldResourceUrl != null && !oldResourceUrl.isEmpty()) {
+                resourceStorageService.releaseResource(oldResourceUrl);
+            }
+
             response.put("success", true);
             response.put("message", "Resource uploaded successfully");
             response.put("resourceUrl", resourceUrl);
@@ -353,6 +501,7 @@ public class CourseController {
 
 
     @GetMapping("/{id}/resource")
+    @CallBudget(sql = 1, entityLoads = 1)
     public ResponseEntity<?> getCourseResource(@PathVariable Long id) {
         Map<String, Object> response = new HashMap<>();
         Optional<Course> courseOptional = courseService.findById(id);
@@ -368,25 +517,42 @@ public class CourseController {
         response.put("resourceUrl", course.getResourceUrl());
         return ResponseEntity.ok(response);
     }
+    /**
+     * Streams the course's PDF from the local resource cache, which fetches it from
+     * storage on a miss; cached files are sent without being read onto the heap
+     */
     @GetMapping("/{id}/download")
-    public ResponseEntity<byte[]> downloadResource(@PathVariable Long id) throws IOException {
+    @CallBudget(sql = 1, entityLoads = 1, blobCalls = 1)
+    public void downloadResource(@PathVariable Long id, HttpServletResponse response) throws IOException {
         Optional<Course> courseOptional = courseService.findById(id);
         if (!courseOptional.isPresent()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
 
         Course course = courseOptional.get();
         String resourceUrl = course.getResourceUrl();
         if (resourceUrl == null || resourceUrl.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
 
-        byte[] pdfData = resourceStorageService.downloadResource(resourceUrl); // This now works
+        ResourceCache.Content content;
+        try {
+            content = resourceStorageService.openResource(resourceUrl);
+        } catch (StorageUnavailableException e) {
+            logger.warn("Resource download for course {} failed: {}", id, e.getMessage());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(storageRetryAfterSeconds));
+            return;
+        }
 
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + course.getName() + ".pdf\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfData);
+        try (content) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + course.getName() + ".pdf\"");
+            response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+            response.setContentLengthLong(content.size());
+            content.transferTo(response.getOutputStream());
+        }
     }
 
 
@@ -1,11 +1,14 @@
 package com.brightpath.backend.controller;
 
+import com.brightpath.backend.dto.CourseDto;
+import com.brightpath.backend.dto.UserDto;
 import com.brightpath.backend.model.Enrollment;
 import com.brightpath.backend.model.User;
 import com.brightpath.backend.model.Course;
 import com.brightpath.backend.service.EnrollmentService;
 import com.brightpath.backend.service.UserService;
 import com.brightpath.backend.service.CourseService;
+import com.brightpath.backend.trace.CallBudget;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -30,6 +33,7 @@ public class EnrollmentController {
     private CourseService courseService;
 
     @PostMapping("/{userId}/{courseId}")
+    @CallBudget(sql = 5, entityLoads = 2)
     public ResponseEntity<?> enrollInCourse(
             @PathVariable Long userId,
             @PathVariable Long courseId) {
@@ -79,17 +83,19 @@ public class EnrollmentController {
     }
 
     @GetMapping("/user/{userId}/courses")
+    @CallBudget(sql = 2, entityLoads = CallBudget.UNLIMITED)
     public ResponseEntity<?> getUserCourses(@PathVariable Long userId) {
-        Optional<User> userOptional = userService.findById(userId);
+        Optional<UserDto> userOptional = userService.findProfile(userId);
         if (!userOptional.isPresent()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("success", false, "message", "User not found"));
         }
 
-        List<Course> courses = enrollmentService.getUserEnrollments(userId)
+        List<CourseDto> courses = enrollmentService.getUserEnrollments(userId)
                 .stream()
                 .map(Enrollment::getCourse)
                 .filter(course -> course != null)
+                .map(CourseDto::from)
                 .toList();
 
         return ResponseEntity.ok(Map.of(
@@ -101,7 +107,29 @@ public class EnrollmentController {
 
 
 
+    /**
+     * Just the ids of the user's courses, for marking enrolled courses across a catalog
+     * page; served from memory once the user's index is loaded
+     */
+    @GetMapping("/user/{userId}/course-ids")
+    @CallBudget(sql = 2, entityLoads = 1)
+    public ResponseEntity<?> getUserCourseIds(@PathVariable Long userId) {
+        Optional<UserDto> userOptional = userService.findProfile(userId);
+        if (!userOptional.isPresent()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("success", false, "message", "User not found"));
+        }
+
+        long[] courseIds = enrollmentService.getEnrolledCourseIds(userId);
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "courseIds", courseIds,
+                "count", courseIds.length
+        ));
+    }
+
     @DeleteMapping("/{userId}/{courseId}")
+    @CallBudget(sql = 6, entityLoads = 5)
     public ResponseEntity<?> unenrollFromCourse(
             @PathVariable Long userId,
             @PathVariable Long courseId) {
@@ -110,7 +138,7 @@ public class EnrollmentController {
 
         try {
             // Check if user exists
-            Optional<User> userOptional = userService.findById(userId);
+            Optional<UserDto> userOptional = userService.findProfile(userId);
             if (!userOptional.isPresent()) {
                 response.put("success", false);
                 response.put("message", "User not found with id: " + userId);
@@ -148,6 +176,7 @@ public class EnrollmentController {
     }
 
     @GetMapping("/course/{courseId}")
+    @CallBudget(sql = 2, entityLoads = CallBudget.UNLIMITED)
     public ResponseEntity<?> getCourseEnrollments(@PathVariable Long courseId) {
         Map<String, Object> response = new HashMap<>();
 
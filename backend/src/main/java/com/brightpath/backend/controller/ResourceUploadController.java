@@ -0,0 +1,142 @@
+package com.brightpath.backend.controller;
+
+import com.brightpath.backend.model.ResourceUploadSession;
+import com.brightpath.backend.service.ResourceUploadService;
+import com.brightpath.backend.trace.CallBudget;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Chunked upload API for course resources larger than the multipart limit:
+ * POST to start, PUT each chunk (in any order, in parallel), GET to see which chunks
+ * are missing after a dropped connection, then POST commit.
+ */
+@RestController
+@RequestMapping("/api/courses/{courseId}/resource/uploads")
+@CrossOrigin(origins = "*")
+public class ResourceUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceUploadController.class);
+
+    @Autowired
+    private ResourceUploadService resourceUploadService;
+
+    @PostMapping
+    @CallBudget(sql = 4, entityLoads = 1)
+    public ResponseEntity<?> initUpload(@PathVariable Long courseId, @RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            String filename = (String) request.get("filename");
+            String contentType = (String) request.get("contentType");
+            String sha256 = (String) request.get("sha256");
+            long size = request.get("size") instanceof Number number ? number.longValue() : -1;
+
+            Optional<ResourceUploadSession> session =
+                    resourceUploadService.init(courseId, filename, contentType, size, sha256);
+
+            response.put("success", true);
+            if (session.isEmpty()) {
+                response.put("complete", true);
+                response.put("message", "Resource already stored; attached to course");
+                return ResponseEntity.ok(response);
+            }
+
+            response.put("complete", false);
+            response.put("uploadId", session.get().getId());
+            response.put("chunkSize", session.get().getChunkSize());
+            response.put("chunkCount", session.get().getChunkCount());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (IOException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+    }
+
+    @PutMapping("/{uploadId}/chunks/{index}")
+    @CallBudget(sql = 1, entityLoads = 1, blobCalls = 1)
+    public ResponseEntity<?> putChunk(
+            @PathVariable Long courseId,
+            @PathVariable String uploadId,
+            @PathVariable int index,
+            HttpServletRequest request) {
+
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            resourceUploadService.putChunk(courseId, uploadId, index, request.getInputStream());
+            response.put("success", true);
+            response.put("index", index);
+            return ResponseEntity.ok(response);
+
+        } catch (IOException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            logger.error("Failed to stage chunk {} of upload {}: {}", index, uploadId, e.getMessage());
+            response.put("success", false);
+            response.put("message", "Failed to store chunk");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    @CallBudget(sql = 1, entityLoads = 1, blobCalls = 1)
+    public ResponseEntity<?> getUploadStatus(@PathVariable Long courseId, @PathVariable String uploadId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<Integer> missing = resourceUploadService.getMissingChunks(courseId, uploadId);
+            response.put("success", true);
+            response.put("missingChunks", missing);
+            return ResponseEntity.ok(response);
+
+        } catch (IOException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+    }
+
+    @PostMapping("/{uploadId}/commit")
+    @CallBudget(sql = 7, entityLoads = 4, blobCalls = 2)
+    public ResponseEntity<?> commitUpload(@PathVariable Long courseId, @PathVariable String uploadId) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            String resourceUrl = resourceUploadService.commit(courseId, uploadId);
+            response.put("success", true);
+            response.put("message", "Resource uploaded successfully");
+            response.put("resourceUrl", resourceUrl);
+            return ResponseEntity.ok(response);
+
+        } catch (IOException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            logger.error("Failed to commit upload {}: {}", uploadId, e.getMessage());
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.brightpath.backend.controller;
+
+import com.brightpath.backend.service.UploadIntentService;
+import com.brightpath.backend.trace.CallBudget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Direct-to-storage uploads: POST an intent to get a write-only SAS URL, PUT the file
+ * to that URL, then POST the intent token to complete.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+@CrossOrigin(origins = "*")
+public class UploadIntentController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadIntentController.class);
+
+    @Autowired
+    private UploadIntentService uploadIntentService;
+
+    @PostMapping("/intents")
+    @CallBudget(sql = 1, entityLoads = 1)
+    public ResponseEntity<?> createIntent(@RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            UploadIntentService.Target target = UploadIntentService.Target.valueOf(String.valueOf(request.get("target")));
+            Long ownerId = request.get("ownerId") instanceof Number number ? number.longValue() : null;
+            if (ownerId == null) {
+                throw new IOException("ownerId is required");
+            }
+            String contentType = (String) request.get("contentType");
+            long size = request.get("size") instanceof Number number ? number.longValue() : -1;
+
+            response.putAll(uploadIntentService.createIntent(target, ownerId, contentType, size));
+            response.put("success", true);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "target must be one of COURSE_IMAGE, PROFILE_IMAGE, COURSE_RESOURCE");
+            return ResponseEntity.badRequest().body(response);
+        } catch (IOException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (RuntimeException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+    }
+
+    @PostMapping("/complete")
+    @CallBudget(sql = 5, entityLoads = 2, blobCalls = 2)
+    public ResponseEntity<?> completeUpload(@RequestBody Map<String, String> request) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            String url = uploadIntentService.complete(request.get("token"));
+            response.put("success", true);
+            response.put("message", "Upload completed successfully");
+            response.put("url", url);
+            return ResponseEntity.ok(response);
+
+        } catch (IOException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            logger.error("Failed to complete direct upload: {}", e.getMessage());
+            response.put("success", false);
+            response.put("message", "Internal server error: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
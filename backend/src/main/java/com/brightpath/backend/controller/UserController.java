@@ -1,11 +1,15 @@
 package com.brightpath.backend.controller;
 
+import com.brightpath.backend.dto.UserDto;
 import com.brightpath.backend.model.User;
 import com.brightpath.backend.service.ImageStorageService;
 import com.brightpath.backend.service.UserService;
+import com.brightpath.backend.trace.CallBudget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -26,8 +30,13 @@ public class UserController {
     @Autowired
     private ImageStorageService imageStorageService;
 
+    // Caps the IN list of the batch lookup
+    @Value("${app.batch.max-ids:100}")
+    private int maxBatchIds;
+
     // REGISTER
     @PostMapping("/register")
+    @CallBudget(sql = 3, entityLoads = 0, blobCalls = 1)
     public ResponseEntity<?> register(
             @RequestParam("username") String username,
             @RequestParam("email") String email,
@@ -37,12 +46,18 @@ public class UserController {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            if (userService.findByUsername(username).isPresent()) {
+            if (userService.isUsernameTaken(username)) {
                 response.put("success", false);
                 response.put("message", "Username already taken");
                 return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
             }
 
+            if (userService.existsByEmail(email)) {
+                response.put("success", false);
+                response.put("message", "Email already registered");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+
             User user = new User();
             user.setUsername(username);
             user.setEmail(email);
@@ -69,6 +84,11 @@ public class UserController {
 
             return ResponseEntity.ok(response);
 
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent registration; the unique constraints decide
+            response.put("success", false);
+            response.put("message", "Username or email already taken");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
             logger.error("Error during user registration: {}", e.getMessage());
             response.put("success", false);
@@ -79,6 +99,7 @@ public class UserController {
 
     // LOGIN
     @PostMapping("/login")
+    @CallBudget(sql = 1, entityLoads = 1)
     public ResponseEntity<?> login(@RequestBody Map<String, String> loginData) {
         Map<String, Object> response = new HashMap<>();
 
@@ -114,18 +135,19 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
+    @CallBudget(sql = 1, entityLoads = 1)
     public ResponseEntity<?> getUserProfile(@PathVariable Long id) {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            Optional<User> userOptional = userService.findById(id);
+            Optional<UserDto> userOptional = userService.findProfile(id);
             if (!userOptional.isPresent()) {
                 response.put("success", false);
                 response.put("message", "User not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
             }
 
-            User user = userOptional.get();
+            UserDto user = userOptional.get();
             response.put("success", true);
             response.put("user", user);
 
@@ -139,7 +161,43 @@ public class UserController {
         }
     }
 
+    /**
+     * Several users in one request, body {@code {"ids": [...]}}; ids that don't exist are
+     * left out. Cached users are not looked up again and the rest take one query. Returns
+     * the public profile only, never the password.
+     */
+    @PostMapping("/batch")
+    @CallBudget(sql = 1, entityLoads = CallBudget.UNLIMITED)
+    public ResponseEntity<?> getUsers(@RequestBody Map<String, List<Long>> request) {
+        Map<String, Object> response = new HashMap<>();
+
+        List<Long> ids = request.get("ids");
+        if (ids == null || ids.isEmpty() || ids.contains(null)) {
+            response.put("success", false);
+            response.put("message", "ids is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (ids.size() > maxBatchIds) {
+            response.put("success", false);
+            response.put("message", "At most " + maxBatchIds + " ids per request");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            response.put("success", true);
+            response.put("users", userService.findAllById(ids));
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error retrieving users {}: {}", ids, e.getMessage());
+            response.put("success", false);
+            response.put("message", "Internal server error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
     @PutMapping("/{id}")
+    @CallBudget(sql = 2, entityLoads = 2)
     public ResponseEntity<?> updateUser(
             @PathVariable Long id,
             @RequestBody User updatedUser
@@ -179,6 +237,7 @@ public class UserController {
     }
 
     @PostMapping("/{id}/profile-image")
+    @CallBudget(sql = 2, entityLoads = 2, blobCalls = 1)
     public ResponseEntity<?> uploadProfileImage(
             @PathVariable Long id,
             @RequestParam("profileImage") MultipartFile profileImage
@@ -202,14 +261,7 @@ public class UserController {
             }
 
             User user = optionalUser.get();
-
-            // Delete old profile image if exists
-            if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
-                String oldFilename = imageStorageService.extractFilenameFromUrl(user.getProfileImageUrl());
-                if (oldFilename != null) {
-                    imageStorageService.deleteProfileImage(oldFilename);
-                }
-            }
+            String oldImageUrl = user.getProfileImageUrl();
 
             // Upload new image to Azure Blob Storage
             String imageUrl = imageStorageService.uploadProfileImage(profileImage);
@@ -218,6 +270,14 @@ public class UserController {
             user.setProfileImageUrl(imageUrl);
             User saved = userService.save(user);
 
+            // Delete old profile image only once nothing points at it
+            if (oldImageUrl != null && !oldImageUrl.isEmpty()) {
+                String oldFilename = imageStorageService.extractFilenameFromUrl(oldImageUrl);
+                if (oldFilename != null) {
+                    imageStorageService.deleteProfileImage(oldFilename);
+                }
+            }
+
             response.put("success", true);
             response.put("message", "Profile image uploaded successfully");
             response.put("imageUrl", imageUrl);
@@ -240,6 +300,7 @@ public class UserController {
     }
 
     @PutMapping("/{id}/profile-image")
+    @CallBudget(sql = 3, entityLoads = 2, blobCalls = 1)
     public ResponseEntity<?> updateProfileImage(
             @PathVariable Long id,
             @RequestParam("profileImage") MultipartFile profileImage
@@ -249,6 +310,7 @@ public class UserController {
     }
 
     @DeleteMapping("/{id}/profile-image")
+    @CallBudget(sql = 3, entityLoads = 2)
     public ResponseEntity<?> deleteProfileImage(@PathVariable Long id) {
         Map<String, Object> response = new HashMap<>();
 
@@ -265,11 +327,11 @@ public class UserController {
             if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
                 String filename = imageStorageService.extractFilenameFromUrl(user.getProfileImageUrl());
                 if (filename != null) {
+                    user.setProfileImageUrl(null);
+                    userService.save(user);
+
                     boolean deleted = imageStorageService.deleteProfileImage(filename);
                     if (deleted) {
-                        user.setProfileImageUrl(null);
-                        userService.save(user);
-
                         response.put("success", true);
                         response.put("message", "Profile image deleted successfully");
                     } else {
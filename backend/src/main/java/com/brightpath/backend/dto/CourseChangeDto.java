@@ -0,0 +1,19 @@
+package com.brightpath.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One entry of a delta sync response: the course as it is now, or a tombstone
+ * ({@code deleted} and no course) when it no longer exists.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CourseChangeDto(Long courseId, boolean deleted, CourseDto course) {
+
+    public static CourseChangeDto upsert(CourseDto course) {
+        return new CourseChangeDto(course.id(), false, course);
+    }
+
+    public static CourseChangeDto tombstone(Long courseId) {
+        return new CourseChangeDto(courseId, true, null);
+    }
+}
@@ -0,0 +1,40 @@
+package com.brightpath.backend.dto;
+
+import com.brightpath.backend.model.Course;
+
+import java.time.LocalDate;
+
+/**
+ * Course as returned by the read endpoints, shared by the MVC controllers and the
+ * reactive read API so both serve the same JSON.
+ */
+public record CourseDto(
+        Long id,
+        String name,
+        String description,
+        LocalDate startDate,
+        double price,
+        String imageUrl,
+        String resourceUrl,
+        String imageFilename) {
+
+    public CourseDto(Long id, String name, String description, LocalDate startDate, double price,
+                     String imageUrl, String resourceUrl) {
+        this(id, name, description, startDate, price, imageUrl, resourceUrl, filenameOf(imageUrl));
+    }
+
+    public static CourseDto from(Course course) {
+        // Hibernate hands back java.sql.Date, cached copies may be plain java.util.Date
+        LocalDate startDate = course.getStartDate() == null ? null
+                : new java.sql.Date(course.getStartDate().getTime()).toLocalDate();
+        return new CourseDto(course.getId(), course.getName(), course.getDescription(), startDate,
+                course.getPrice(), course.getImageUrl(), course.getResourceUrl());
+    }
+
+    private static String filenameOf(String imageUrl) {
+        if (imageUrl != null && imageUrl.contains("/")) {
+            return imageUrl.substring(imageUrl.lastIndexOf("/") + 1);
+        }
+        return null;
+    }
+}
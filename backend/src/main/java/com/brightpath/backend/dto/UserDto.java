@@ -0,0 +1,32 @@
+package com.brightpath.backend.dto;
+
+import com.brightpath.backend.model.User;
+
+/**
+ * User as returned by the read endpoints: the same fields as the entity's JSON, except
+ * the password.
+ */
+public record UserDto(
+        Long id,
+        String username,
+        String email,
+        String profileImageUrl,
+        String profileImage,
+        String profileImageFilename) {
+
+    public UserDto(Long id, String username, String email, String profileImageUrl) {
+        // profileImage is the legacy name the frontend still reads
+        this(id, username, email, profileImageUrl, profileImageUrl, filenameOf(profileImageUrl));
+    }
+
+    public static UserDto from(User user) {
+        return new UserDto(user.getId(), user.getUsername(), user.getEmail(), user.getProfileImageUrl());
+    }
+
+    private static String filenameOf(String profileImageUrl) {
+        if (profileImageUrl != null && profileImageUrl.contains("/")) {
+            return profileImageUrl.substring(profileImageUrl.lastIndexOf("/") + 1);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.brightpath.backend.events;
+
+import com.brightpath.backend.dto.CourseDto;
+import com.brightpath.backend.model.Course;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A change to the course catalog, as pushed to clients of /api/events/catalog. Course
+ * events carry the course as the read endpoints return it; enrollment events carry the
+ * change in the course's enrollment count.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CatalogEvent(String type, Long courseId, CourseDto course, Long delta) {
+
+    public static final String COURSE_CREATED = "course-created";
+    public static final String COURSE_UPDATED = "course-updated";
+    public static final String COURSE_DELETED = "course-deleted";
+    public static final String ENROLLMENTS_CHANGED = "enrollments-changed";
+
+    public static CatalogEvent courseCreated(Course course) {
+        return new CatalogEvent(COURSE_CREATED, course.getId(), CourseDto.from(course), null);
+    }
+
+    public static CatalogEvent courseUpdated(Course course) {
+        return new CatalogEvent(COURSE_UPDATED, course.getId(), CourseDto.from(course), null);
+    }
+
+    public static CatalogEvent courseDeleted(Long courseId) {
+        return new CatalogEvent(COURSE_DELETED, courseId, null, null);
+    }
+
+    public static CatalogEvent enrollmentsChanged(Long courseId, long delta) {
+        return new CatalogEvent(ENROLLMENTS_CHANGED, courseId, null, delta);
+    }
+}
@@ -0,0 +1,204 @@
+package com.brightpath.backend.events;
+
+import com.brightpath.backend.cache.SharedCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes {@link CatalogEvent}s to server-sent event subscribers. Events are published
+ * once their transaction commits and travel over the shared cache's pub/sub channel, so
+ * subscribers on every node see writes made on any node.
+ *
+ * <p>Each subscriber has a bounded buffer, drained by a fixed pool of sender threads. A
+ * subscriber whose buffer fills up is disconnected rather than slowing down everyone else;
+ * browsers reconnect on their own and re-fetch what they missed.
+ */
+@Component
+public class CatalogEventHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogEventHub.class);
+
+    private static final String CHANNEL = "catalog-events";
+    // Queued in place of an event to send a keep-alive comment
+    private static final String HEARTBEAT = "";
+    private static final long BUSY_RETRY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final SharedCache sharedCache;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter dropped;
+
+    @Autowired
+    public CatalogEventHub(SharedCache sharedCache, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                           @Value("${app.events.buffer-size:64}") int bufferSize,
+                           @Value("${app.events.max-subscribers:5000}") int maxSubscribers,
+                           @Value("${app.events.timeout-minutes:30}") long timeoutMinutes,
+                           @Value("${app.events.sender-threads:64}") int senderThreads) {
+        this(sharedCache, objectMapper, meterRegistry, senderPool(senderThreads), bufferSize, maxSubscribers,
+                TimeUnit.MINUTES.toMillis(timeoutMinutes));
+    }
+
+    CatalogEventHub(SharedCache sharedCache, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                    ExecutorService senders, int bufferSize, int maxSubscribers, long timeoutMillis) {
+        this.sharedCache = sharedCache;
+        this.objectMapper = objectMapper;
+        this.senders = senders;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.dropped = Counter.builder("catalog.events.dropped.subscribers")
+                .description("SSE subscribers disconnected because they fell behind")
+                .register(meterRegistry);
+        Gauge.builder("catalog.events.subscribers", subscribers, Set::size).register(meterRegistry);
+        sharedCache.subscribe(CHANNEL, this::deliver);
+    }
+
+    // A sender blocks while a client's socket is full, so there are enough threads for a few
+    // stuck clients; past that, drains wait in the queue (at most one per subscriber) rather
+    // than each slow client taking a thread of its own
+    private static ExecutorService senderPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "catalog-events-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * A new subscription. When this node already has the maximum number of subscribers the
+     * stream ends straight away and tells the client when to reconnect.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        if (!subscribe(emitter)) {
+            try {
+                emitter.send(SseEmitter.event().reconnectTime(BUSY_RETRY_MILLIS).comment("busy"));
+            } catch (IOException e) {
+                // Not connected yet, the event is only queued
+            }
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    boolean subscribe(SseEmitter emitter) {
+        if (subscribers.size() >= maxSubscribers) {
+            return false;
+        }
+        Subscriber subscriber = new Subscriber(emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return true;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(CatalogEvent event) {
+        try {
+            sharedCache.publish(CHANNEL, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Failed to publish catalog event {} for course {}: {}", event.type(), event.courseId(),
+                    e.getMessage());
+        }
+    }
+
+    // Also keeps idle connections from being closed by proxies
+    @Scheduled(fixedDelayString = "${app.events.heartbeat-seconds:20}", timeUnit = TimeUnit.SECONDS)
+    public void heartbeat() {
+        deliver(HEARTBEAT);
+    }
+
+    private void deliver(String message) {
+        subscribers.forEach(subscriber -> subscriber.offer(message));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<String> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(String message) {
+            if (!buffer.offer(message)) {
+                if (subscribers.remove(this)) {
+                    dropped.increment();
+                    logger.debug("Dropping catalog event subscriber with {} events pending", buffer.size());
+                    // Completing waits for a send in progress, so not on the publishing thread
+                    senders.execute(emitter::complete);
+                }
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                String message;
+                while ((message = buffer.poll()) != null && subscribers.contains(this)) {
+                    emitter.send(message.isEmpty()
+                            ? SseEmitter.event().comment("keep-alive")
+                            : SseEmitter.event().name("catalog").data(message));
+                }
+            } catch (Exception e) {
+                // Client went away; the emitter's callbacks may not run until the container notices
+                subscribers.remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An offer that raced with the end of the loop
+            if (!buffer.isEmpty() && subscribers.contains(this) && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.brightpath.backend.model;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+@Entity
+@Table(name = "blob_deletions")
+public class BlobDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 63)
+    private String container;
+
+    @Column(name = "blob_name", nullable = false)
+    private String blobName;
+
+    @Column(name = "if_match", length = 100)
+    private String ifMatch; // Only delete this version of the blob, if set
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "next_attempt_at", nullable = false)
+    private Date nextAttemptAt = new Date();
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt = new Date();
+
+    public BlobDeletion() {}
+
+    public BlobDeletion(String container, String blobName, String ifMatch) {
+        this.container = container;
+        this.blobName = blobName;
+        this.ifMatch = ifMatch;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getContainer() { return container; }
+    public void setContainer(String container) { this.container = container; }
+    public String getBlobName() { return blobName; }
+    public void setBlobName(String blobName) { this.blobName = blobName; }
+    public String getIfMatch() { return ifMatch; }
+    public void setIfMatch(String ifMatch) { this.ifMatch = ifMatch; }
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public Date getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(Date nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+    public Date getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
+}
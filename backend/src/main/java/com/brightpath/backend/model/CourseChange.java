@@ -0,0 +1,39 @@
+package com.brightpath.backend.model;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+@Entity
+@Table(name = "course_changes")
+public class CourseChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // Doubles as the sync token handed to clients
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "changed_at", nullable = false, insertable = false, updatable = false)
+    private Date changedAt; // Set by the database on insert
+
+    public CourseChange() {}
+
+    public CourseChange(Long courseId, boolean deleted) {
+        this.courseId = courseId;
+        this.deleted = deleted;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+    public boolean isDeleted() { return deleted; }
+    public void setDeleted(boolean deleted) { this.deleted = deleted; }
+    public Date getChangedAt() { return changedAt; }
+    public void setChangedAt(Date changedAt) { this.changedAt = changedAt; }
+}
@@ -0,0 +1,62 @@
+package com.brightpath.backend.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "course_revenue")
+public class CourseRevenue {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 5)
+    private RevenuePeriod period;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart; // UTC
+
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+
+    @Column(nullable = false)
+    private long enrollments;
+
+    @Column(nullable = false)
+    private long refunds;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal gross = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal refunded = BigDecimal.ZERO;
+
+    public CourseRevenue() {}
+
+    public CourseRevenue(RevenuePeriod period, LocalDate periodStart, Long courseId) {
+        this.period = period;
+        this.periodStart = periodStart;
+        this.courseId = courseId;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public RevenuePeriod getPeriod() { return period; }
+    public void setPeriod(RevenuePeriod period) { this.period = period; }
+    public LocalDate getPeriodStart() { return periodStart; }
+    public void setPeriodStart(LocalDate periodStart) { this.periodStart = periodStart; }
+    public Long getCourseId() { return courseId; }
+    public void setCourseId(Long courseId) { this.courseId = courseId; }
+    public long getEnrollments() { return enrollments; }
+    public void setEnrollments(long enrollments) { this.enrollments = enrollments; }
+    public long getRefunds() { return refunds; }
+    public void setRefunds(long refunds) { this.refunds = refunds; }
+    public BigDecimal getGross() { return gross; }
+    public void setGross(BigDecimal gross) { this.gross = gross; }
+    public BigDecimal getRefunded() { return refunded; }
+    public void setRefunded(BigDecimal refunded) { this.refunded = refunded; }
+    public BigDecimal getNet() { return gross.subtract(refunded); }
+}
@@ -1,6 +1,7 @@
 package com.brightpath.backend.model;
 
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.util.Date;
 
 @Entity
@@ -25,6 +26,9 @@ public class Enrollment {
     @Column
     private double progress;
 
+    @Column(name = "amount_paid", precision = 12, scale = 2)
+    private BigDecimal amountPaid; // Null until priced by the revenue backfill for enrollments older than the column
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -36,4 +40,6 @@ public class Enrollment {
     public void setEnrollmentDate(Date enrollmentDate) { this.enrollmentDate = enrollmentDate; }
     public double getProgress() { return progress; }
     public void setProgress(double progress) { this.progress = progress; }
+    public BigDecimal getAmountPaid() { return amountPaid; }
+    public void setAmountPaid(BigDecimal amountPaid) { this.amountPaid = amountPaid; }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.brightpath.backend.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Date;
+
+@Entity
+@Table(name = "resource_blobs")
+public class ResourceBlob implements Persistable<String> {
+    @Id
+    @Column(name = "blob_name")
+    private String blobName; // Name in the course-resources container
+
+    @Column(length = 64, unique = true)
+    private String sha256; // Hex SHA-256 of the content, null if not content-addressed
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(length = 64)
+    private String etag; // ETag at upload, used to make the final delete conditional
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt = new Date();
+
+    // The id is assigned, so saving a new instance has to insert rather than merge: a
+    // concurrent registration of the same blob then fails instead of resetting ref_count
+    @Transient
+    private boolean isNew;
+
+    // Default constructor
+    public ResourceBlob() {}
+
+    public ResourceBlob(String blobName, String sha256, String contentType, long sizeBytes, String etag) {
+        this.blobName = blobName;
+        this.sha256 = sha256;
+        this.contentType = contentType;
+        this.sizeBytes = sizeBytes;
+        this.etag = etag;
+        this.refCount = 1;
+        this.isNew = true;
+    }
+
+    @PostPersist
+    void persisted() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String getId() { return blobName; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    // Getters and setters
+    public String getBlobName() { return blobName; }
+    public void setBlobName(String blobName) { this.blobName = blobName; }
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+    public int getRefCount() { return refCount; }
+    public void setRefCount(int refCount) { this.refCount = refCount; }
+    public Date getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
+}
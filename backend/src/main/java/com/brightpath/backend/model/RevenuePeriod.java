@@ -0,0 +1,18 @@
+package com.brightpath.backend.model;
+
+import java.time.LocalDate;
+
+/**
+ * Granularity of a {@link CourseRevenue} rollup
+ */
+public enum RevenuePeriod {
+    DAY,
+    MONTH;
+
+    /**
+     * The first day of the period containing the given day
+     */
+    public LocalDate startOf(LocalDate day) {
+        return this == MONTH ? day.withDayOfMonth(1) : day;
+    }
+}
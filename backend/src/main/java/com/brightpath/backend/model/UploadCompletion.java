@@ -0,0 +1,52 @@
+package com.brightpath.backend.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.util.Date;
+
+@Entity
+@Table(name = "upload_completions")
+public class UploadCompletion implements Persistable<String> {
+    @Id
+    @Column(name = "blob_name")
+    private String blobName; // Blob of the upload intent, unique per token
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "attached_at")
+    private Date attachedAt; // Null while being completed, or if the upload was rejected
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt = new Date();
+
+    // Saving a new completion must insert, so a second one for the same intent fails
+    @Transient
+    private boolean isNew;
+
+    public UploadCompletion() {}
+
+    public UploadCompletion(String blobName) {
+        this.blobName = blobName;
+        this.isNew = true;
+    }
+
+    @PostPersist
+    void persisted() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String getId() { return blobName; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    // Getters and setters
+    public String getBlobName() { return blobName; }
+    public void setBlobName(String blobName) { this.blobName = blobName; }
+    public Date getAttachedAt() { return attachedAt; }
+    public void setAttachedAt(Date attachedAt) { this.attachedAt = attachedAt; }
+    public Date getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
+}
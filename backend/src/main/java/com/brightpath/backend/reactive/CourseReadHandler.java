@@ -0,0 +1,67 @@
+package com.brightpath.backend.reactive;
+
+import com.brightpath.backend.dto.CourseDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Handlers for the reactive read routes. Status codes and bodies match
+ * CourseController and EnrollmentController.
+ */
+public class CourseReadHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseReadHandler.class);
+
+    private final CourseReadRepository courseReadRepository;
+
+    public CourseReadHandler(CourseReadRepository courseReadRepository) {
+        this.courseReadRepository = courseReadRepository;
+    }
+
+    public Mono<ServerResponse> getAllCourses(ServerRequest request) {
+        return ServerResponse.ok().body(courseReadRepository.findAll(), CourseDto.class);
+    }
+
+    public Mono<ServerResponse> getCourse(ServerRequest request) {
+        long id = idFrom(request, "id");
+        return courseReadRepository.findById(id)
+                .flatMap(course -> ServerResponse.ok().bodyValue(Map.of("success", true, "course", course)))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.status(HttpStatus.NOT_FOUND)
+                        .bodyValue(Map.of("success", false, "message", "Course not found"))))
+                .onErrorResume(e -> {
+                    logger.error("Error retrieving course {}: {}", id, e.getMessage());
+                    return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .bodyValue(Map.of("success", false, "message", "Internal server error"));
+                });
+    }
+
+    public Mono<ServerResponse> getUserCourses(ServerRequest request) {
+        long userId = idFrom(request, "userId");
+        return courseReadRepository.userExists(userId).flatMap(exists -> {
+            if (!exists) {
+                return ServerResponse.status(HttpStatus.NOT_FOUND)
+                        .bodyValue(Map.of("success", false, "message", "User not found"));
+            }
+            return courseReadRepository.findByUserId(userId).collectList()
+                    .flatMap(courses -> ServerResponse.ok().bodyValue(Map.of(
+                            "success", true,
+                            "courses", courses,
+                            "count", courses.size())));
+        });
+    }
+
+    private static long idFrom(ServerRequest request, String variable) {
+        try {
+            return Long.parseLong(request.pathVariable(variable));
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid " + variable);
+        }
+    }
+}
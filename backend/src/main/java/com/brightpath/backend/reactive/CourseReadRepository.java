@@ -0,0 +1,66 @@
+package com.brightpath.backend.reactive;
+
+import com.brightpath.backend.dto.CourseDto;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Course and enrollment reads over R2DBC, one statement per call. Mirrors what the JPA
+ * repositories load for the same endpoints, straight into {@link CourseDto}.
+ */
+public class CourseReadRepository {
+
+    private static final String COURSE_COLUMNS =
+            "c.id, c.name, c.description, c.start_date, c.price, c.image_url, c.resource_url";
+
+    private final DatabaseClient databaseClient;
+
+    public CourseReadRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<CourseDto> findAll() {
+        return databaseClient.sql("SELECT " + COURSE_COLUMNS + " FROM courses c ORDER BY c.id")
+                .map(CourseReadRepository::toCourse)
+                .all();
+    }
+
+    public Mono<CourseDto> findById(long id) {
+        return databaseClient.sql("SELECT " + COURSE_COLUMNS + " FROM courses c WHERE c.id = :id")
+                .bind("id", id)
+                .map(CourseReadRepository::toCourse)
+                .one();
+    }
+
+    public Mono<Boolean> userExists(long userId) {
+        return databaseClient.sql("SELECT 1 FROM users WHERE id = :id")
+                .bind("id", userId)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Flux<CourseDto> findByUserId(long userId) {
+        return databaseClient.sql("SELECT " + COURSE_COLUMNS
+                        + " FROM enrollments e JOIN courses c ON c.id = e.course_id"
+                        + " WHERE e.user_id = :userId ORDER BY e.id")
+                .bind("userId", userId)
+                .map(CourseReadRepository::toCourse)
+                .all();
+    }
+
+    private static CourseDto toCourse(Readable row) {
+        return new CourseDto(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("description", String.class),
+                row.get("start_date", LocalDate.class),
+                row.get("price", Double.class),
+                row.get("image_url", String.class),
+                row.get("resource_url", String.class));
+    }
+}
@@ -0,0 +1,77 @@
+package com.brightpath.backend.reactive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisReactiveAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.List;
+
+/**
+ * Reactive read API: GET /api/courses, /api/courses/{id} and
+ * /api/enrollments/user/{userId}/courses on WebFlux and R2DBC. Runs as its own process
+ * next to the servlet application, configured from reactive-read.properties; the load
+ * balancer sends those three routes here. Load test: scripts/read-load-test.sh
+ * <p>
+ * Nothing in this package is a {@code @Component} or {@code @Configuration}, so the
+ * servlet application's component scan does not pick it up.
+ */
+@EnableAutoConfiguration(exclude = {
+        DataSourceAutoConfiguration.class,
+        RedisAutoConfiguration.class,
+        RedisReactiveAutoConfiguration.class,
+        RedisRepositoriesAutoConfiguration.class
+})
+public class ReactiveReadApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveReadApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .properties("spring.config.name=reactive-read")
+                .run(args);
+    }
+
+    @Bean
+    CourseReadRepository courseReadRepository(DatabaseClient databaseClient) {
+        return new CourseReadRepository(databaseClient);
+    }
+
+    @Bean
+    CourseReadHandler courseReadHandler(CourseReadRepository courseReadRepository) {
+        return new CourseReadHandler(courseReadRepository);
+    }
+
+    @Bean
+    RouterFunction<ServerResponse> readRoutes(CourseReadHandler handler) {
+        return RouterFunctions.route()
+                .GET("/api/courses", handler::getAllCourses)
+                .GET("/api/courses/{id}", handler::getCourse)
+                .GET("/api/enrollments/user/{userId}/courses", handler::getUserCourses)
+                .build();
+    }
+
+    // Same origins as the servlet side (WebConfig); this side only serves GETs
+    @Bean
+    CorsWebFilter corsWebFilter(@Value("${cors.allowed-origins}") String allowedOrigins) {
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(List.of(allowedOrigins));
+        cors.setAllowedMethods(List.of("GET", "OPTIONS"));
+        cors.addAllowedHeader("*");
+        cors.setAllowCredentials(false);
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", cors);
+        return new CorsWebFilter(source);
+    }
+}
@@ -0,0 +1,30 @@
+package com.brightpath.backend.repository;
+
+import com.brightpath.backend.model.BlobDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface BlobDeletionRepository extends JpaRepository<BlobDeletion, Long> {
+
+    /**
+     * Deletions due at the given time, oldest first
+     */
+    List<BlobDeletion> findByNextAttemptAtBeforeOrderByIdAsc(Date now, Pageable page);
+
+    /**
+     * Withdraw queued deletions of a blob that is in use again
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from BlobDeletion d where d.container = :container and d.blobName = :blobName")
+    int deleteByContainerAndBlobName(@Param("container") String container, @Param("blobName") String blobName);
+}
@@ -0,0 +1,43 @@
+package com.brightpath.backend.repository;
+
+import com.brightpath.backend.model.CourseChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface CourseChangeRepository extends JpaRepository<CourseChange, Long> {
+
+    /**
+     * Changes after the given token up to the latest one made before the given time, oldest
+     * first; bounded by id, so earlier ids are included whatever their own time
+     */
+    @Query("select c from CourseChange c where c.id > :since and c.id <= (select max(s.id) from CourseChange s"
+            + " where s.changedAt <= :changedBefore) order by c.id")
+    List<CourseChange> findSettledAfter(@Param("since") Long since, @Param("changedBefore") Date changedBefore,
+                                        Pageable page);
+
+    @Query("select max(c.id) from CourseChange c where c.changedAt <= :changedBefore")
+    Long findLatestIdChangedBefore(@Param("changedBefore") Date changedBefore);
+
+    @Query("select max(c.id) from CourseChange c")
+    Long findLatestId();
+
+    @Query("select min(c.id) from CourseChange c")
+    Long findOldestId();
+
+    /**
+     * Deletes changes older than the cutoff with an id below {@code keepFrom}
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from CourseChange c where c.changedAt < :cutoff and c.id < :keepFrom")
+    int deleteByChangedAtBeforeAndIdLessThan(@Param("cutoff") Date cutoff, @Param("keepFrom") Long keepFrom);
+}
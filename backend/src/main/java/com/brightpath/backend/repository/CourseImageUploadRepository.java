@@ -0,0 +1,18 @@
+package com.brightpath.backend.repository;
+
+import com.brightpath.backend.model.CourseImageUpload;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface CourseImageUploadRepository extends JpaRepository<CourseImageUpload, Long> {
+
+    /**
+     * Uploads due at the given time, oldest first
+     */
+    List<CourseImageUpload> findByNextAttemptAtBeforeOrderByIdAsc(Date now, Pageable page);
+}
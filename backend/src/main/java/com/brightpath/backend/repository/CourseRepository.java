@@ -2,6 +2,27 @@ package com.brightpath.backend.repository;
 
 import com.brightpath.backend.model.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
-}
\ No newline at end of file
+    boolean existsByResourceUrl(String resourceUrl);
+
+    @Query("select c.imageUrl from Course c where c.imageUrl is not null")
+    List<String> findAllImageUrls();
+
+    @Query("select c.resourceUrl from Course c where c.resourceUrl is not null")
+    List<String> findAllResourceUrls();
+
+    @Query("select c.id as id, c.name as name, c.price as price from Course c")
+    List<CoursePrice> findAllPrices();
+
+    interface CoursePrice {
+        Long getId();
+
+        String getName();
+
+        double getPrice();
+    }
+}
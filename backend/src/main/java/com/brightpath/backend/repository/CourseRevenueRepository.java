@@ -0,0 +1,52 @@
+package com.brightpath.backend.repository;
+
+import com.brightpath.backend.model.CourseRevenue;
+import com.brightpath.backend.model.RevenuePeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CourseRevenueRepository extends JpaRepository<CourseRevenue, Long> {
+
+    /**
+     * Adds to a course's day and month rows, creating them as needed, in one statement
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO course_revenue (period, period_start, course_id, enrollments, refunds, gross, refunded)"
+            + " VALUES ('DAY', :day, :courseId, :enrollments, :refunds, :gross, :refunded),"
+            + " ('MONTH', :month, :courseId, :enrollments, :refunds, :gross, :refunded)"
+            + " ON DUPLICATE KEY UPDATE enrollments = enrollments + VALUES(enrollments),"
+            + " refunds = refunds + VALUES(refunds), gross = gross + VALUES(gross),"
+            + " refunded = refunded + VALUES(refunded)", nativeQuery = true)
+    void add(@Param("courseId") Long courseId, @Param("day") LocalDate day, @Param("month") LocalDate month,
+             @Param("enrollments") long enrollments, @Param("refunds") long refunds,
+             @Param("gross") BigDecimal gross, @Param("refunded") BigDecimal refunded);
+
+    List<CourseRevenue> findByPeriodAndPeriodStartBetweenOrderByPeriodStartAscCourseIdAsc(
+            RevenuePeriod period, LocalDate from, LocalDate to);
+
+    List<CourseRevenue> findByPeriodAndCourseIdAndPeriodStartBetweenOrderByPeriodStartAsc(
+            RevenuePeriod period, Long courseId, LocalDate from, LocalDate to);
+
+    /**
+     * Gross minus refunded per course over all time, from the month rows
+     */
+    @Query("select r.courseId as courseId, sum(r.gross) - sum(r.refunded) as net from CourseRevenue r"
+            + " where r.period = com.brightpath.backend.model.RevenuePeriod.MONTH group by r.courseId")
+    List<CourseNet> findNetByCourse();
+
+    interface CourseNet {
+        Long getCourseId();
+
+        BigDecimal getNet();
+    }
+}
@@ -1,9 +1,19 @@
 package com.brightpath.backend.repository;
 
 import com.brightpath.backend.model.Enrollment;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,15 +21,60 @@ import java.util.Optional;
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
 
     /**
-     * Find all enrollments for a specific user
+     * Find all enrollments for a specific user, with users and courses in the same query
      */
+    @EntityGraph(attributePaths = {"user", "course"})
     List<Enrollment> findByUserId(Long userId);
 
     /**
-     * Find all enrollments for a specific course
+     * Find all enrollments for a specific course, with users and courses in the same query
      */
+    @EntityGraph(attributePaths = {"user", "course"})
     List<Enrollment> findByCourseId(Long courseId);
 
+    /**
+     * The ids of the courses a user is enrolled in, without loading enrollments or courses
+     */
+    @Query("select e.course.id from Enrollment e where e.user.id = :userId")
+    List<Long> findCourseIdsByUserId(@Param("userId") Long userId);
+
+    /**
+     * (user id, course id) pairs ordered by user then course, starting after the given
+     * pair; for scanning all enrollments in batches without loading entities
+     */
+    @Query("select e.user.id as userId, e.course.id as courseId from Enrollment e"
+            + " where e.user.id > :afterUserId or (e.user.id = :afterUserId and e.course.id > :afterCourseId)"
+            + " order by e.user.id, e.course.id")
+    List<EnrollmentPair> findPairsAfter(@Param("afterUserId") Long afterUserId,
+                                        @Param("afterCourseId") Long afterCourseId, Pageable page);
+
+    /**
+     * The reporting columns of enrollments after the given id, in id order
+     */
+    @Query("select e.id as id, e.course.id as courseId, e.enrollmentDate as enrollmentDate, e.progress as progress"
+            + " from Enrollment e where e.id > :afterId order by e.id")
+    List<EnrollmentFacts> findFactsAfter(@Param("afterId") Long afterId, Pageable page);
+
+    /**
+     * The ids of enrollments after the given id that have no amount paid yet, in id order;
+     * read without locking, from the (amount_paid, id) index
+     */
+    @Query("select e.id from Enrollment e where e.amountPaid is null and e.id > :afterId order by e.id")
+    List<Long> findUnpricedIdsAfter(@Param("afterId") Long afterId, Pageable page);
+
+    /**
+     * The reporting columns of those of the given enrollments that still have no amount
+     * paid; the rows stay locked until the end of the transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e.id as id, e.course.id as courseId, e.enrollmentDate as enrollmentDate, e.progress as progress"
+            + " from Enrollment e where e.id in :ids and e.amountPaid is null")
+    List<EnrollmentFacts> lockUnpriced(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Enrollment e set e.amountPaid = :amountPaid where e.id in :ids and e.amountPaid is null")
+    int setAmountPaid(@Param("ids") Collection<Long> ids, @Param("amountPaid") BigDecimal amountPaid);
+
     /**
      * Check if a user is enrolled in a specific course
      */
@@ -30,6 +85,14 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
      */
     Optional<Enrollment> findByUserIdAndCourseId(Long userId, Long courseId);
 
+    /**
+     * The enrollment, locked until the end of the transaction; waits for a revenue backfill
+     * batch holding it and then sees the amount it set
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from Enrollment e where e.user.id = :userId and e.course.id = :courseId")
+    Optional<Enrollment> findForUpdate(@Param("userId") Long userId, @Param("courseId") Long courseId);
+
     /**
      * Count enrollments for a specific user
      */
@@ -54,5 +117,20 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
      * Delete a specific enrollment by user ID and course ID
      */
     void deleteByUserIdAndCourseId(Long userId, Long courseId);
-}
 
+    interface EnrollmentFacts {
+        Long getId();
+
+        Long getCourseId();
+
+        Date getEnrollmentDate();
+
+        double getProgress();
+    }
+
+    interface EnrollmentPair {
+        Long getUserId();
+
+        Long getCourseId();
+    }
+}
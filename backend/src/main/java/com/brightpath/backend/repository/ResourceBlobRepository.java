@@ -0,0 +1,57 @@
+package com.brightpath.backend.repository;
+
+import com.brightpath.backend.model.ResourceBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ResourceBlobRepository extends JpaRepository<ResourceBlob, String> {
+
+    /**
+     * Find the blob holding content with the given SHA-256
+     */
+    Optional<ResourceBlob> findBySha256(String sha256);
+
+    @Query("select b.blobName from ResourceBlob b")
+    List<String> findAllBlobNames();
+
+    /**
+     * Add a reference; returns 0 if the blob is no longer registered
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update ResourceBlob b set b.refCount = b.refCount + 1 where b.blobName = :blobName")
+    int incrementRefCount(@Param("blobName") String blobName);
+
+    /**
+     * Record the verified SHA-256 of a blob registered without one; returns 0 if it
+     * already has one or is no longer registered
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update ResourceBlob b set b.sha256 = :sha256 where b.blobName = :blobName and b.sha256 is null")
+    int setSha256(@Param("blobName") String blobName, @Param("sha256") String sha256);
+
+    /**
+     * Drop a reference; returns 0 if there was none to drop
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update ResourceBlob b set b.refCount = b.refCount - 1 where b.blobName = :blobName and b.refCount > 0")
+    int decrementRefCount(@Param("blobName") String blobName);
+
+    /**
+     * Unregister the blob if nothing references it any more
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("delete from ResourceBlob b where b.blobName = :blobName and b.refCount = 0")
+    int deleteIfUnreferenced(@Param("blobName") String blobName);
+}
@@ -0,0 +1,33 @@
+package com.brightpath.backend.repository;
+
+import com.brightpath.backend.model.ResourceUploadSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface ResourceUploadSessionRepository extends JpaRepository<ResourceUploadSession, String> {
+
+    @Query("select s.blobName from ResourceUploadSession s")
+    List<String> findAllBlobNames();
+
+    /**
+     * Committed uploads still waiting for their content to be verified, oldest first
+     */
+    List<ResourceUploadSession> findByCommittedAtNotNullOrderByCommittedAtAsc(Pageable page);
+
+    /**
+     * Delete sessions started before the given time
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from ResourceUploadSession s where s.createdAt < :cutoff")
+    int deleteByCreatedAtBefore(@Param("cutoff") Date cutoff);
+}
@@ -0,0 +1,31 @@
+package com.brightpath.backend.repository;
+
+import com.brightpath.backend.model.UploadCompletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+@Repository
+public interface UploadCompletionRepository extends JpaRepository<UploadCompletion, String> {
+
+    /**
+     * Record that the upload was attached to its course or user
+     */
+    @Transactional
+    @Modifying
+    @Query("update UploadCompletion c set c.attachedAt = :attachedAt where c.blobName = :blobName")
+    int markAttached(@Param("blobName") String blobName, @Param("attachedAt") Date attachedAt);
+
+    /**
+     * Delete completions recorded before the given time
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from UploadCompletion c where c.createdAt < :cutoff")
+    int deleteByCreatedAtBefore(@Param("cutoff") Date cutoff);
+}
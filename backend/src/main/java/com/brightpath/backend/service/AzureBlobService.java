@@ -35,10 +35,17 @@ public class AzureBlobService {
      * @return SAS URL string for the blob
      */
     public String generateSasUrl(BlobContainerClient containerClient, String blobName, int expiryMinutes) {
-        BlockBlobClient blobClient = containerClient.getBlobClient(blobName).getBlockBlobClient();
-
         // Set permissions to read-only for the SAS token
         BlobSasPermission permissions = new BlobSasPermission().setReadPermission(true);
+        return generateSasUrl(containerClient, blobName, expiryMinutes, permissions);
+    }
+
+    /**
+     * Generate a SAS URL for a blob with the given permissions.
+     */
+    public String generateSasUrl(BlobContainerClient containerClient, String blobName, int expiryMinutes,
+                                 BlobSasPermission permissions) {
+        BlockBlobClient blobClient = containerClient.getBlobClient(blobName).getBlockBlobClient();
 
         // Set expiration time
         OffsetDateTime expiryTime = OffsetDateTime.now().plus(expiryMinutes, ChronoUnit.MINUTES);
@@ -53,6 +60,15 @@ public class AzureBlobService {
         return blobClient.getBlobUrl() + "?" + sasToken;
     }
 
+    /**
+     * Generate a create-only SAS URL that lets a client PUT a new blob directly to storage.
+     * The token cannot overwrite the blob once it exists, nor read, list or delete anything.
+     */
+    public String generateUploadSasUrl(BlobContainerClient containerClient, String blobName, int expiryMinutes) {
+        BlobSasPermission permissions = new BlobSasPermission().setCreatePermission(true);
+        return generateSasUrl(containerClient, blobName, expiryMinutes, permissions);
+    }
+
     /**
      * Helper to generate SAS URL for profile images container.
      */
@@ -0,0 +1,236 @@
+package com.brightpath.backend.service;
+
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.Context;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.BlobUrlParts;
+import com.azure.storage.blob.batch.BlobBatch;
+import com.azure.storage.blob.batch.BlobBatchClient;
+import com.azure.storage.blob.batch.BlobBatchClientBuilder;
+import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.DeleteSnapshotsOptionType;
+import com.brightpath.backend.model.BlobDeletion;
+import com.brightpath.backend.repository.BlobDeletionRepository;
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.repository.ResourceBlobRepository;
+import com.brightpath.backend.repository.ResourceUploadSessionRepository;
+import com.brightpath.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes blobs off the request path. Requests record what to delete in the
+ * blob_deletions outbox; {@link #sweep} deletes due entries with batch requests
+ * (up to 256 blobs per round trip) and retries failures with backoff.
+ *
+ * <p>{@link #reconcile} lists the containers and queues blobs that no course, user or
+ * resource record points at, so orphans left by crashes or lost requests are cleaned up.
+ */
+@Service
+public class BlobGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobGarbageCollector.class);
+
+    private static final int BATCH_SIZE = 256; // Azure's limit per batch request
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(6);
+
+    private final BlobContainerClient profileImagesContainerClient;
+    private final BlobContainerClient courseImagesContainerClient;
+    private final BlobContainerClient courseResourcesContainerClient;
+    private final BlobBatchClient blobBatchClient;
+    private final BlobDeletionRepository blobDeletionRepository;
+    private final CourseRepository courseRepository;
+    private final UserRepository userRepository;
+    private final ResourceBlobRepository resourceBlobRepository;
+    private final ResourceUploadSessionRepository uploadSessionRepository;
+    private final long orphanGraceHours;
+
+    @Autowired
+    public BlobGarbageCollector(
+            @Qualifier("profileImagesContainerClient") BlobContainerClient profileImagesContainerClient,
+            @Qualifier("courseImagesContainerClient") BlobContainerClient courseImagesContainerClient,
+            @Qualifier("courseResourcesContainerClient") BlobContainerClient courseResourcesContainerClient,
+            BlobServiceClient blobServiceClient,
+            BlobDeletionRepository blobDeletionRepository,
+            CourseRepository courseRepository,
+            UserRepository userRepository,
+            ResourceBlobRepository resourceBlobRepository,
+            ResourceUploadSessionRepository uploadSessionRepository,
+            @Value("${app.storage.gc.orphan-grace-hours:24}") long orphanGraceHours) {
+        this(profileImagesContainerClient, courseImagesContainerClient, courseResourcesContainerClient,
+                new BlobBatchClientBuilder(blobServiceClient).buildClient(), blobDeletionRepository,
+                courseRepository, userRepository, resourceBlobRepository, uploadSessionRepository, orphanGraceHours);
+    }
+
+    BlobGarbageCollector(BlobContainerClient profileImagesContainerClient,
+                         BlobContainerClient courseImagesContainerClient,
+                         BlobContainerClient courseResourcesContainerClient,
+                         BlobBatchClient blobBatchClient,
+                         BlobDeletionRepository blobDeletionRepository,
+                         CourseRepository courseRepository,
+                         UserRepository userRepository,
+                         ResourceBlobRepository resourceBlobRepository,
+                         ResourceUploadSessionRepository uploadSessionRepository,
+                         long orphanGraceHours) {
+        this.profileImagesContainerClient = profileImagesContainerClient;
+        this.courseImagesContainerClient = courseImagesContainerClient;
+        this.courseResourcesContainerClient = courseResourcesContainerClient;
+        this.blobBatchClient = blobBatchClient;
+        this.blobDeletionRepository = blobDeletionRepository;
+        this.courseRepository = courseRepository;
+        this.userRepository = userRepository;
+        this.resourceBlobRepository = resourceBlobRepository;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.orphanGraceHours = orphanGraceHours;
+    }
+
+    /**
+     * Queue a blob for deletion. With an ETag, only that version of the blob is deleted.
+     */
+    public void scheduleDeletion(BlobContainerClient containerClient, String blobName, String ifMatch) {
+        if (blobName == null || blobName.isEmpty()) {
+            return;
+        }
+        blobDeletionRepository.save(new BlobDeletion(containerClient.getBlobContainerName(), blobName, ifMatch));
+    }
+
+    /**
+     * Withdraw queued deletions of a blob, e.g. because it has been registered again
+     */
+    public void cancelDeletion(BlobContainerClient containerClient, String blobName) {
+        blobDeletionRepository.deleteByContainerAndBlobName(containerClient.getBlobContainerName(), blobName);
+    }
+
+    /**
+     * Delete all due blobs, one batch request per 256
+     */
+    @Scheduled(fixedDelayString = "${app.storage.gc.sweep-interval-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public void sweep() {
+        List<BlobDeletion> due;
+        do {
+            due = blobDeletionRepository.findByNextAttemptAtBeforeOrderByIdAsc(new Date(), PageRequest.of(0, BATCH_SIZE));
+            if (!due.isEmpty()) {
+                deleteBatch(due);
+            }
+        } while (due.size() == BATCH_SIZE);
+    }
+
+    private void deleteBatch(List<BlobDeletion> deletions) {
+        BlobBatch batch = blobBatchClient.getBlobBatch();
+        List<Response<Void>> responses = new ArrayList<>();
+        for (BlobDeletion deletion : deletions) {
+            BlobRequestConditions conditions = deletion.getIfMatch() == null
+                    ? null : new BlobRequestConditions().setIfMatch(deletion.getIfMatch());
+            responses.add(batch.deleteBlob(deletion.getContainer(), deletion.getBlobName(),
+                    DeleteSnapshotsOptionType.INCLUDE, conditions));
+        }
+
+        try {
+            blobBatchClient.submitBatchWithResponse(batch, false, null, Context.NONE);
+        } catch (Exception e) {
+            logger.warn("Blob deletion batch of {} failed: {}", deletions.size(), e.getMessage());
+            deletions.forEach(deletion -> retryLater(deletion, e.getMessage()));
+            blobDeletionRepository.saveAll(deletions);
+            return;
+        }
+
+        List<Long> done = new ArrayList<>();
+        List<BlobDeletion> failed = new ArrayList<>();
+        for (int i = 0; i < deletions.size(); i++) {
+            BlobDeletion deletion = deletions.get(i);
+            int status = statusOf(responses.get(i));
+            // 404: already gone. 412: the blob was rewritten since, so it is in use again
+            if (status == 202 || status == 404 || status == 412) {
+                done.add(deletion.getId());
+            } else {
+                retryLater(deletion, "HTTP " + status);
+                failed.add(deletion);
+            }
+        }
+        blobDeletionRepository.deleteAllByIdInBatch(done);
+        blobDeletionRepository.saveAll(failed);
+        logger.info("Deleted {} blobs, {} to retry", done.size(), failed.size());
+    }
+
+    private int statusOf(Response<Void> response) {
+        try {
+            return response.getStatusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private void retryLater(BlobDeletion deletion, String error) {
+        int attempts = deletion.getAttempts() + 1;
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, TimeUnit.SECONDS.toMillis(30) << Math.min(attempts, 20));
+        deletion.setAttempts(attempts);
+        deletion.setLastError(error == null ? null : error.substring(0, Math.min(500, error.length())));
+        deletion.setNextAttemptAt(new Date(System.currentTimeMillis() + backoff));
+    }
+
+    /**
+     * Queue blobs no record refers to. Blobs younger than the grace period are left alone,
+     * since an upload may not have been attached yet.
+     */
+    @Scheduled(cron = "${app.storage.gc.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        // Load references before listing, so a blob added in between is too new to touch
+        Set<String> profileImages = blobNames(userRepository.findAllProfileImageUrls());
+        Set<String> courseImages = blobNames(courseRepository.findAllImageUrls());
+        Set<String> resources = blobNames(courseRepository.findAllResourceUrls());
+        resources.addAll(resourceBlobRepository.findAllBlobNames());
+        resources.addAll(uploadSessionRepository.findAllBlobNames());
+
+        int queued = queueOrphans(profileImagesContainerClient, profileImages)
+                + queueOrphans(courseImagesContainerClient, courseImages)
+                + queueOrphans(courseResourcesContainerClient, resources);
+        logger.info("Blob reconciliation queued {} orphaned blobs", queued);
+    }
+
+    private int queueOrphans(BlobContainerClient containerClient, Set<String> referenced) {
+        OffsetDateTime cutoff = OffsetDateTime.now().minusHours(orphanGraceHours);
+        int queued = 0;
+        try {
+            for (BlobItem blob : containerClient.listBlobs()) {
+                OffsetDateTime lastModified = blob.getProperties().getLastModified();
+                if (referenced.contains(blob.getName()) || lastModified == null || lastModified.isAfter(cutoff)) {
+                    continue;
+                }
+                scheduleDeletion(containerClient, blob.getName(), blob.getProperties().getETag());
+                queued++;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to reconcile container {}: {}", containerClient.getBlobContainerName(), e.getMessage());
+        }
+        return queued;
+    }
+
+    // Stored URLs are percent-encoded ("Intro%20to%20Java.pdf") while listings return the
+    // decoded names, so compare by the decoded blob name
+    private static Set<String> blobNames(Collection<String> urls) {
+        Set<String> names = new HashSet<>();
+        for (String url : urls) {
+            if (!url.isEmpty()) {
+                names.add(BlobUrlParts.parse(url).getBlobName());
+            }
+        }
+        return names;
+    }
+}
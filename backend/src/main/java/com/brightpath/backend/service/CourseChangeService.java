@@ -0,0 +1,150 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.config.ReplicaRoutingDataSource;
+import com.brightpath.backend.dto.CourseChangeDto;
+import com.brightpath.backend.dto.CourseDto;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.CourseChange;
+import com.brightpath.backend.repository.CourseChangeRepository;
+import com.brightpath.backend.repository.CourseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Course change log behind delta sync. {@link CourseService} records a change in the
+ * same transaction as every course write; clients keep the token of the last change
+ * they saw and ask for what changed after it.
+ *
+ * <p>Ids are assigned at insert but rows become visible at commit, so a change can
+ * appear behind one with a higher id. Changes are only handed out up to the latest one
+ * older than the settle window, which must be longer than any course write transaction;
+ * change times come from the database clock, and pages are bounded by id rather than
+ * filtered by time, so a token never skips a change with a lower id.
+ * Replication lag isn't bounded by that window, so the log is always read from the primary:
+ * a replica behind by more than the window would let a client's token move past changes
+ * it hasn't received yet.
+ */
+@Service
+public class CourseChangeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseChangeService.class);
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private CourseChangeRepository courseChangeRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Value("${app.courses.changes.settle-seconds:10}")
+    private long settleSeconds;
+
+    @Value("${app.courses.changes.retention-days:30}")
+    private long retentionDays;
+
+    /**
+     * A page of changes, oldest first, each course at most once and as it is now
+     */
+    public record ChangePage(List<CourseChangeDto> changes, long token, boolean hasMore) {}
+
+    // Called by CourseService inside its write transaction
+    void record(Long courseId, boolean deleted) {
+        courseChangeRepository.save(new CourseChange(courseId, deleted));
+    }
+
+    /**
+     * The whole catalog with the token to sync from. The token is read first, so changes
+     * made while the courses load are sent again on the next poll rather than missed.
+     */
+    @Transactional(readOnly = true)
+    public ChangePage snapshot() {
+        return ReplicaRoutingDataSource.onPrimary(() -> {
+            Long token = courseChangeRepository.findLatestIdChangedBefore(settledBefore());
+            List<CourseChangeDto> courses = courseRepository.findAll().stream()
+                    .map(course -> CourseChangeDto.upsert(CourseDto.from(course)))
+                    .toList();
+            return new ChangePage(courses, token != null ? token : 0L, false);
+        });
+    }
+
+    /**
+     * Changes after the given token, or empty when changes after it have already been
+     * pruned and the client has to start over from a {@link #snapshot}
+     */
+    @Transactional(readOnly = true)
+    public Optional<ChangePage> changesSince(long since, int limit) {
+        return ReplicaRoutingDataSource.onPrimary(() -> readChangesSince(since, limit));
+    }
+
+    private Optional<ChangePage> readChangesSince(long since, int limit) {
+        Long oldest = courseChangeRepository.findOldestId();
+        if (oldest != null && since < oldest - 1) {
+            return Optional.empty();
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<CourseChange> page = courseChangeRepository.findSettledAfter(since, settledBefore(),
+                PageRequest.of(0, pageSize));
+        if (page.isEmpty()) {
+            return Optional.of(new ChangePage(List.of(), since, false));
+        }
+
+        // Latest change per course, in the order of that change
+        Map<Long, CourseChange> latest = new LinkedHashMap<>();
+        for (CourseChange change : page) {
+            latest.remove(change.getCourseId());
+            latest.put(change.getCourseId(), change);
+        }
+        List<Long> liveIds = latest.values().stream()
+                .filter(change -> !change.isDeleted())
+                .map(CourseChange::getCourseId)
+                .toList();
+        Map<Long, Course> courses = courseRepository.findAllById(liveIds).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+
+        List<CourseChangeDto> changes = new ArrayList<>(latest.size());
+        for (Long courseId : latest.keySet()) {
+            Course course = courses.get(courseId);
+            // Also a tombstone when the course was deleted by a change past this page
+            changes.add(course != null ? CourseChangeDto.upsert(CourseDto.from(course))
+                    : CourseChangeDto.tombstone(courseId));
+        }
+        long token = page.get(page.size() - 1).getId();
+        return Optional.of(new ChangePage(changes, token, page.size() == pageSize));
+    }
+
+    // Keeps the newest change so a token older than every retained change is recognised as expired
+    @Scheduled(cron = "${app.courses.changes.prune-cron:0 45 3 * * *}")
+    public void prune() {
+        Long newest = courseChangeRepository.findLatestId();
+        if (newest == null) {
+            return;
+        }
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        int pruned = courseChangeRepository.deleteByChangedAtBeforeAndIdLessThan(cutoff, newest);
+        if (pruned > 0) {
+            logger.info("Pruned {} course changes older than {} days", pruned, retentionDays);
+        }
+    }
+
+    private Date settledBefore() {
+        return new Date(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(settleSeconds));
+    }
+}
@@ -0,0 +1,119 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.model.CourseImageUpload;
+import com.brightpath.backend.repository.CourseImageUploadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Course images accepted while blob storage was unavailable. The course is saved without
+ * its image, the file goes into the course_image_uploads table, and {@link #drain} uploads
+ * it and attaches it to the course once storage answers again, backing off while it doesn't.
+ * An image still not uploaded after the maximum number of attempts is dropped.
+ */
+@Service
+public class CourseImageUploadQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseImageUploadQueue.class);
+
+    private static final int BATCH_SIZE = 20;
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(6);
+
+    private final CourseImageUploadRepository uploadRepository;
+    private final ImageStorageService imageStorageService;
+    private final CourseService courseService;
+    private final long retrySeconds;
+    private final int maxAttempts;
+
+    public CourseImageUploadQueue(CourseImageUploadRepository uploadRepository,
+                                  ImageStorageService imageStorageService,
+                                  CourseService courseService,
+                                  @Value("${app.storage.image-queue.retry-seconds:30}") long retrySeconds,
+                                  @Value("${app.storage.image-queue.max-attempts:20}") int maxAttempts) {
+        this.uploadRepository = uploadRepository;
+        this.imageStorageService = imageStorageService;
+        this.courseService = courseService;
+        this.retrySeconds = retrySeconds;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Keep the image for a later upload; the first attempt is after the retry interval
+     */
+    public void enqueue(Long courseId, MultipartFile file) throws IOException {
+        Date firstAttempt = new Date(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(retrySeconds));
+        uploadRepository.save(new CourseImageUpload(courseId, file.getOriginalFilename(), file.getBytes(), firstAttempt));
+        logger.info("Queued image {} for course {} until storage is available", file.getOriginalFilename(), courseId);
+    }
+
+    /**
+     * Upload due images and attach them to their courses. Stops at the first storage
+     * failure, since the rest would fail the same way.
+     */
+    @Scheduled(fixedDelayString = "${app.storage.image-queue.retry-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public void drain() {
+        List<CourseImageUpload> due;
+        do {
+            due = uploadRepository.findByNextAttemptAtBeforeOrderByIdAsc(new Date(), PageRequest.of(0, BATCH_SIZE));
+            for (CourseImageUpload upload : due) {
+                if (!process(upload)) {
+                    return;
+                }
+            }
+        } while (due.size() == BATCH_SIZE);
+    }
+
+    private boolean process(CourseImageUpload upload) {
+        String imageUrl;
+        try {
+            imageUrl = imageStorageService.uploadCourseImage(upload.getFilename(), upload.getData());
+        } catch (StorageUnavailableException e) {
+            retryLater(upload, e.getMessage());
+            if (upload.getAttempts() >= maxAttempts) {
+                logger.error("Dropping queued image for course {} after {} attempts: {}", upload.getCourseId(),
+                        upload.getAttempts(), e.getMessage());
+                uploadRepository.delete(upload);
+            } else {
+                logger.warn("Queued image for course {} not uploaded yet: {}", upload.getCourseId(), e.getMessage());
+                uploadRepository.save(upload);
+            }
+            return false;
+        } catch (IOException e) {
+            // Refused by storage, or the validation rules changed since it was queued
+            logger.error("Dropping queued image for course {}: {}", upload.getCourseId(), e.getMessage());
+            uploadRepository.delete(upload);
+            return true;
+        }
+
+        try {
+            if (!courseService.attachQueuedImage(upload.getCourseId(), imageUrl)) {
+                // Course deleted or given another image meanwhile
+                imageStorageService.deleteCourseImage(imageStorageService.extractFilenameFromUrl(imageUrl));
+            }
+        } catch (RuntimeException e) {
+            imageStorageService.deleteCourseImage(imageStorageService.extractFilenameFromUrl(imageUrl));
+            throw e;
+        }
+        uploadRepository.delete(upload);
+        logger.info("Attached queued image to course {}: {}", upload.getCourseId(), imageUrl);
+        return true;
+    }
+
+    private void retryLater(CourseImageUpload upload, String error) {
+        int attempts = upload.getAttempts() + 1;
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, TimeUnit.SECONDS.toMillis(retrySeconds) << Math.min(attempts, 20));
+        upload.setAttempts(attempts);
+        upload.setLastError(error == null ? null : error.substring(0, Math.min(500, error.length())));
+        upload.setNextAttemptAt(new Date(System.currentTimeMillis() + backoff));
+    }
+}
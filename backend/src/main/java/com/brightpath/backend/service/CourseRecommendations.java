@@ -0,0 +1,261 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.repository.EnrollmentRepository.EnrollmentPair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Students who took this also took": for each course, the courses most often taken by
+ * the same students. Served from memory and rebuilt periodically from the enrollments
+ * table, which is scanned as id pairs in batches, never as entities.
+ *
+ * <p>Each student's courses are mapped to dense indexes and kept in two int arrays; the
+ * pair counts are computed in parallel over slices of students and merged. Students with
+ * more than app.recommendations.max-courses-per-student courses are skipped, as their
+ * pairs grow quadratically and say little about any one course. Until the first build
+ * completes there are no recommendations.
+ */
+@Service
+public class CourseRecommendations {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseRecommendations.class);
+
+    private static final int BATCH_SIZE = 5000;
+    private static final int STUDENTS_PER_TASK = 4096;
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final int maxRelated;
+    private final int maxCoursesPerStudent;
+    private final int parallelism;
+
+    // Course id -> related course ids, best first
+    private volatile Map<Long, long[]> related = Map.of();
+
+    public CourseRecommendations(EnrollmentRepository enrollmentRepository,
+                                 @Value("${app.recommendations.max-related:10}") int maxRelated,
+                                 @Value("${app.recommendations.max-courses-per-student:200}") int maxCoursesPerStudent,
+                                 @Value("${app.recommendations.parallelism:0}") int parallelism) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.maxRelated = maxRelated;
+        this.maxCoursesPerStudent = maxCoursesPerStudent;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Up to {@code limit} ids of courses taken by students of the given course, most
+     * shared students first
+     */
+    public long[] relatedCourseIds(Long courseId, int limit) {
+        long[] ids = related.getOrDefault(courseId, new long[0]);
+        return ids.length <= limit ? ids : Arrays.copyOf(ids, Math.max(0, limit));
+    }
+
+    // Runs on the task executor; the node takes traffic without recommendations meanwhile
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialRebuild() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.recommendations.rebuild-minutes:60}",
+            initialDelayString = "${app.recommendations.rebuild-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        try {
+            Enrollments enrollments = load();
+            PairCounter pairs;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pairs = pool.invoke(new CountPairs(enrollments, 0, enrollments.students()));
+            } finally {
+                pool.shutdown();
+            }
+            related = topRelated(enrollments.courseIds(), pairs);
+            logger.info("Built course recommendations from {} enrollments ({} course pairs) in {} ms",
+                    enrollments.size(), pairs.size(), System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.error("Failed to build course recommendations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Every student's courses as dense course indexes: student s took
+     * {@code courses[offsets[s]] .. courses[offsets[s + 1] - 1]}
+     */
+    record Enrollments(int[] offsets, int[] courses, long[] courseIds) {
+
+        int students() {
+            return offsets.length - 1;
+        }
+
+        int size() {
+            return offsets[offsets.length - 1];
+        }
+    }
+
+    private Enrollments load() {
+        Map<Long, Integer> courseIndexes = new HashMap<>();
+        long[] courseIds = new long[64];
+        int[] offsets = new int[1024];
+        int[] courses = new int[1024];
+        int students = 0;
+        int size = 0;
+
+        long afterUserId = 0;
+        long afterCourseId = 0;
+        List<EnrollmentPair> batch;
+        do {
+            batch = enrollmentRepository.findPairsAfter(afterUserId, afterCourseId, PageRequest.of(0, BATCH_SIZE));
+            for (EnrollmentPair pair : batch) {
+                boolean sameStudent = students > 0 && pair.getUserId() == afterUserId;
+                if (sameStudent && pair.getCourseId() == afterCourseId) {
+                    // Duplicate enrollment row; a course paired with itself isn't a pair
+                    continue;
+                }
+                if (!sameStudent) {
+                    if (students + 1 >= offsets.length) {
+                        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    }
+                    offsets[students++] = size;
+                }
+                Integer index = courseIndexes.get(pair.getCourseId());
+                if (index == null) {
+                    index = courseIndexes.size();
+                    courseIndexes.put(pair.getCourseId(), index);
+                    if (index >= courseIds.length) {
+                        courseIds = Arrays.copyOf(courseIds, courseIds.length * 2);
+                    }
+                    courseIds[index] = pair.getCourseId();
+                }
+                if (size >= courses.length) {
+                    courses = Arrays.copyOf(courses, courses.length * 2);
+                }
+                courses[size++] = index;
+                afterUserId = pair.getUserId();
+                afterCourseId = pair.getCourseId();
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        offsets[students] = size;
+        return new Enrollments(Arrays.copyOf(offsets, students + 1), Arrays.copyOf(courses, size),
+                Arrays.copyOf(courseIds, courseIndexes.size()));
+    }
+
+    private class CountPairs extends RecursiveTask<PairCounter> {
+
+        private final Enrollments enrollments;
+        private final int from;
+        private final int to;
+
+        CountPairs(Enrollments enrollments, int from, int to) {
+            this.enrollments = enrollments;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PairCounter compute() {
+            if (to - from > STUDENTS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                CountPairs left = new CountPairs(enrollments, from, middle);
+                left.fork();
+                PairCounter right = new CountPairs(enrollments, middle, to).compute();
+                PairCounter merged = left.join();
+                // Merge the smaller table into the larger one
+                if (merged.size() < right.size()) {
+                    right.addAll(merged);
+                    return right;
+                }
+                merged.addAll(right);
+                return merged;
+            }
+
+            int[] offsets = enrollments.offsets();
+            int[] courses = enrollments.courses();
+            PairCounter counter = new PairCounter(offsets[to] - offsets[from]);
+            for (int student = from; student < to; student++) {
+                int start = offsets[student];
+                int end = offsets[student + 1];
+                if (end - start > maxCoursesPerStudent) {
+                    continue;
+                }
+                for (int i = start; i < end; i++) {
+                    for (int j = i + 1; j < end; j++) {
+                        counter.add(courses[i], courses[j], 1);
+                    }
+                }
+            }
+            return counter;
+        }
+    }
+
+    // Keeps the best maxRelated partners of each course: highest count, then lowest course id
+    private Map<Long, long[]> topRelated(long[] courseIds, PairCounter pairs) {
+        int courseCount = courseIds.length;
+        int[][] partners = new int[courseCount][];
+        int[][] scores = new int[courseCount][];
+        int[] sizes = new int[courseCount];
+        pairs.forEach((a, b, count) -> {
+            offer(a, b, count, courseIds, partners, scores, sizes);
+            offer(b, a, count, courseIds, partners, scores, sizes);
+        });
+
+        Map<Long, long[]> result = new HashMap<>();
+        for (int course = 0; course < courseCount; course++) {
+            if (sizes[course] > 0) {
+                long[] ids = new long[sizes[course]];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = courseIds[partners[course][i]];
+                }
+                result.put(courseIds[course], ids);
+            }
+        }
+        return Map.copyOf(result);
+    }
+
+    private void offer(int course, int partner, int count, long[] courseIds,
+                       int[][] partners, int[][] scores, int[] sizes) {
+        if (partners[course] == null) {
+            partners[course] = new int[maxRelated];
+            scores[course] = new int[maxRelated];
+        }
+        int[] top = partners[course];
+        int[] topScores = scores[course];
+        int size = sizes[course];
+        // Insertion into a short sorted array
+        int position = size;
+        while (position > 0 && ranksBefore(count, courseIds[partner], topScores[position - 1],
+                courseIds[top[position - 1]])) {
+            position--;
+        }
+        if (position >= maxRelated) {
+            return;
+        }
+        int last = Math.min(size, maxRelated - 1);
+        System.arraycopy(top, position, top, position + 1, last - position);
+        System.arraycopy(topScores, position, topScores, position + 1, last - position);
+        top[position] = partner;
+        topScores[position] = count;
+        sizes[course] = Math.min(size + 1, maxRelated);
+    }
+
+    private static boolean ranksBefore(int count, long courseId, int otherCount, long otherCourseId) {
+        return count > otherCount || (count == otherCount && courseId < otherCourseId);
+    }
+}
@@ -1,10 +1,21 @@
 package com.brightpath.backend.service;
 
+import com.brightpath.backend.cache.BatchLookup;
+import com.brightpath.backend.config.CacheConfig;
+import com.brightpath.backend.events.CatalogEvent;
 import com.brightpath.backend.model.Course;
 import com.brightpath.backend.repository.CourseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,24 +24,65 @@ public class CourseService {
     @Autowired
     private CourseRepository courseRepository;
 
+    // Catalog events go out to live clients once the transaction commits (CatalogEventHub)
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Change log for polling clients, written in the same transaction as the course
+    @Autowired
+    private CourseChangeService courseChangeService;
+
+    // Absent when caching is off (e.g. JPA slice tests); batches then always query
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
+    @Cacheable(cacheNames = CacheConfig.COURSE_LIST, key = "'all'")
+    @Transactional(readOnly = true)
     public List<Course> getAllCourses() {
         return courseRepository.findAll();
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#result.id"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_LIST, allEntries = true)
+    })
+    @Transactional
     public Course saveCourse(Course course) {
-        return courseRepository.save(course);
+        return saveAndPublish(course);
     }
 
     // Add save method for consistency
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#result.id"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_LIST, allEntries = true)
+    })
+    @Transactional
     public Course save(Course course) {
-        return courseRepository.save(course);
+        return saveAndPublish(course);
+    }
+
+    private Course saveAndPublish(Course course) {
+        boolean created = course.getId() == null;
+        Course saved = courseRepository.save(course);
+        courseChangeService.record(saved.getId(), false);
+        eventPublisher.publishEvent(created ? CatalogEvent.courseCreated(saved) : CatalogEvent.courseUpdated(saved));
+        return saved;
     }
 
     // Add findById method that returns Optional<Course>
+    @Cacheable(cacheNames = CacheConfig.COURSES, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Optional<Course> findById(Long id) {
         return courseRepository.findById(id);
     }
 
+    // Single transaction: the loaded course is managed, so the changes below are
+    // flushed by dirty checking at commit without a second lookup
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_LIST, allEntries = true)
+    })
+    @Transactional
     public Course updateCourse(Long id, Course courseDetails) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
@@ -43,33 +95,84 @@ public class CourseService {
         course.setImageUrl(courseDetails.getImageUrl());
         course.setResourceUrl(courseDetails.getResourceUrl());
 
-        return courseRepository.save(course);
+        courseChangeService.record(id, false);
+        eventPublisher.publishEvent(CatalogEvent.courseUpdated(course));
+        return course;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_LIST, allEntries = true)
+    })
+    @Transactional
     public void deleteCourse(Long id) {
         Course course = courseRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
 
         courseRepository.delete(course);
+        courseChangeService.record(id, true);
+        eventPublisher.publishEvent(CatalogEvent.courseDeleted(id));
+    }
+
+    // Multi-get for the batch endpoint; shares the cache entries of findById. Not
+    // transactional, so a fully cached batch never takes a connection
+    public List<Course> findAllById(Collection<Long> ids) {
+        Cache cache = cacheManager != null ? cacheManager.getCache(CacheConfig.COURSES) : null;
+        return BatchLookup.load(cache, ids, Course.class, courseRepository::findAllById, Course::getId);
     }
 
     // Update PDF resource URL
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#courseId"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_LIST, allEntries = true)
+    })
+    @Transactional
     public Course updateCourseResource(Long courseId, String resourceUrl) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
         course.setResourceUrl(resourceUrl);
-        return courseRepository.save(course);
+        courseChangeService.record(courseId, false);
+        eventPublisher.publishEvent(CatalogEvent.courseUpdated(course));
+        return course;
     }
 
     // Remove PDF resource URL
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#courseId"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_LIST, allEntries = true)
+    })
+    @Transactional
     public Course removeCourseResource(Long courseId) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
         course.setResourceUrl(null);
-        return courseRepository.save(course);
+        courseChangeService.record(courseId, false);
+        eventPublisher.publishEvent(CatalogEvent.courseUpdated(course));
+        return course;
     }
 
 
+    // Attach an image uploaded after the course was created (CourseImageUploadQueue).
+    // Returns false if the course is gone or has been given another image meanwhile
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.COURSES, key = "#courseId"),
+            @CacheEvict(cacheNames = CacheConfig.COURSE_LIST, allEntries = true)
+    })
+    @Transactional
+    public boolean attachQueuedImage(Long courseId, String imageUrl) {
+        Optional<Course> found = courseRepository.findById(courseId);
+        if (found.isEmpty() || found.get().getImageUrl() != null) {
+            return false;
+        }
+        Course course = found.get();
+        course.setImageUrl(imageUrl);
+        courseChangeService.record(courseId, false);
+        eventPublisher.publishEvent(CatalogEvent.courseUpdated(course));
+        return true;
+    }
+
+    @Cacheable(cacheNames = CacheConfig.COURSES, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
     public Course getCourseById(Long id) {
         return courseRepository.findById(id).orElse(null);
     }
@@ -0,0 +1,141 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.cache.SharedCache;
+import com.brightpath.backend.config.ReplicaRoutingDataSource;
+import com.brightpath.backend.repository.EnrollmentRepository;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ids of the courses each user is enrolled in, as compressed bitmaps, so "is this user
+ * enrolled in X?" is answered in memory for a whole catalog page. A user's bitmap is loaded
+ * with one query against the primary on first use.
+ *
+ * <p>Enrollment changes are applied to the local bitmap once their transaction commits and
+ * broadcast so other nodes drop theirs. Bitmaps are never modified in place: an update
+ * swaps in a changed copy, so readers need no locking.
+ */
+@Service
+public class EnrolledCourseIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrolledCourseIndex.class);
+
+    private static final String CHANNEL = "enrollment-index";
+
+    /**
+     * Published by {@link EnrollmentService} for every enrollment added or removed
+     */
+    public record EnrollmentChange(Long userId, Long courseId, boolean enrolled) {
+    }
+
+    private record Entry(Roaring64Bitmap courseIds, long expiresAt) {
+    }
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final SharedCache sharedCache;
+    private final int maxUsers;
+    private final long ttlMillis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Counts changes seen; a load that raced with any change is not cached
+    private final AtomicLong changes = new AtomicLong();
+
+    public EnrolledCourseIndex(EnrollmentRepository enrollmentRepository, SharedCache sharedCache,
+                               @Value("${app.enrollments.index.max-users:50000}") int maxUsers,
+                               @Value("${app.enrollments.index.ttl-minutes:30}") long ttlMinutes) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.sharedCache = sharedCache;
+        this.maxUsers = maxUsers;
+        this.ttlMillis = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        sharedCache.subscribe(CHANNEL, this::onMessage);
+    }
+
+    public boolean isEnrolled(Long userId, Long courseId) {
+        return courseIds(userId).contains(courseId);
+    }
+
+    /**
+     * The ids of the courses the user is enrolled in, ascending
+     */
+    public long[] enrolledCourseIds(Long userId) {
+        return courseIds(userId).toArray();
+    }
+
+    private Roaring64Bitmap courseIds(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.courseIds();
+        }
+
+        long seen = changes.get();
+        Roaring64Bitmap courseIds = new Roaring64Bitmap();
+        // From the primary: a replica behind a recent enrollment would be cached for the whole TTL
+        ReplicaRoutingDataSource.onPrimary(() -> enrollmentRepository.findCourseIdsByUserId(userId))
+                .forEach(courseIds::addLong);
+        courseIds.runOptimize();
+
+        if (entries.size() >= maxUsers) {
+            trim(now);
+        }
+        Entry loaded = new Entry(courseIds, now + ttlMillis);
+        // Atomic with the user's changes: one committed while the query ran leaves the old entry
+        entries.compute(userId, (id, current) -> changes.get() == seen ? loaded : current);
+        return courseIds;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentChange(EnrollmentChange change) {
+        entries.compute(change.userId(), (id, current) -> {
+            changes.incrementAndGet();
+            if (current == null) {
+                return null;
+            }
+            Roaring64Bitmap updated = current.courseIds().clone();
+            if (change.enrolled()) {
+                updated.addLong(change.courseId());
+            } else {
+                updated.removeLong(change.courseId());
+            }
+            return new Entry(updated, current.expiresAt());
+        });
+        try {
+            sharedCache.publish(CHANNEL, nodeId + "|" + change.userId());
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast enrollment change for user {}: {}", change.userId(), e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        String[] parts = message.split("\\|", 2);
+        if (parts.length != 2 || parts[0].equals(nodeId)) {
+            return;
+        }
+        Long userId = Long.valueOf(parts[1]);
+        entries.compute(userId, (id, current) -> {
+            changes.incrementAndGet();
+            return null;
+        });
+    }
+
+    // Drop expired bitmaps, then arbitrary ones, until there is room again
+    private void trim(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt() <= now);
+        Iterator<Long> users = entries.keySet().iterator();
+        while (entries.size() >= maxUsers && users.hasNext()) {
+            users.next();
+            users.remove();
+        }
+    }
+}
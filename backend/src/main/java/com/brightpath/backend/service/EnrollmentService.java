@@ -1,33 +1,56 @@
 package com.brightpath.backend.service;
 
+import com.brightpath.backend.events.CatalogEvent;
 import com.brightpath.backend.model.Enrollment;
 import com.brightpath.backend.model.User;
 import com.brightpath.backend.model.Course;
 import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.service.EnrolledCourseIndex.EnrollmentChange;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class EnrollmentService {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EnrolledCourseIndex enrolledCourseIndex;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
     /**
-     * Enroll a user in a course
+     * Enroll a user in a course at its current price
      */
+    @Transactional
     public Enrollment enrollUser(User user, Course course) {
         Enrollment enrollment = new Enrollment();
         enrollment.setUser(user);
         enrollment.setCourse(course);
-        return enrollmentRepository.save(enrollment);
+        enrollment.setAmountPaid(RevenueRollupService.amountFor(course.getPrice()));
+        Enrollment saved = enrollmentRepository.save(enrollment);
+        revenueRollupService.recordEnrollment(course.getId(), saved.getEnrollmentDate(), saved.getAmountPaid());
+        eventPublisher.publishEvent(new EnrollmentChange(user.getId(), course.getId(), true));
+        eventPublisher.publishEvent(CatalogEvent.enrollmentsChanged(course.getId(), 1));
+        return saved;
     }
 
     /**
      * Get all enrollments for a specific user
      */
+    @Transactional(readOnly = true)
     public List<Enrollment> getUserEnrollments(Long userId) {
         return enrollmentRepository.findByUserId(userId);
     }
@@ -35,24 +58,42 @@ public class EnrollmentService {
     /**
      * Get all enrollments for a specific course
      */
+    @Transactional(readOnly = true)
     public List<Enrollment> getCourseEnrollments(Long courseId) {
         return enrollmentRepository.findByCourseId(courseId);
     }
 
     /**
-     * Check if a user is enrolled in a specific course
+     * Check if a user is enrolled in a specific course. Asks the database, so it is what
+     * enroll/unenroll check against; reads use {@link #getEnrolledCourseIds}.
      */
+    @Transactional(readOnly = true)
     public boolean isUserEnrolled(Long userId, Long courseId) {
         return enrollmentRepository.existsByUserIdAndCourseId(userId, courseId);
     }
 
     /**
-     * Unenroll a user from a course
+     * The ids of the courses a user is enrolled in, from the in-memory index
      */
+    public long[] getEnrolledCourseIds(Long userId) {
+        return enrolledCourseIndex.enrolledCourseIds(userId);
+    }
+
+    /**
+     * Unenroll a user from a course, refunding what the enrollment was charged
+     */
+    @Transactional
     public void unenrollUser(Long userId, Long courseId) {
-        Optional<Enrollment> enrollment = enrollmentRepository.findByUserIdAndCourseId(userId, courseId);
+        // Locked, so a backfill batch pricing it either finishes first or doesn't see it
+        Optional<Enrollment> enrollment = enrollmentRepository.findForUpdate(userId, courseId);
         if (enrollment.isPresent()) {
             enrollmentRepository.delete(enrollment.get());
+            // Enrollments the revenue backfill has not priced yet were never counted
+            if (enrollment.get().getAmountPaid() != null) {
+                revenueRollupService.recordRefund(courseId, new Date(), enrollment.get().getAmountPaid());
+            }
+            eventPublisher.publishEvent(new EnrollmentChange(userId, courseId, false));
+            eventPublisher.publishEvent(CatalogEvent.enrollmentsChanged(courseId, -1));
         } else {
             throw new RuntimeException("Enrollment not found for user " + userId + " and course " + courseId);
         }
@@ -61,6 +102,7 @@ public class EnrollmentService {
     /**
      * Get a specific enrollment by user ID and course ID
      */
+    @Transactional(readOnly = true)
     public Optional<Enrollment> getEnrollment(Long userId, Long courseId) {
         return enrollmentRepository.findByUserIdAndCourseId(userId, courseId);
     }
@@ -68,6 +110,7 @@ public class EnrollmentService {
     /**
      * Get all enrollments
      */
+    @Transactional(readOnly = true)
     public List<Enrollment> getAllEnrollments() {
         return enrollmentRepository.findAll();
     }
@@ -75,6 +118,7 @@ public class EnrollmentService {
     /**
      * Count total enrollments
      */
+    @Transactional(readOnly = true)
     public long countTotalEnrollments() {
         return enrollmentRepository.count();
     }
@@ -82,6 +126,7 @@ public class EnrollmentService {
     /**
      * Count enrollments for a specific user
      */
+    @Transactional(readOnly = true)
     public long countUserEnrollments(Long userId) {
         return enrollmentRepository.countByUserId(userId);
     }
@@ -89,6 +134,7 @@ public class EnrollmentService {
     /**
      * Count enrollments for a specific course
      */
+    @Transactional(readOnly = true)
     public long countCourseEnrollments(Long courseId) {
         return enrollmentRepository.countByCourseId(courseId);
     }
@@ -96,17 +142,30 @@ public class EnrollmentService {
     /**
      * Delete all enrollments for a specific user (useful when deleting a user)
      */
+    @Transactional
     public void deleteAllUserEnrollments(Long userId) {
         List<Enrollment> userEnrollments = enrollmentRepository.findByUserId(userId);
         enrollmentRepository.deleteAll(userEnrollments);
+        userEnrollments.forEach(enrollment ->
+                eventPublisher.publishEvent(new EnrollmentChange(userId, enrollment.getCourse().getId(), false)));
+        Map<Long, Long> removedPerCourse = userEnrollments.stream()
+                .collect(Collectors.groupingBy(enrollment -> enrollment.getCourse().getId(), Collectors.counting()));
+        removedPerCourse.forEach((courseId, removed) ->
+                eventPublisher.publishEvent(CatalogEvent.enrollmentsChanged(courseId, -removed)));
     }
 
     /**
      * Delete all enrollments for a specific course (useful when deleting a course)
      */
+    @Transactional
     public void deleteAllCourseEnrollments(Long courseId) {
         List<Enrollment> courseEnrollments = enrollmentRepository.findByCourseId(courseId);
         enrollmentRepository.deleteAll(courseEnrollments);
+        courseEnrollments.forEach(enrollment ->
+                eventPublisher.publishEvent(new EnrollmentChange(enrollment.getUser().getId(), courseId, false)));
+        if (!courseEnrollments.isEmpty()) {
+            eventPublisher.publishEvent(CatalogEvent.enrollmentsChanged(courseId, -courseEnrollments.size()));
+        }
     }
 }
 
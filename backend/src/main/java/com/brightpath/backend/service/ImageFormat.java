@@ -0,0 +1,87 @@
+package com.brightpath.backend.service;
+
+import java.util.Locale;
+
+/**
+ * Image formats accepted for uploads, recognised by their leading bytes rather than
+ * by the file name.
+ */
+enum ImageFormat {
+    JPEG("image/jpeg", ".jpg", "jpeg"),
+    PNG("image/png", ".png", "png"),
+    GIF("image/gif", ".gif", "gif"),
+    BMP("image/bmp", ".bmp", "bmp");
+
+    /** Bytes needed to recognise any of the formats */
+    static final int SIGNATURE_LENGTH = 8;
+
+    private final String contentType;
+    private final String extension;
+    private final String imageIoName;
+
+    ImageFormat(String contentType, String extension, String imageIoName) {
+        this.contentType = contentType;
+        this.extension = extension;
+        this.imageIoName = imageIoName;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    String extension() {
+        return extension;
+    }
+
+    String imageIoName() {
+        return imageIoName;
+    }
+
+    /**
+     * The format whose signature the header starts with, or null if it matches none
+     */
+    static ImageFormat sniff(byte[] header, int length) {
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return JPEG;
+        }
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return PNG;
+        }
+        if (startsWith(header, length, 'G', 'I', 'F', '8', '7', 'a')
+                || startsWith(header, length, 'G', 'I', 'F', '8', '9', 'a')) {
+            return GIF;
+        }
+        if (startsWith(header, length, 'B', 'M')) {
+            return BMP;
+        }
+        return null;
+    }
+
+    /**
+     * The format with the given MIME type, or null
+     */
+    static ImageFormat forContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        for (ImageFormat format : values()) {
+            if (format.contentType.equals(type)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,17 +1,38 @@
 package com.brightpath.backend.service;
 
+import com.azure.core.util.Context;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.brightpath.backend.config.BlobContainerInitializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.UUID;
 
 @Service
@@ -21,17 +42,32 @@ public class ImageStorageService {
 
     private final BlobContainerClient profileImagesContainerClient;
     private final BlobContainerClient courseImagesContainerClient;
-
-    // Allowed image file extensions
-    private static final List<String> ALLOWED_EXTENSIONS = Arrays.asList(".jpg", ".jpeg", ".png", ".gif", ".bmp");
+    private final BlobContainerInitializer containerInitializer;
+    private final BlobGarbageCollector blobGarbageCollector;
+    private final boolean reencodeBmp;
+    private final boolean reencodePng;
+    private final float jpegQuality;
 
     // Maximum file size (2MB as configured in application.properties)
     private static final long MAX_FILE_SIZE = 2 * 1024 * 1024; // 2MB in bytes
 
+    // A small compressed file can still decode to a huge bitmap
+    private static final long MAX_PIXELS = 4096L * 4096L;
+
     public ImageStorageService(@Qualifier("profileImagesContainerClient") BlobContainerClient profileImagesContainerClient,
-                               @Qualifier("courseImagesContainerClient") BlobContainerClient courseImagesContainerClient) {
+                               @Qualifier("courseImagesContainerClient") BlobContainerClient courseImagesContainerClient,
+                               BlobContainerInitializer containerInitializer,
+                               BlobGarbageCollector blobGarbageCollector,
+                               @Value("${app.images.reencode-bmp:true}") boolean reencodeBmp,
+                               @Value("${app.images.reencode-png:false}") boolean reencodePng,
+                               @Value("${app.images.jpeg-quality:0.85}") float jpegQuality) {
         this.profileImagesContainerClient = profileImagesContainerClient;
         this.courseImagesContainerClient = courseImagesContainerClient;
+        this.containerInitializer = containerInitializer;
+        this.blobGarbageCollector = blobGarbageCollector;
+        this.reencodeBmp = reencodeBmp;
+        this.reencodePng = reencodePng;
+        this.jpegQuality = jpegQuality;
     }
 
     /**
@@ -39,7 +75,7 @@ public class ImageStorageService {
      */
     public String uploadProfileImage(MultipartFile file) throws IOException {
         logger.info("Uploading profile image: {}", file.getOriginalFilename());
-        return uploadImage(file, profileImagesContainerClient, "profile");
+        return uploadImage(file, file.getSize(), file.getOriginalFilename(), profileImagesContainerClient, "profile");
     }
 
     /**
@@ -47,42 +83,68 @@ public class ImageStorageService {
      */
     public String uploadCourseImage(MultipartFile file) throws IOException {
         logger.info("Uploading course image: {}", file.getOriginalFilename());
-        return uploadImage(file, courseImagesContainerClient, "course");
+        return uploadImage(file, file.getSize(), file.getOriginalFilename(), courseImagesContainerClient, "course");
     }
 
     /**
-     * Generic method to upload an image to a specific container
+     * Upload a course image held in memory, e.g. one queued while storage was unavailable
      */
-    private String uploadImage(MultipartFile file, BlobContainerClient containerClient, String imageType) throws IOException {
-        // Validate file
-        validateFile(file);
+    public String uploadCourseImage(String filename, byte[] content) throws IOException {
+        logger.info("Uploading queued course image: {}", filename);
+        return uploadImage(new ByteArrayResource(content), content.length, filename, courseImagesContainerClient,
+                "course");
+    }
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = getFileExtension(originalFilename);
-        String uniqueFilename = generateUniqueFilename(imageType, extension);
+    /**
+     * Generic method to upload an image to a specific container. The format is taken
+     * from the file's leading bytes, and uncompressed images are re-encoded on the way in.
+     * Failures of storage itself are reported as {@link StorageUnavailableException}, after
+     * the image has been validated; storage refusing the upload is a plain IOException.
+     */
+    private String uploadImage(InputStreamSource file, long size, String filename, BlobContainerClient containerClient,
+                               String imageType) throws IOException {
+        // Validate file; everything up to here only reads the local copy
+        validateFile(size, filename);
+        ImageFormat format = sniffFormat(file);
+        BufferedImage decoded = shouldReencode(format) ? decode(file) : null;
+        ImageFormat storedFormat = decoded == null ? format : reencodeTarget(format, decoded);
+        // Encoded in full before anything is written, so a failure can't leave a truncated blob
+        byte[] reencoded = null;
+        if (storedFormat != format) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            encode(decoded, storedFormat, out);
+            reencoded = out.toByteArray();
+        }
 
         try {
-            // Get blob client
-            BlobClient blobClient = containerClient.getBlobClient(uniqueFilename);
-
-            // Set content type based on file extension
-            BlobHttpHeaders headers = new BlobHttpHeaders()
-                    .setContentType(getContentType(extension));
+            containerInitializer.ensureCreated(containerClient);
+        } catch (IOException e) {
+            throw new StorageUnavailableException(e.getMessage(), e);
+        }
+        String uniqueFilename = generateUniqueFilename(imageType, storedFormat.extension());
 
-            // Upload the file - CORRECTED METHOD CALL
-            blobClient.upload(file.getInputStream(), file.getSize(), true);
+        try {
+            BlobClient blobClient = containerClient.getBlobClient(uniqueFilename);
+            BlobHttpHeaders headers = new BlobHttpHeaders().setContentType(storedFormat.contentType());
 
-            // Set the HTTP headers after upload
-            blobClient.setHttpHeaders(headers);
+            // Upload the image with its content type in a single request
+            InputStream content = reencoded == null ? file.getInputStream() : new ByteArrayInputStream(reencoded);
+            BlobParallelUploadOptions options = new BlobParallelUploadOptions(content).setHeaders(headers);
+            blobClient.uploadWithResponse(options, null, Context.NONE);
+            if (reencoded != null) {
+                logger.info("Re-encoded {} image {} from {} to {}", imageType, filename, format, storedFormat);
+            }
 
             String imageUrl = blobClient.getBlobUrl();
-            logger.info("Successfully uploaded {} image: {} -> {}", imageType, originalFilename, imageUrl);
+            logger.info("Successfully uploaded {} image: {} -> {}", imageType, filename, imageUrl);
             return imageUrl;
 
         } catch (Exception e) {
             logger.error("Failed to upload {} image: {}", imageType, e.getMessage());
-            throw new IOException("Failed to upload image to Azure Blob Storage", e);
+            if (StorageUnavailableException.isUnavailable(e)) {
+                throw new StorageUnavailableException("Failed to upload image to Azure Blob Storage", e);
+            }
+            throw new IOException("Azure Blob Storage refused the image upload", e);
         }
     }
 
@@ -117,21 +179,15 @@ public class ImageStorageService {
     }
 
     /**
-     * Generic method to delete an image from a specific container
+     * Queue an image for deletion; the blob is removed in the background
      */
     private boolean deleteImage(String filename, BlobContainerClient containerClient, String imageType) {
         try {
-            BlobClient blobClient = containerClient.getBlobClient(filename);
-            if (blobClient.exists()) {
-                blobClient.delete();
-                logger.info("Successfully deleted {} image: {}", imageType, filename);
-                return true;
-            } else {
-                logger.warn("{} image not found: {}", imageType, filename);
-                return false;
-            }
+            blobGarbageCollector.scheduleDeletion(containerClient, filename, null);
+            logger.info("Queued {} image for deletion: {}", imageType, filename);
+            return true;
         } catch (Exception e) {
-            logger.error("Failed to delete {} image {}: {}", imageType, filename, e.getMessage());
+            logger.error("Failed to queue {} image {} for deletion: {}", imageType, filename, e.getMessage());
             return false;
         }
     }
@@ -139,60 +195,111 @@ public class ImageStorageService {
     /**
      * Validate uploaded file
      */
-    private void validateFile(MultipartFile file) throws IOException {
-        if (file.isEmpty()) {
+    private void validateFile(long size, String filename) throws IOException {
+        if (size == 0) {
             throw new IOException("File is empty");
         }
 
-        if (file.getSize() > MAX_FILE_SIZE) {
+        if (size > MAX_FILE_SIZE) {
             throw new IOException("File size exceeds maximum allowed size of 2MB");
         }
 
-        String filename = file.getOriginalFilename();
         if (filename == null || filename.trim().isEmpty()) {
             throw new IOException("Invalid filename");
         }
+    }
 
-        String extension = getFileExtension(filename);
-        if (!ALLOWED_EXTENSIONS.contains(extension.toLowerCase())) {
-            throw new IOException("File type not allowed. Allowed types: " + ALLOWED_EXTENSIONS);
+    /**
+     * Identify the image format from the first bytes of the file
+     */
+    ImageFormat sniffFormat(InputStreamSource file) throws IOException {
+        byte[] header = new byte[ImageFormat.SIGNATURE_LENGTH];
+        int length;
+        try (InputStream in = file.getInputStream()) {
+            length = in.readNBytes(header, 0, header.length);
+        }
+        ImageFormat format = ImageFormat.sniff(header, length);
+        if (format == null) {
+            throw new IOException("File is not a supported image. Allowed types: JPEG, PNG, GIF, BMP");
         }
+        return format;
+    }
+
+    private boolean shouldReencode(ImageFormat format) {
+        return (format == ImageFormat.BMP && reencodeBmp) || (format == ImageFormat.PNG && reencodePng);
     }
 
     /**
-     * Extract file extension from filename
+     * JPEG for opaque images; BMPs with transparency become PNG, PNGs with transparency stay as they are
      */
-    private String getFileExtension(String filename) {
-        if (filename == null || !filename.contains(".")) {
-            return "";
+    private ImageFormat reencodeTarget(ImageFormat format, BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return ImageFormat.JPEG;
         }
-        return filename.substring(filename.lastIndexOf(".")).toLowerCase();
+        return format == ImageFormat.BMP ? ImageFormat.PNG : format;
     }
 
     /**
-     * Generate unique filename with prefix
+     * Decode the image, rejecting files that are corrupt or too large once decoded
      */
-    private String generateUniqueFilename(String prefix, String extension) {
-        return prefix + "_" + UUID.randomUUID().toString() + extension;
+    BufferedImage decode(InputStreamSource file) throws IOException {
+        try (ImageInputStream in = new MemoryCacheImageInputStream(file.getInputStream())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("File is not a readable image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) {
+                    throw new IOException("Image dimensions exceed the maximum of " + MAX_PIXELS + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
     }
 
     /**
-     * Get content type based on file extension
+     * Write the image in the given format to the stream
      */
-    private String getContentType(String extension) {
-        switch (extension.toLowerCase()) {
-            case ".jpg":
-            case ".jpeg":
-                return "image/jpeg";
-            case ".png":
-                return "image/png";
-            case ".gif":
-                return "image/gif";
-            case ".bmp":
-                return "image/bmp";
-            default:
-                return "application/octet-stream";
+    void encode(BufferedImage image, ImageFormat format, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format.imageIoName()).next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (format == ImageFormat.JPEG) {
+            image = toRgb(image);
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+        }
+        try (ImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // The JPEG writer only takes plain RGB rasters, not indexed or 16-bit ones
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
         }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rgb.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rgb;
+    }
+
+    /**
+     * Generate unique filename with prefix
+     */
+    private String generateUniqueFilename(String prefix, String extension) {
+        return prefix + "_" + UUID.randomUUID().toString() + extension;
     }
 
     /**
@@ -0,0 +1,94 @@
+package com.brightpath.backend.service;
+
+/**
+ * Counts unordered pairs of small non-negative ints in an open-addressing table of
+ * primitives, so millions of pairs cost two arrays rather than millions of objects.
+ * Not thread-safe; parallel counts go into separate counters that are then merged.
+ */
+final class PairCounter {
+
+    interface PairConsumer {
+        void accept(int a, int b, int count);
+    }
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    // 0 marks an empty slot; a packed pair is never 0 because a < b
+    private long[] keys;
+    private int[] counts;
+    private int size;
+    private int mask;
+
+    PairCounter(int expectedPairs) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedPairs / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Adds to the count of the pair {a, b}; a and b must differ
+     */
+    void add(int a, int b, int count) {
+        long key = a < b ? pack(a, b) : pack(b, a);
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot] += count;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = count;
+        if (++size > keys.length * LOAD_FACTOR) {
+            grow();
+        }
+    }
+
+    void addAll(PairCounter other) {
+        other.forEach(this::add);
+    }
+
+    void forEach(PairConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            long key = keys[slot];
+            if (key != 0) {
+                consumer.accept((int) (key >>> 32), (int) key, counts[slot]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static long pack(int low, int high) {
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,384 @@
+package com.brightpath.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Local copies of course resources for downloads, so popular files are read from disk
+ * instead of fetched from blob storage each time. Every cached blob is a file in a
+ * size-bounded directory, evicted least recently used first; small files are also kept
+ * in memory, up to their own bound. Files are sent with {@link FileChannel#transferTo}.
+ *
+ * <p>Copies are checked against the blob's ETag with a conditional download once they are
+ * older than the revalidation interval, which costs a round trip but no transfer while
+ * the blob is unchanged. Content-addressed blobs are named by the SHA-256 of their content,
+ * so they never change and are never revalidated. If storage is unavailable, the copy on
+ * hand is served as is.
+ *
+ * <p>The index is kept in memory only, so the directory is emptied on startup.
+ */
+@Service
+public class ResourceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceCache.class);
+
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}(\\.[^/]*)?");
+    private static final String CACHED_SUFFIX = ".blob";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    /**
+     * Downloads a blob into {@code target} unless its ETag still equals {@code ifNoneMatch}
+     * (null for an unconditional download). Returns the blob's ETag, or null if unchanged.
+     */
+    @FunctionalInterface
+    public interface Fetcher {
+        String fetch(String ifNoneMatch, Path target) throws IOException;
+    }
+
+    /**
+     * A resource ready to send, from memory or an open file; close it when done
+     */
+    public static final class Content implements Closeable {
+        private final byte[] bytes;
+        private final FileChannel channel;
+        private final long size;
+        private final boolean uncached;
+
+        private Content(byte[] bytes) {
+            this.bytes = bytes;
+            this.channel = null;
+            this.size = bytes.length;
+            this.uncached = false;
+        }
+
+        private Content(FileChannel channel, long size, boolean uncached) {
+            this.bytes = null;
+            this.channel = channel;
+            this.size = size;
+            this.uncached = uncached;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        public void transferTo(OutputStream out) throws IOException {
+            if (bytes != null) {
+                out.write(bytes);
+                return;
+            }
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String etag;
+        final long size;
+        final Path file;
+        byte[] bytes; // Set while in the memory tier
+        long validatedAt;
+
+        Entry(String etag, long size, Path file, long validatedAt) {
+            this.etag = etag;
+            this.size = size;
+            this.file = file;
+            this.validatedAt = validatedAt;
+        }
+    }
+
+    private final Path directory;
+    private final long memoryMaxBytes;
+    private final long memoryMaxFileBytes;
+    private final long diskMaxBytes;
+    private final long revalidateMillis;
+    private final LongSupplier clock;
+
+    // Access-ordered, so iteration starts at the least recently used; guarded by this
+    private final LinkedHashMap<String, Entry> disk = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+    private long memoryBytes;
+    // Fetches in progress by blob name, completed with whether the blob was cached
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> fetches = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ResourceCache(@Value("${app.resources.cache.dir:${java.io.tmpdir}/brightpath-resource-cache}") Path directory,
+                         @Value("${app.resources.cache.memory-max-bytes:33554432}") long memoryMaxBytes,
+                         @Value("${app.resources.cache.memory-max-file-bytes:262144}") long memoryMaxFileBytes,
+                         @Value("${app.resources.cache.disk-max-bytes:2147483648}") long diskMaxBytes,
+                         @Value("${app.resources.cache.revalidate-seconds:300}") long revalidateSeconds)
+            throws IOException {
+        this(directory, memoryMaxBytes, memoryMaxFileBytes, diskMaxBytes, revalidateSeconds, System::currentTimeMillis);
+    }
+
+    ResourceCache(Path directory, long memoryMaxBytes, long memoryMaxFileBytes, long diskMaxBytes,
+                  long revalidateSeconds, LongSupplier clock) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.memoryMaxBytes = memoryMaxBytes;
+        this.memoryMaxFileBytes = Math.min(memoryMaxFileBytes, memoryMaxBytes);
+        this.diskMaxBytes = diskMaxBytes;
+        this.revalidateMillis = TimeUnit.SECONDS.toMillis(revalidateSeconds);
+        this.clock = clock;
+        clearDirectory();
+    }
+
+    /**
+     * The cached copy of a blob, fetched first if it isn't cached or has changed. Concurrent
+     * misses for the same blob wait for a single fetch and are then served from the cache.
+     */
+    public Content open(String blobName, Fetcher fetcher) throws IOException {
+        while (true) {
+            Entry cached = lookup(blobName);
+            if (cached != null && isFresh(blobName, cached)) {
+                Content content = contentOf(blobName, cached);
+                if (content != null) {
+                    return content;
+                }
+            }
+
+            CompletableFuture<Boolean> fetch = new CompletableFuture<>();
+            CompletableFuture<Boolean> running = fetches.putIfAbsent(blobName, fetch);
+            if (running == null) {
+                try {
+                    Content content = fetch(blobName, cached, fetcher);
+                    fetch.complete(content != null && !content.uncached);
+                    return content;
+                } catch (IOException | RuntimeException e) {
+                    fetch.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    fetches.remove(blobName, fetch);
+                    fetch.complete(false);
+                }
+            }
+
+            if (!await(running)) {
+                // Too large to keep, so there is nothing to share; each download is its own
+                return fetch(blobName, cached, fetcher);
+            }
+            Entry fetched = lookup(blobName);
+            if (fetched != null) {
+                Content content = contentOf(blobName, fetched);
+                if (content != null) {
+                    return content;
+                }
+            }
+            // Evicted or replaced since; looked up again
+        }
+    }
+
+    // Whether the other request's fetch left the blob in the cache; its failure is ours too
+    private static boolean await(CompletableFuture<Boolean> running) throws IOException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a resource download");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException failure) {
+                throw failure;
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private Content fetch(String blobName, Entry cached, Fetcher fetcher) throws IOException {
+        String ifNoneMatch = cached == null ? null : cached.etag;
+        Path part = Files.createTempFile(directory, "fetch-", PARTIAL_SUFFIX);
+        try {
+            String etag;
+            try {
+                etag = fetcher.fetch(ifNoneMatch, part);
+            } catch (StorageUnavailableException e) {
+                Content stale = cached == null ? null : contentOf(blobName, cached);
+                if (stale == null) {
+                    throw e;
+                }
+                logger.warn("Serving cached {} without revalidation: {}", blobName, e.getMessage());
+                return stale;
+            }
+
+            if (etag == null && cached != null) {
+                synchronized (this) {
+                    cached.validatedAt = clock.getAsLong();
+                }
+                Content content = contentOf(blobName, cached);
+                if (content != null) {
+                    return content;
+                }
+                // Evicted while it was being revalidated
+                etag = fetcher.fetch(null, part);
+            }
+            return admit(blobName, etag, part);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    /**
+     * Drops every cached copy, so the next download of each blob fetches it again
+     */
+    public void clear() throws IOException {
+        List<Path> evicted = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, Entry> entry : disk.entrySet()) {
+                remove(entry.getKey(), entry.getValue(), evicted);
+            }
+            disk.clear();
+        }
+        for (Path path : evicted) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private synchronized Entry lookup(String blobName) {
+        Entry entry = disk.get(blobName);
+        if (entry != null && entry.bytes != null) {
+            memory.get(blobName);
+        }
+        return entry;
+    }
+
+    private boolean isFresh(String blobName, Entry entry) {
+        if (CONTENT_ADDRESSED.matcher(blobName).matches()) {
+            return true;
+        }
+        synchronized (this) {
+            return clock.getAsLong() - entry.validatedAt < revalidateMillis;
+        }
+    }
+
+    // Null once the entry has been evicted or replaced. Files are opened under the lock,
+    // so eviction can't delete one in between; an open file stays readable after deletion
+    private synchronized Content contentOf(String blobName, Entry entry) throws IOException {
+        if (disk.get(blobName) != entry) {
+            return null;
+        }
+        if (entry.bytes != null) {
+            return new Content(entry.bytes);
+        }
+        try {
+            return new Content(FileChannel.open(entry.file, StandardOpenOption.READ), entry.size, false);
+        } catch (NoSuchFileException e) {
+            // Removed from outside the cache; fetched again
+            disk.remove(blobName);
+            diskBytes -= entry.size;
+            return null;
+        }
+    }
+
+    private Content admit(String blobName, String etag, Path part) throws IOException {
+        long size = Files.size(part);
+        if (size > diskMaxBytes) {
+            // Too large to keep; sent from the downloaded file, which goes away once closed
+            Path uncached = directory.resolve(UUID.randomUUID() + PARTIAL_SUFFIX);
+            Files.move(part, uncached, StandardCopyOption.ATOMIC_MOVE);
+            return new Content(FileChannel.open(uncached, StandardOpenOption.READ,
+                    StandardOpenOption.DELETE_ON_CLOSE), size, true);
+        }
+
+        Path file = directory.resolve(UUID.randomUUID() + CACHED_SUFFIX);
+        Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+        Entry entry = new Entry(etag, size, file, clock.getAsLong());
+        if (size <= memoryMaxFileBytes) {
+            entry.bytes = Files.readAllBytes(file);
+        }
+
+        List<Path> evicted = new ArrayList<>();
+        Content content;
+        synchronized (this) {
+            Entry replaced = disk.put(blobName, entry);
+            diskBytes += size;
+            if (replaced != null) {
+                remove(blobName, replaced, evicted);
+            }
+            if (entry.bytes != null) {
+                memory.put(blobName, entry);
+                memoryBytes += size;
+            }
+            evict(evicted);
+            content = contentOf(blobName, entry);
+        }
+        for (Path path : evicted) {
+            Files.deleteIfExists(path);
+        }
+        logger.debug("Cached {} ({} bytes, {} evicted)", blobName, size, evicted.size());
+        return content;
+    }
+
+    // Called with the lock held, after the new entry went in as most recently used
+    private void evict(List<Path> evicted) {
+        Iterator<Map.Entry<String, Entry>> oldest = memory.entrySet().iterator();
+        while (memoryBytes > memoryMaxBytes && oldest.hasNext()) {
+            Entry entry = oldest.next().getValue();
+            oldest.remove();
+            memoryBytes -= entry.size;
+            entry.bytes = null;
+        }
+        oldest = disk.entrySet().iterator();
+        while (diskBytes > diskMaxBytes && oldest.hasNext()) {
+            Map.Entry<String, Entry> eldest = oldest.next();
+            oldest.remove();
+            remove(eldest.getKey(), eldest.getValue(), evicted);
+        }
+    }
+
+    // Called with the lock held, once the entry is out of the disk tier
+    private void remove(String blobName, Entry entry, List<Path> evicted) {
+        diskBytes -= entry.size;
+        if (entry.bytes != null && memory.remove(blobName, entry)) {
+            memoryBytes -= entry.size;
+        }
+        entry.bytes = null;
+        evicted.add(entry.file);
+    }
+
+    private void clearDirectory() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                "*{" + CACHED_SUFFIX + "," + PARTIAL_SUFFIX + "}")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -1,26 +1,64 @@
 package com.brightpath.backend.service;
 
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.Context;
+import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobDownloadResponse;
 import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.BlockBlobItem;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.brightpath.backend.config.BlobContainerInitializer;
+import com.brightpath.backend.model.ResourceBlob;
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.repository.ResourceBlobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-
-
-import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
 
 @Service
 public class ResourceStorageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ResourceStorageService.class);
+
     @Autowired
     private BlobContainerClient courseResourcesContainerClient;
 
+    @Autowired
+    private BlobContainerInitializer containerInitializer;
+
+    @Autowired
+    private ResourceBlobRepository resourceBlobRepository;
+
+    @Autowired
+    private BlobGarbageCollector blobGarbageCollector;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ResourceCache resourceCache;
+
     /**
-     * Uploads a PDF to Azure Blob Storage and returns the URL
+     * Stores a PDF under the SHA-256 of its content and returns the URL. If the same
+     * content is already stored, the existing blob gets another reference and nothing
+     * is uploaded.
      */
     public String uploadResource(MultipartFile file) throws IOException {
         String filename = file.getOriginalFilename();
@@ -28,23 +66,143 @@ public class ResourceStorageService {
             throw new IOException("Invalid file name");
         }
 
-        // Upload file
-        courseResourcesContainerClient.getBlobClient(filename).upload(file.getInputStream(), file.getSize(), true);
+        // The multipart body is already buffered locally, so hashing it first is cheap
+        // and lets duplicates skip the upload entirely
+        String digest = sha256(file);
+
+        Optional<String> existingUrl = acquireExisting(digest);
+        if (existingUrl.isPresent()) {
+            logger.info("Reusing stored resource {} for {}", existingUrl.get(), filename);
+            return existingUrl.get();
+        }
+
+        String blobName = contentAddressedName(digest, filename);
+        containerInitializer.ensureCreated(courseResourcesContainerClient);
+        BlobClient blobClient = courseResourcesContainerClient.getBlobClient(blobName);
 
-        // Set content type
-        courseResourcesContainerClient.getBlobClient(filename)
-                .setHttpHeaders(new BlobHttpHeaders().setContentType(file.getContentType()));
+        // Upload file with its content type in a single request, only if no blob has the
+        // name yet: a blob that is already there holds the same content
+        BlobParallelUploadOptions options = new BlobParallelUploadOptions(file.getInputStream())
+                .setHeaders(new BlobHttpHeaders().setContentType(file.getContentType()))
+                .setRequestConditions(new BlobRequestConditions().setIfNoneMatch("*"));
+        Response<BlockBlobItem> uploaded;
+        try {
+            uploaded = blobClient.uploadWithResponse(options, null, Context.NONE);
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() != 409 && e.getStatusCode() != 412) {
+                throw e;
+            }
+            logger.info("Resource {} is already stored, reusing it for {}", blobName, filename);
+            return registerExisting(blobClient, digest, file.getContentType(), file.getSize());
+        }
+
+        String url = register(blobName, digest, file.getContentType(), file.getSize(), uploaded.getValue().getETag());
+        logger.info("Stored resource {} ({} bytes) for {}", blobName, file.getSize(), filename);
+        return url;
+    }
 
-        // Return URL
-        return courseResourcesContainerClient.getBlobClient(filename).getBlobUrl();
+    // Another request uploaded the same content first, or the blob outlived its record
+    private String registerExisting(BlobClient blobClient, String digest, String contentType, long size)
+            throws IOException {
+        Optional<String> existingUrl = acquireExisting(digest);
+        if (existingUrl.isPresent()) {
+            return existingUrl.get();
+        }
+        String etag = blobClient.getProperties().getETag();
+        // It may have been queued for deletion when its last reference went
+        blobGarbageCollector.cancelDeletion(courseResourcesContainerClient, blobClient.getBlobName());
+        return register(blobClient.getBlobName(), digest, contentType, size, etag);
+    }
+
+    /**
+     * Takes a reference to already stored content with the given SHA-256, if any,
+     * and returns its URL.
+     */
+    public Optional<String> acquireExisting(String sha256) {
+        Optional<ResourceBlob> existing = resourceBlobRepository.findBySha256(sha256);
+        if (existing.isPresent() && resourceBlobRepository.incrementRefCount(existing.get().getBlobName()) > 0) {
+            return Optional.of(courseResourcesContainerClient.getBlobClient(existing.get().getBlobName()).getBlobUrl());
+        }
+        return Optional.empty();
     }
 
     /**
-     * Deletes a PDF from Azure Blob Storage
+     * Records a newly written blob with one reference and returns its URL.
+     */
+    public String register(String blobName, String sha256, String contentType, long size, String etag)
+            throws IOException {
+        try {
+            resourceBlobRepository.saveAndFlush(new ResourceBlob(blobName, sha256, contentType, size, etag));
+        } catch (DataIntegrityViolationException e) {
+            // Another request stored the same content concurrently; share its blob
+            if (resourceBlobRepository.incrementRefCount(blobName) == 0) {
+                throw new IOException("Failed to register resource " + blobName, e);
+            }
+        }
+        return courseResourcesContainerClient.getBlobClient(blobName).getBlobUrl();
+    }
+
+    /**
+     * Blob name for content with the given digest, keeping the file's extension
+     */
+    public String contentAddressedName(String sha256, String filename) {
+        return sha256 + getFileExtension(filename);
+    }
+
+    /**
+     * Blob name for a chunked upload, which isn't content-addressed: its content is only
+     * verified after it has been committed
+     */
+    public String uploadBlobName(String uploadId, String filename) {
+        return uploadId + getFileExtension(filename);
+    }
+
+    /**
+     * Offers a blob registered without a digest to later uploads of the same content,
+     * once its content has been verified. Returns false if another blob already holds that
+     * content or the blob is no longer registered.
+     */
+    public boolean markVerified(String blobName, String sha256) {
+        try {
+            return resourceBlobRepository.setSha256(blobName, sha256) > 0;
+        } catch (DataIntegrityViolationException e) {
+            // The same content was stored under another name in the meantime
+            return false;
+        }
+    }
+
+    /**
+     * Drops one reference to the resource at the given URL and queues the blob for
+     * deletion once no course uses it.
+     */
+    public void releaseResource(String resourceUrl) {
+        String blobName = extractFilenameFromUrl(resourceUrl);
+        if (blobName == null || blobName.isEmpty()) return;
+
+        Optional<ResourceBlob> resourceBlob = resourceBlobRepository.findById(blobName);
+        if (resourceBlob.isEmpty()) {
+            // Uploaded before content addressing: only delete when no course points at it
+            if (!courseRepository.existsByResourceUrl(resourceUrl)) {
+                deleteResource(blobName);
+            }
+            return;
+        }
+
+        resourceBlobRepository.decrementRefCount(blobName);
+        if (resourceBlobRepository.deleteIfUnreferenced(blobName) > 0) {
+            // Conditional on the ETag so a concurrent re-upload of the same content survives
+            blobGarbageCollector.scheduleDeletion(courseResourcesContainerClient, blobName, resourceBlob.get().getEtag());
+            logger.info("Queued unreferenced resource {} for deletion", blobName);
+        }
+    }
+
+    /**
+     * Queues a PDF for deletion from Azure Blob Storage
      */
     public boolean deleteResource(String filename) {
         if (filename == null || filename.isEmpty()) return false;
-        return courseResourcesContainerClient.getBlobClient(filename).deleteIfExists();
+        blobGarbageCollector.scheduleDeletion(courseResourcesContainerClient, filename, null);
+        return true;
     }
 
     /**
@@ -55,11 +213,62 @@ public class ResourceStorageService {
         return url.substring(url.lastIndexOf("/") + 1);
     }
 
-    public byte[] downloadResource(String resourceUrl) throws IOException {
-        URL url = new URL(resourceUrl);
-        try (InputStream in = url.openStream()) {
-            return in.readAllBytes();
+    /**
+     * Opens a PDF for download from the local {@link ResourceCache}, fetching it through
+     * the storage client (authenticated and traced) when it isn't cached or has changed.
+     * Anything but a missing blob is reported as {@link StorageUnavailableException}
+     */
+    public ResourceCache.Content openResource(String resourceUrl) throws IOException {
+        String blobName = extractFilenameFromUrl(resourceUrl);
+        if (blobName == null || blobName.isEmpty()) {
+            throw new IOException("Invalid resource URL");
+        }
+        return resourceCache.open(blobName, (ifNoneMatch, target) -> fetch(blobName, ifNoneMatch, target));
+    }
+
+    private String fetch(String blobName, String ifNoneMatch, Path target) throws IOException {
+        BlobRequestConditions conditions = ifNoneMatch == null
+                ? null : new BlobRequestConditions().setIfNoneMatch(ifNoneMatch);
+        try (OutputStream out = Files.newOutputStream(target)) {
+            try {
+                BlobDownloadResponse response = courseResourcesContainerClient.getBlobClient(blobName)
+                        .downloadStreamWithResponse(out, null, null, conditions, false, null, Context.NONE);
+                return response.getDeserializedHeaders().getETag();
+            } catch (BlobStorageException e) {
+                if (e.getStatusCode() == 304) {
+                    return null;
+                }
+                if (e.getStatusCode() == 404) {
+                    throw new IOException("Resource " + blobName + " not found", e);
+                }
+                throw new StorageUnavailableException("Failed to download resource " + blobName, e);
+            } catch (Exception e) {
+                throw new StorageUnavailableException("Failed to download resource " + blobName, e);
+            }
+        }
+    }
+
+    private String sha256(MultipartFile file) throws IOException {
+        return sha256(file.getInputStream());
+    }
+
+    /**
+     * Hex SHA-256 of everything left in the stream; closes the stream
+     */
+    static String sha256(InputStream stream) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(stream, MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String getFileExtension(String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return "";
         }
+        return filename.substring(filename.lastIndexOf(".")).toLowerCase();
     }
 
 }
@@ -0,0 +1,295 @@
+package com.brightpath.backend.service;
+
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.Context;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.Block;
+import com.azure.storage.blob.models.BlockBlobItem;
+import com.azure.storage.blob.models.BlockListType;
+import com.azure.storage.blob.models.BlobHttpHeaders;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import com.brightpath.backend.config.BlobContainerInitializer;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.ResourceUploadSession;
+import com.brightpath.backend.repository.ResourceUploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunked, resumable uploads of course resources (init / put-chunk / commit).
+ * Each chunk is staged as a block of the target block blob as soon as it arrives, so
+ * clients can send chunks in parallel, a request only ever holds its own chunk, and
+ * an interrupted upload resumes by re-sending the chunks reported as missing.
+ *
+ * <p>The target blob belongs to the session, so concurrent uploads of the same content
+ * never touch each other's blocks. Committing attaches it straight away; the declared
+ * SHA-256 is checked afterwards by {@link #verifyCommittedUploads}, and only then can
+ * later uploads of the same content reuse the blob.
+ */
+@Service
+public class ResourceUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceUploadService.class);
+
+    @Autowired
+    private BlobContainerClient courseResourcesContainerClient;
+
+    @Autowired
+    private BlobContainerInitializer containerInitializer;
+
+    @Autowired
+    private ResourceUploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private ResourceStorageService resourceStorageService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Value("${app.resources.chunk-size-bytes:4194304}")
+    private int chunkSize;
+
+    @Value("${app.resources.max-upload-bytes:1073741824}")
+    private long maxUploadBytes;
+
+    private static final int VERIFY_BATCH_SIZE = 20;
+
+    @Value("${app.resources.upload-session-ttl-hours:24}")
+    private long sessionTtlHours;
+
+    /**
+     * Start an upload. If content with the same SHA-256 is already stored, it is attached
+     * to the course straight away and the returned session is empty.
+     */
+    public Optional<ResourceUploadSession> init(Long courseId, String filename, String contentType,
+                                                long totalSize, String sha256) throws IOException {
+        if (filename == null || filename.isBlank()) {
+            throw new IOException("Invalid file name");
+        }
+        if (totalSize <= 0 || totalSize > maxUploadBytes) {
+            throw new IOException("File size must be between 1 and " + maxUploadBytes + " bytes");
+        }
+        if (sha256 == null || !sha256.matches("[0-9a-fA-F]{64}")) {
+            throw new IOException("A hex SHA-256 of the file is required");
+        }
+        String digest = sha256.toLowerCase();
+        courseService.findById(courseId).orElseThrow(() -> new RuntimeException("Course not found"));
+
+        Optional<String> existingUrl = resourceStorageService.acquireExisting(digest);
+        if (existingUrl.isPresent()) {
+            attachToCourse(courseId, existingUrl.get());
+            logger.info("Chunked upload of {} for course {} matched stored content", filename, courseId);
+            return Optional.empty();
+        }
+
+        ResourceUploadSession session = new ResourceUploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setCourseId(courseId);
+        session.setBlobName(resourceStorageService.uploadBlobName(session.getId(), filename));
+        session.setSha256(digest);
+        session.setFilename(filename);
+        session.setContentType(contentType);
+        session.setTotalSize(totalSize);
+        session.setChunkSize(chunkSize);
+        containerInitializer.ensureCreated(courseResourcesContainerClient);
+        return Optional.of(uploadSessionRepository.save(session));
+    }
+
+    /**
+     * Stage one chunk. Re-sending a chunk replaces it, so retries are safe.
+     */
+    public void putChunk(Long courseId, String uploadId, int index, InputStream body) throws IOException {
+        ResourceUploadSession session = getSession(courseId, uploadId);
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw new IOException("Chunk index out of range: " + index);
+        }
+
+        long expected = session.getChunkLength(index);
+        byte[] chunk = body.readNBytes((int) expected);
+        if (chunk.length != expected || body.read() != -1) {
+            throw new IOException("Chunk " + index + " must be exactly " + expected + " bytes");
+        }
+
+        blockBlobClient(session).stageBlock(blockId(session, index), new ByteArrayInputStream(chunk), chunk.length);
+    }
+
+    /**
+     * Indexes of chunks not yet staged, for resuming an interrupted upload
+     */
+    public List<Integer> getMissingChunks(Long courseId, String uploadId) throws IOException {
+        return getMissingChunks(getSession(courseId, uploadId));
+    }
+
+    private List<Integer> getMissingChunks(ResourceUploadSession session) {
+        Set<String> staged = stagedBlockIds(session);
+
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < session.getChunkCount(); i++) {
+            if (!staged.contains(blockId(session, i))) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Commit the staged chunks in order and attach the resource to the course. Returns the
+     * resource URL; the content is verified against the declared SHA-256 later.
+     */
+    public String commit(Long courseId, String uploadId) throws IOException {
+        ResourceUploadSession session = getSession(courseId, uploadId);
+        if (!getMissingChunks(session).isEmpty()) {
+            throw new IOException("Upload is incomplete");
+        }
+
+        List<String> blockIds = new ArrayList<>();
+        for (int i = 0; i < session.getChunkCount(); i++) {
+            blockIds.add(blockId(session, i));
+        }
+
+        // A committed blob is never replaced, not even by a repeated commit of this session
+        BlockBlobCommitBlockListOptions options = new BlockBlobCommitBlockListOptions(blockIds)
+                .setHeaders(new BlobHttpHeaders().setContentType(session.getContentType()))
+                .setRequestConditions(new BlobRequestConditions().setIfNoneMatch("*"));
+        Response<BlockBlobItem> committed;
+        try {
+            committed = blockBlobClient(session).commitBlockListWithResponse(options, null, Context.NONE);
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == 409 || e.getStatusCode() == 412) {
+                throw new IOException("Upload was already committed", e);
+            }
+            throw e;
+        }
+
+        // Registered without a digest, so nothing reuses the blob until it is verified
+        String url = resourceStorageService.register(session.getBlobName(), null,
+                session.getContentType(), session.getTotalSize(), committed.getValue().getETag());
+        attachToCourse(session.getCourseId(), url);
+        session.setCommittedAt(new Date());
+        uploadSessionRepository.save(session);
+
+        logger.info("Committed chunked upload {} ({} bytes in {} chunks) for course {}", uploadId,
+                session.getTotalSize(), session.getChunkCount(), session.getCourseId());
+        return url;
+    }
+
+    /**
+     * Check committed uploads against their declared SHA-256 in the background, so large
+     * files aren't read back on the request thread. Blobs that match are offered to later
+     * uploads of the same content; the others stay attached but are never shared.
+     */
+    @Scheduled(fixedDelayString = "${app.resources.verify-interval-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void verifyCommittedUploads() {
+        List<ResourceUploadSession> committed = uploadSessionRepository
+                .findByCommittedAtNotNullOrderByCommittedAtAsc(PageRequest.of(0, VERIFY_BATCH_SIZE));
+        for (ResourceUploadSession session : committed) {
+            try {
+                verify(session);
+            } catch (IOException | RuntimeException e) {
+                if (StorageUnavailableException.isUnavailable(e)) {
+                    // The rest of the batch would fail the same way
+                    logger.warn("Storage unavailable, verifying chunked uploads next run: {}", e.getMessage());
+                    return;
+                }
+                // Retried on the next run, until the session expires
+                logger.warn("Could not verify chunked upload {}: {}", session.getId(), e.getMessage());
+                continue;
+            }
+            uploadSessionRepository.delete(session);
+        }
+    }
+
+    private void verify(ResourceUploadSession session) throws IOException {
+        String actual;
+        try {
+            actual = ResourceStorageService.sha256(blockBlobClient(session).openInputStream());
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() == 404) {
+                // Already replaced on the course and deleted
+                return;
+            }
+            throw e;
+        }
+
+        if (!actual.equals(session.getSha256())) {
+            logger.warn("Chunked upload {} does not match its declared SHA-256; {} is not shared",
+                    session.getId(), session.getBlobName());
+        } else if (resourceStorageService.markVerified(session.getBlobName(), actual)) {
+            logger.info("Verified chunked upload {} as {}", session.getId(), actual);
+        }
+    }
+
+    /**
+     * Forget abandoned sessions; Azure discards their uncommitted blocks on its own
+     */
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void removeExpiredSessions() {
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(sessionTtlHours));
+        int removed = uploadSessionRepository.deleteByCreatedAtBefore(cutoff);
+        if (removed > 0) {
+            logger.info("Removed {} expired resource upload sessions", removed);
+        }
+    }
+
+    private void attachToCourse(Long courseId, String resourceUrl) {
+        Course course = courseService.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
+        String oldResourceUrl = course.getResourceUrl();
+        courseService.updateCourseResource(courseId, resourceUrl);
+        if (oldResourceUrl != null && !oldResourceUrl.isEmpty()) {
+            resourceStorageService.releaseResource(oldResourceUrl);
+        }
+    }
+
+    private ResourceUploadSession getSession(Long courseId, String uploadId) throws IOException {
+        return uploadSessionRepository.findById(uploadId)
+                .filter(session -> session.getCourseId().equals(courseId) && session.getCommittedAt() == null)
+                .orElseThrow(() -> new IOException("Upload not found or expired: " + uploadId));
+    }
+
+    private Set<String> stagedBlockIds(ResourceUploadSession session) {
+        Set<String> staged = new HashSet<>();
+        try {
+            for (Block block : blockBlobClient(session).listBlocks(BlockListType.UNCOMMITTED).getUncommittedBlocks()) {
+                staged.add(block.getName());
+            }
+        } catch (BlobStorageException e) {
+            if (e.getStatusCode() != 404) {
+                throw e;
+            }
+        }
+        return staged;
+    }
+
+    private BlockBlobClient blockBlobClient(ResourceUploadSession session) {
+        return courseResourcesContainerClient.getBlobClient(session.getBlobName()).getBlockBlobClient();
+    }
+
+    // Block ids must all have the same length within a blob
+    private String blockId(ResourceUploadSession session, int index) {
+        String id = String.format("%s-%06d", session.getId(), index);
+        return Base64.getEncoder().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,195 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.model.CourseRevenue;
+import com.brightpath.backend.model.RevenuePeriod;
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.repository.CourseRepository.CoursePrice;
+import com.brightpath.backend.repository.CourseRevenueRepository;
+import com.brightpath.backend.repository.CourseRevenueRepository.CourseNet;
+import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.repository.EnrollmentRepository.EnrollmentFacts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Revenue per course per UTC day and per month, kept in course_revenue so reports read a
+ * few rollup rows instead of scanning enrollments. {@link EnrollmentService} records the
+ * amount charged on each enrollment and adds it here in the same transaction; refunds on
+ * unenrollment subtract exactly what was charged, whatever the course costs by then.
+ *
+ * <p>Enrollments from before amounts were recorded are priced at the course's current
+ * price by {@link #backfill()}. Each batch finds unpriced rows through an index on
+ * (amount_paid, id), so once everything is priced a run reads nothing. It then locks
+ * those rows, sets their amount and adds them to the rollups in one transaction, so the
+ * job can stop at any point and pick up where it left off, and concurrent unenrollments
+ * are counted exactly once. Enrollments removed
+ * along with a user or course are not refunds and leave the rollups as they are.
+ */
+@Service
+public class RevenueRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevenueRollupService.class);
+
+    @Autowired
+    private CourseRevenueRepository courseRevenueRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.revenue.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    /**
+     * What an enrollment in a course at the given price is charged, to the cent
+     */
+    public static BigDecimal amountFor(double price) {
+        return BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Called by EnrollmentService inside its write transaction
+    void recordEnrollment(Long courseId, Date enrolledAt, BigDecimal amount) {
+        add(courseId, day(enrolledAt), 1, 0, amount, BigDecimal.ZERO);
+    }
+
+    // Called by EnrollmentService inside its write transaction
+    void recordRefund(Long courseId, Date refundedAt, BigDecimal amount) {
+        add(courseId, day(refundedAt), 0, 1, BigDecimal.ZERO, amount);
+    }
+
+    private void add(Long courseId, LocalDate day, long enrollments, long refunds,
+                     BigDecimal gross, BigDecimal refunded) {
+        courseRevenueRepository.add(courseId, day, RevenuePeriod.MONTH.startOf(day),
+                enrollments, refunds, gross, refunded);
+    }
+
+    /**
+     * Rollup rows for periods starting between {@code from} and {@code to} inclusive,
+     * oldest first, for one course or all (courseId null)
+     */
+    @Transactional(readOnly = true)
+    public List<CourseRevenue> report(RevenuePeriod period, LocalDate from, LocalDate to, Long courseId) {
+        LocalDate first = period.startOf(from);
+        if (courseId != null) {
+            return courseRevenueRepository.findByPeriodAndCourseIdAndPeriodStartBetweenOrderByPeriodStartAsc(
+                    period, courseId, first, to);
+        }
+        return courseRevenueRepository.findByPeriodAndPeriodStartBetweenOrderByPeriodStartAscCourseIdAsc(
+                period, first, to);
+    }
+
+    /**
+     * Net revenue (charged minus refunded) per course over all time; courses without any
+     * are left out
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> netByCourse() {
+        return courseRevenueRepository.findNetByCourse().stream()
+                .collect(Collectors.toMap(CourseNet::getCourseId, CourseNet::getNet));
+    }
+
+    // Off the startup path; reports leave out unpriced enrollments until it gets to them
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialBackfill() {
+        backfill();
+    }
+
+    /**
+     * Prices enrollments that have no amount paid yet and adds them to the rollups, one
+     * batch per transaction; returns how many were added
+     */
+    @Scheduled(fixedDelayString = "${app.revenue.backfill-minutes:360}",
+            initialDelayString = "${app.revenue.backfill-minutes:360}", timeUnit = TimeUnit.MINUTES)
+    public long backfill() {
+        long started = System.currentTimeMillis();
+        long total = 0;
+        try {
+            Map<Long, BigDecimal> prices = courseRepository.findAllPrices().stream()
+                    .collect(Collectors.toMap(CoursePrice::getId, price -> amountFor(price.getPrice())));
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            long afterId = 0;
+            while (true) {
+                long from = afterId;
+                BackfillBatch batch = transaction.execute(status -> backfillBatch(from, prices));
+                total += batch.priced();
+                if (batch.lastId() == null) {
+                    break;
+                }
+                afterId = batch.lastId();
+            }
+            if (total > 0) {
+                logger.info("Added {} earlier enrollments to the revenue rollups in {} ms", total,
+                        System.currentTimeMillis() - started);
+            }
+        } catch (Exception e) {
+            logger.error("Revenue backfill stopped after {} enrollments: {}", total, e.getMessage());
+        }
+        return total;
+    }
+
+    private record BackfillBatch(Long lastId, int priced) {}
+
+    private BackfillBatch backfillBatch(long afterId, Map<Long, BigDecimal> prices) {
+        // Found without locks, so only the rows being priced are locked, not every row scanned
+        List<Long> candidates = enrollmentRepository.findUnpricedIdsAfter(afterId,
+                PageRequest.of(0, backfillBatchSize));
+        if (candidates.isEmpty()) {
+            return new BackfillBatch(null, 0);
+        }
+        // Unenrolled or priced since they were found are left out
+        List<EnrollmentFacts> batch = enrollmentRepository.lockUnpriced(candidates);
+
+        Map<Long, List<Long>> idsByCourse = new HashMap<>();
+        Map<Long, Map<LocalDate, Long>> enrollmentsByCourseAndDay = new HashMap<>();
+        for (EnrollmentFacts enrollment : batch) {
+            Long courseId = enrollment.getCourseId();
+            idsByCourse.computeIfAbsent(courseId, id -> new ArrayList<>()).add(enrollment.getId());
+            enrollmentsByCourseAndDay.computeIfAbsent(courseId, id -> new HashMap<>())
+                    .merge(day(enrollment.getEnrollmentDate()), 1L, Long::sum);
+        }
+
+        idsByCourse.forEach((courseId, ids) -> {
+            // Courses created after the prices were read are looked up on their own
+            BigDecimal amount = prices.computeIfAbsent(courseId, id ->
+                    amountFor(courseRepository.findById(id).orElseThrow().getPrice()));
+            // The rows are locked, so every one of them is still unpriced
+            enrollmentRepository.setAmountPaid(ids, amount);
+            enrollmentsByCourseAndDay.get(courseId).forEach((day, count) ->
+                    add(courseId, day, count, 0, amount.multiply(BigDecimal.valueOf(count)), BigDecimal.ZERO));
+        });
+        return new BackfillBatch(candidates.get(candidates.size() - 1), batch.size());
+    }
+
+    private static LocalDate day(Date date) {
+        return LocalDate.ofInstant(date.toInstant(), ZoneOffset.UTC);
+    }
+}
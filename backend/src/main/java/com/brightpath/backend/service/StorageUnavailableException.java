@@ -0,0 +1,40 @@
+package com.brightpath.backend.service;
+
+import com.azure.core.exception.HttpResponseException;
+import com.brightpath.backend.config.BlobCallRejectedException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Blob storage could not be reached or refused the call (circuit open, bulkhead full,
+ * timeouts, server errors), as opposed to a problem with the request itself. Callers can
+ * degrade instead of failing, e.g. by queuing the work for later.
+ */
+public class StorageUnavailableException extends IOException {
+
+    public StorageUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    /**
+     * Whether a failed blob call means storage is unavailable: the call was rejected by the
+     * resilience policy, timed out or couldn't connect, or was answered with 408, 429 or a
+     * server error. Anything else, such as a 403 or a 409, is a problem with the call.
+     */
+    public static boolean isUnavailable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BlobCallRejectedException || cause instanceof TimeoutException
+                    || cause instanceof InterruptedIOException || cause instanceof ConnectException) {
+                return true;
+            }
+            if (cause instanceof HttpResponseException e && e.getResponse() != null) {
+                int status = e.getResponse().getStatusCode();
+                return status == 408 || status == 429 || status >= 500;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,352 @@
+package com.brightpath.backend.service;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.brightpath.backend.config.BlobContainerInitializer;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.UploadCompletion;
+import com.brightpath.backend.model.User;
+import com.brightpath.backend.repository.UploadCompletionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Direct-to-storage uploads: the client gets a short-lived, create-only SAS URL, PUTs the
+ * file straight to Azure, then calls back with the signed intent token. Only then is the
+ * blob checked and attached to the course or user, so no file bytes pass through the JVM.
+ * Each token completes its upload once; the blob can't be rewritten after that.
+ */
+@Service
+public class UploadIntentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadIntentService.class);
+
+    private static final List<String> IMAGE_CONTENT_TYPES = List.of("image/jpeg", "image/png", "image/gif", "image/bmp");
+    private static final long MAX_IMAGE_SIZE = 2 * 1024 * 1024; // Same 2MB limit as multipart uploads
+    private static final Map<String, String> RESOURCE_EXTENSIONS = Map.of(
+            "application/pdf", ".pdf",
+            "video/mp4", ".mp4",
+            "video/webm", ".webm",
+            "video/ogg", ".ogv",
+            "video/quicktime", ".mov",
+            "video/mpeg", ".mpeg",
+            "video/x-msvideo", ".avi",
+            "video/x-matroska", ".mkv");
+
+    public enum Target {
+        COURSE_IMAGE, PROFILE_IMAGE, COURSE_RESOURCE
+    }
+
+    private final BlobContainerClient profileImagesContainerClient;
+    private final BlobContainerClient courseImagesContainerClient;
+    private final BlobContainerClient courseResourcesContainerClient;
+    private final BlobContainerInitializer containerInitializer;
+    private final AzureBlobService azureBlobService;
+    private final ImageStorageService imageStorageService;
+    private final ResourceStorageService resourceStorageService;
+    private final CourseService courseService;
+    private final UserService userService;
+    private final UploadCompletionRepository uploadCompletionRepository;
+
+    @Value("${app.uploads.intent-secret}")
+    private String intentSecret;
+
+    @Value("${app.uploads.sas-expiry-minutes:10}")
+    private int sasExpiryMinutes;
+
+    @Value("${app.resources.max-upload-bytes:1073741824}")
+    private long maxResourceSize;
+
+    public UploadIntentService(
+            @Qualifier("profileImagesContainerClient") BlobContainerClient profileImagesContainerClient,
+            @Qualifier("courseImagesContainerClient") BlobContainerClient courseImagesContainerClient,
+            @Qualifier("courseResourcesContainerClient") BlobContainerClient courseResourcesContainerClient,
+            BlobContainerInitializer containerInitializer,
+            AzureBlobService azureBlobService,
+            ImageStorageService imageStorageService,
+            ResourceStorageService resourceStorageService,
+            CourseService courseService,
+            UserService userService,
+            UploadCompletionRepository uploadCompletionRepository) {
+        this.profileImagesContainerClient = profileImagesContainerClient;
+        this.courseImagesContainerClient = courseImagesContainerClient;
+        this.courseResourcesContainerClient = courseResourcesContainerClient;
+        this.containerInitializer = containerInitializer;
+        this.azureBlobService = azureBlobService;
+        this.imageStorageService = imageStorageService;
+        this.resourceStorageService = resourceStorageService;
+        this.courseService = courseService;
+        this.userService = userService;
+        this.uploadCompletionRepository = uploadCompletionRepository;
+    }
+
+    /**
+     * Issue an upload intent: a blob name, a create-only SAS URL for it and a signed token
+     * to present on completion. The blob's extension follows the validated content type;
+     * the client's filename plays no part in it.
+     */
+    public Map<String, Object> createIntent(Target target, Long ownerId, String contentType, long size)
+            throws IOException {
+        checkOwnerExists(target, ownerId);
+        validate(target, contentType, size);
+        containerInitializer.ensureCreated(containerFor(target));
+
+        String blobName = blobPrefix(target) + "_" + UUID.randomUUID() + extensionFor(target, contentType);
+        long expiresAt = System.currentTimeMillis() + sasExpiryMinutes * 60_000L;
+        String uploadUrl = azureBlobService.generateUploadSasUrl(containerFor(target), blobName, sasExpiryMinutes);
+
+        Map<String, Object> intent = new HashMap<>();
+        intent.put("uploadUrl", uploadUrl);
+        intent.put("blobName", blobName);
+        intent.put("expiresAt", expiresAt);
+        intent.put("token", sign(target + "|" + ownerId + "|" + blobName + "|" + expiresAt));
+        intent.put("headers", Map.of("x-ms-blob-type", "BlockBlob", "Content-Type", contentType));
+        return intent;
+    }
+
+    /**
+     * Verify the uploaded blob named by the token and attach it to its course or user.
+     * Returns the blob URL. A blob that fails validation is deleted. Presenting the token
+     * again returns the same URL without attaching anything.
+     */
+    public String complete(String token) throws IOException {
+        String[] parts = verify(token).split("\\|", -1);
+        if (parts.length != 4) {
+            throw new IOException("Invalid upload token");
+        }
+        Target target = Target.valueOf(parts[0]);
+        Long ownerId = Long.valueOf(parts[1]);
+        String blobName = parts[2];
+
+        BlobClient blobClient = containerFor(target).getBlobClient(blobName);
+        if (!claim(blobName)) {
+            boolean attached = uploadCompletionRepository.findById(blobName)
+                    .map(completion -> completion.getAttachedAt() != null)
+                    .orElse(false);
+            if (attached) {
+                return blobClient.getBlobUrl();
+            }
+            throw new IOException("This upload is already being completed or was rejected");
+        }
+
+        BlobProperties properties;
+        try {
+            properties = blobClient.getProperties();
+        } catch (BlobStorageException e) {
+            // Not uploaded yet, so the token may be presented again once it is
+            uploadCompletionRepository.deleteById(blobName);
+            if (e.getStatusCode() == 404) {
+                throw new IOException("Nothing was uploaded for this intent");
+            }
+            throw e;
+        }
+
+        try {
+            validate(target, properties.getContentType(), properties.getBlobSize());
+            if (target != Target.COURSE_RESOURCE) {
+                checkImageSignature(blobClient, properties.getContentType());
+            }
+        } catch (IOException e) {
+            blobClient.deleteIfExists();
+            throw e;
+        }
+
+        String url = blobClient.getBlobUrl();
+        try {
+            attach(target, ownerId, blobName, url, properties);
+        } catch (IOException | RuntimeException e) {
+            uploadCompletionRepository.deleteById(blobName);
+            throw e;
+        }
+        uploadCompletionRepository.markAttached(blobName, new Date());
+        logger.info("Attached direct upload {} ({} bytes) to {} {}", blobName, properties.getBlobSize(), target, ownerId);
+        return url;
+    }
+
+    /**
+     * Forget completions whose tokens have expired and can't be presented again
+     */
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void removeExpiredCompletions() {
+        Date cutoff = new Date(System.currentTimeMillis() - 2 * sasExpiryMinutes * 60_000L);
+        int removed = uploadCompletionRepository.deleteByCreatedAtBefore(cutoff);
+        if (removed > 0) {
+            logger.info("Removed {} expired upload completions", removed);
+        }
+    }
+
+    // Only the first completion of an intent gets to attach its blob
+    private boolean claim(String blobName) {
+        try {
+            uploadCompletionRepository.saveAndFlush(new UploadCompletion(blobName));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void attach(Target target, Long ownerId, String blobName, String url, BlobProperties properties)
+            throws IOException {
+        switch (target) {
+            case COURSE_IMAGE -> {
+                Course course = courseService.findById(ownerId)
+                        .orElseThrow(() -> new RuntimeException("Course not found"));
+                String oldFilename = imageStorageService.extractFilenameFromUrl(course.getImageUrl());
+                course.setImageUrl(url);
+                courseService.saveCourse(course);
+                if (oldFilename != null && !oldFilename.equals(blobName)) {
+                    imageStorageService.deleteCourseImage(oldFilename);
+                }
+            }
+            case PROFILE_IMAGE -> {
+                User user = userService.findById(ownerId)
+                        .orElseThrow(() -> new RuntimeException("User not found"));
+                String oldFilename = imageStorageService.extractFilenameFromUrl(user.getProfileImageUrl());
+                user.setProfileImageUrl(url);
+                userService.save(user);
+                if (oldFilename != null && !oldFilename.equals(blobName)) {
+                    imageStorageService.deleteProfileImage(oldFilename);
+                }
+            }
+            case COURSE_RESOURCE -> {
+                Course course = courseService.findById(ownerId)
+                        .orElseThrow(() -> new RuntimeException("Course not found"));
+                String oldResourceUrl = course.getResourceUrl();
+                // Not content-addressed: the server never saw the bytes to hash them
+                resourceStorageService.register(blobName, null, properties.getContentType(),
+                        properties.getBlobSize(), properties.getETag());
+                courseService.updateCourseResource(ownerId, url);
+                if (oldResourceUrl != null && !oldResourceUrl.isEmpty() && !oldResourceUrl.equals(url)) {
+                    resourceStorageService.releaseResource(oldResourceUrl);
+                }
+            }
+        }
+    }
+
+    private void validate(Target target, String contentType, long size) throws IOException {
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (target == Target.COURSE_RESOURCE) {
+            if (size <= 0 || size > maxResourceSize) {
+                throw new IOException("File size must be between 1 and " + maxResourceSize + " bytes");
+            }
+            if (!type.equals("application/pdf") && !type.startsWith("video/")) {
+                throw new IOException("Course resources must be PDF or video files");
+            }
+        } else {
+            if (size <= 0 || size > MAX_IMAGE_SIZE) {
+                throw new IOException("File size exceeds maximum allowed size of 2MB");
+            }
+            if (!IMAGE_CONTENT_TYPES.contains(type)) {
+                throw new IOException("File type not allowed. Allowed types: " + IMAGE_CONTENT_TYPES);
+            }
+        }
+    }
+
+    // The client sets the content type itself, so compare it against the blob's first bytes
+    private void checkImageSignature(BlobClient blobClient, String contentType) throws IOException {
+        byte[] header = new byte[ImageFormat.SIGNATURE_LENGTH];
+        int length;
+        try (InputStream in = blobClient.openInputStream(new BlobRange(0, (long) header.length), null)) {
+            length = in.readNBytes(header, 0, header.length);
+        }
+        if (ImageFormat.sniff(header, length) != ImageFormat.forContentType(contentType)) {
+            throw new IOException("Uploaded file is not a " + contentType + " image");
+        }
+    }
+
+    private void checkOwnerExists(Target target, Long ownerId) {
+        boolean exists = target == Target.PROFILE_IMAGE
+                ? userService.findProfile(ownerId).isPresent()
+                : courseService.findById(ownerId).isPresent();
+        if (!exists) {
+            throw new RuntimeException(target == Target.PROFILE_IMAGE ? "User not found" : "Course not found");
+        }
+    }
+
+    private BlobContainerClient containerFor(Target target) {
+        return switch (target) {
+            case COURSE_IMAGE -> courseImagesContainerClient;
+            case PROFILE_IMAGE -> profileImagesContainerClient;
+            case COURSE_RESOURCE -> courseResourcesContainerClient;
+        };
+    }
+
+    private String blobPrefix(Target target) {
+        return switch (target) {
+            case COURSE_IMAGE -> "course";
+            case PROFILE_IMAGE -> "profile";
+            case COURSE_RESOURCE -> "resource";
+        };
+    }
+
+    // Called after validate, so the content type is one of those accepted for the target
+    private String extensionFor(Target target, String contentType) {
+        String type = contentType.toLowerCase(Locale.ROOT);
+        if (target == Target.COURSE_RESOURCE) {
+            return RESOURCE_EXTENSIONS.getOrDefault(type, "");
+        }
+        return ImageFormat.forContentType(type).extension();
+    }
+
+    // Token = base64url(payload) + "." + base64url(HMAC-SHA256(payload))
+    private String sign(String payload) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + encoder.encodeToString(hmac(payload));
+    }
+
+    private String verify(String token) throws IOException {
+        if (token == null || token.isBlank()) {
+            throw new IOException("Upload token is required");
+        }
+        try {
+            String[] parts = token.split("\\.");
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            String payload = new String(decoder.decode(parts[0]), StandardCharsets.UTF_8);
+            if (parts.length != 2 || !MessageDigest.isEqual(hmac(payload), decoder.decode(parts[1]))) {
+                throw new IOException("Invalid upload token");
+            }
+            // Allow the full SAS lifetime again for the client to finish and call back
+            long expiresAt = Long.parseLong(payload.substring(payload.lastIndexOf('|') + 1));
+            if (System.currentTimeMillis() > expiresAt + sasExpiryMinutes * 60_000L) {
+                throw new IOException("Upload token expired");
+            }
+            return payload;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Invalid upload token");
+        }
+    }
+
+    private byte[] hmac(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(intentSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
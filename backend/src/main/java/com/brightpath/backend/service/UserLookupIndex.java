@@ -0,0 +1,155 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.cache.SharedCache;
+import com.brightpath.backend.repository.UserRepository;
+import com.brightpath.backend.repository.UserRepository.UserIdentity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bloom filters over all usernames and emails, so lookups for names that certainly do not
+ * exist (most of them during a signup campaign) skip the database. A positive answer only
+ * means "maybe"; the database, and its unique constraints, stay the source of truth.
+ *
+ * <p>Built from the users table in the background once the application is ready, so
+ * readiness doesn't wait for it, and rebuilt periodically.
+ * New users are added on save and broadcast to the other nodes. Until the first build
+ * completes every lookup goes to the database.
+ */
+@Service
+public class UserLookupIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLookupIndex.class);
+
+    private static final String CHANNEL = "user-index";
+    private static final int BATCH_SIZE = 1000;
+    private static final int MIN_CAPACITY = 10_000;
+
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+    }
+
+    private final UserRepository userRepository;
+    private final SharedCache sharedCache;
+    private final double falsePositiveRate;
+
+    private volatile Filters current;
+    private volatile Filters building;
+
+    public UserLookupIndex(UserRepository userRepository, SharedCache sharedCache,
+                           @Value("${app.users.lookup-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.sharedCache = sharedCache;
+        this.falsePositiveRate = falsePositiveRate;
+        sharedCache.subscribe(CHANNEL, this::onMessage);
+    }
+
+    /**
+     * False only if no user has this username.
+     */
+    public boolean mightContainUsername(String username) {
+        Filters filters = current;
+        return filters == null || username == null || filters.usernames().mightContain(normalize(username));
+    }
+
+    /**
+     * False only if no user has this email.
+     */
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        return filters == null || email == null || filters.emails().mightContain(normalize(email));
+    }
+
+    /**
+     * Records a saved user's username and email on this node and the others.
+     */
+    public void add(String username, String email) {
+        addLocal(username, email);
+        try {
+            sharedCache.publish(CHANNEL, username + "\n" + email);
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast new user to other nodes: {}", e.getMessage());
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialRebuild() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.lookup-index.rebuild-minutes:60}",
+            initialDelayString = "${app.users.lookup-index.rebuild-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        long capacity = Math.max(MIN_CAPACITY, userRepository.count() * 2);
+        Filters fresh = new Filters(new BloomFilter(capacity, falsePositiveRate),
+                new BloomFilter(capacity, falsePositiveRate));
+        // Users saved while the table is scanned go into both the old and the new filters
+        building = fresh;
+        try {
+            long afterId = 0;
+            int loaded = 0;
+            List<UserIdentity> batch;
+            do {
+                batch = userRepository.findIdentitiesAfter(afterId, PageRequest.of(0, BATCH_SIZE));
+                for (UserIdentity identity : batch) {
+                    add(fresh, identity.getUsername(), identity.getEmail());
+                    afterId = identity.getId();
+                }
+                loaded += batch.size();
+            } while (batch.size() == BATCH_SIZE);
+
+            current = fresh;
+            logger.info("Built user lookup index over {} users in {} ms", loaded, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            logger.error("Failed to build user lookup index: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    private void addLocal(String username, String email) {
+        Filters filters = current;
+        if (filters != null) {
+            add(filters, username, email);
+        }
+        Filters next = building;
+        if (next != null) {
+            add(next, username, email);
+        }
+    }
+
+    private void add(Filters filters, String username, String email) {
+        if (username != null) {
+            filters.usernames().add(normalize(username));
+        }
+        if (email != null) {
+            filters.emails().add(normalize(email));
+        }
+    }
+
+    private void onMessage(String message) {
+        int separator = message.indexOf('\n');
+        if (separator > 0) {
+            addLocal(message.substring(0, separator), message.substring(separator + 1));
+        }
+    }
+
+    // MySQL's default collation ignores case and accents, so the filter must too
+    private static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,10 +1,20 @@
 package com.brightpath.backend.service;
 
+import com.brightpath.backend.cache.BatchLookup;
+import com.brightpath.backend.config.CacheConfig;
+import com.brightpath.backend.dto.UserDto;
 import com.brightpath.backend.model.User;
 import com.brightpath.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -12,26 +22,76 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
-    // Modified findById method to return Optional<User> for consistency
+    @Autowired
+    private UserLookupIndex userLookupIndex;
+
+    // Absent when caching is off (e.g. JPA slice tests); batches then always query
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
+    // Modified findById method to return Optional<User> for consistency. Not cached: the
+    // shared cache only holds UserDto, which has no password, so anything that reads or
+    // saves the entity loads it here
+    @Transactional(readOnly = true)
     public Optional<User> findById(Long id) {
         return userRepository.findById(id);
     }
 
     // Keep the original method for backward compatibility if needed
+    @Transactional(readOnly = true)
     public User findByIdOrThrow(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    // The public profile, for reads and existence checks; this is what the cache holds
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public Optional<UserDto> findProfile(Long id) {
+        return userRepository.findById(id).map(UserDto::from);
+    }
+
+    // Multi-get for the batch endpoint; shares the cache entries of findProfile. Not
+    // transactional, so a fully cached batch never takes a connection
+    public List<UserDto> findAllById(Collection<Long> ids) {
+        Cache cache = cacheManager != null ? cacheManager.getCache(CacheConfig.USERS) : null;
+        return BatchLookup.load(cache, ids, UserDto.class,
+                missing -> userRepository.findAllById(missing).stream().map(UserDto::from).toList(), UserDto::id);
+    }
+
     // Existing methods
+    // Always asks the database: this is the login lookup, and a name added on another node
+    // (or not yet committed when it reached this node's filter) may be missing from the filter
     public Optional<User> findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
+    // Registration checks only. Not transactional: names the lookup index rules out never open
+    // a transaction or touch a connection, and a name the filter missed still hits the unique
+    // constraint when it's saved
+    public boolean isUsernameTaken(String username) {
+        if (!userLookupIndex.mightContainUsername(username)) {
+            return false;
+        }
+        return userRepository.existsByUsername(username);
+    }
+
+    public boolean existsByEmail(String email) {
+        if (!userLookupIndex.mightContainEmail(email)) {
+            return false;
+        }
+        return userRepository.existsByEmail(email);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#result.id")
+    @Transactional
     public User save(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userLookupIndex.add(saved.getUsername(), saved.getEmail());
+        return saved;
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> findByIdOptional(Long id) {
         return userRepository.findById(id);
     }
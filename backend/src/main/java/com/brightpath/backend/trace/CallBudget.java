@@ -0,0 +1,29 @@
+package com.brightpath.backend.trace;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Upper bounds on the work one call to a controller method may do. Requests that go over
+ * are logged as warnings, and the endpoint budget tests fail on them.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CallBudget {
+
+    /** For limits that grow with the data, such as entities in a list response */
+    int UNLIMITED = -1;
+
+    /** JDBC statements */
+    int sql();
+
+    /** Entities loaded or hydrated, including second-level cache hits */
+    int entityLoads();
+
+    /** Requests to blob storage */
+    int blobCalls() default 0;
+}
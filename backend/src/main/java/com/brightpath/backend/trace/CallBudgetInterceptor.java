@@ -0,0 +1,21 @@
+package com.brightpath.backend.trace;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Attaches the handler method's {@link CallBudget} to the request's trace.
+ */
+public class CallBudgetInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null && handler instanceof HandlerMethod handlerMethod) {
+            trace.setBudget(handlerMethod.getMethodAnnotation(CallBudget.class));
+        }
+        return true;
+    }
+}
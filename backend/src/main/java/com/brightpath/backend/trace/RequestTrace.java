@@ -0,0 +1,135 @@
+package com.brightpath.backend.trace;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements, entity loads and blob storage calls made while handling one
+ * HTTP request, and checks them against the handler's {@link CallBudget}.
+ *
+ * <p>When response headers are on, the counts so far are written as headers until the
+ * response is committed. Work done after that (e.g. lazy loading while the body is
+ * serialized) only shows up in the log line and the request attribute.
+ */
+public final class RequestTrace {
+
+    /** Request attribute holding the finished trace */
+    public static final String ATTRIBUTE = RequestTrace.class.getName();
+
+    public static final String SQL_HEADER = "X-Sql-Statements";
+    public static final String ENTITY_LOADS_HEADER = "X-Entity-Loads";
+    public static final String BLOB_CALLS_HEADER = "X-Blob-Calls";
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final HttpServletResponse response;
+    private final AtomicInteger sqlStatements = new AtomicInteger();
+    private final AtomicInteger entityLoads = new AtomicInteger();
+    private final AtomicInteger blobCalls = new AtomicInteger();
+    private volatile CallBudget budget;
+
+    private RequestTrace(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * Start tracing the current thread's request. Pass the response to get the counts
+     * as headers, or null for log only.
+     */
+    static RequestTrace begin(HttpServletResponse response) {
+        RequestTrace trace = new RequestTrace(response);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * The trace of the request being handled on this thread, or null
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    static void countSqlStatement() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.increment(trace.sqlStatements, SQL_HEADER);
+        }
+    }
+
+    static void countEntityLoad() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.increment(trace.entityLoads, ENTITY_LOADS_HEADER);
+        }
+    }
+
+    static void countBlobCall() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.increment(trace.blobCalls, BLOB_CALLS_HEADER);
+        }
+    }
+
+    private void increment(AtomicInteger counter, String header) {
+        int value = counter.incrementAndGet();
+        if (response != null && !response.isCommitted()) {
+            response.setIntHeader(header, value);
+        }
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements.get();
+    }
+
+    public int getEntityLoads() {
+        return entityLoads.get();
+    }
+
+    public int getBlobCalls() {
+        return blobCalls.get();
+    }
+
+    /**
+     * The budget declared on the handler, or null if it has none
+     */
+    public CallBudget getBudget() {
+        return budget;
+    }
+
+    void setBudget(CallBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * One entry per exceeded limit, e.g. "sql 5 > 3"; empty when within budget or when
+     * no budget is declared
+     */
+    public List<String> overBudget() {
+        List<String> exceeded = new ArrayList<>();
+        CallBudget declared = budget;
+        if (declared != null) {
+            check(exceeded, "sql", getSqlStatements(), declared.sql());
+            check(exceeded, "entityLoads", getEntityLoads(), declared.entityLoads());
+            check(exceeded, "blobCalls", getBlobCalls(), declared.blobCalls());
+        }
+        return exceeded;
+    }
+
+    private static void check(List<String> exceeded, String name, int actual, int limit) {
+        if (limit != CallBudget.UNLIMITED && actual > limit) {
+            exceeded.add(name + " " + actual + " > " + limit);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "sql=" + getSqlStatements() + " entityLoads=" + getEntityLoads() + " blobCalls=" + getBlobCalls();
+    }
+}
@@ -0,0 +1,50 @@
+package com.brightpath.backend.trace;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Traces each request with a {@link RequestTrace} and logs its counts when it finishes,
+ * as a warning if the handler's {@link CallBudget} was exceeded.
+ */
+public class RequestTraceFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTraceFilter.class);
+
+    private final boolean responseHeaders;
+
+    public RequestTraceFilter(boolean responseHeaders) {
+        this.responseHeaders = responseHeaders;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long started = System.currentTimeMillis();
+        RequestTrace trace = RequestTrace.begin(responseHeaders ? response : null);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTrace.end();
+            request.setAttribute(RequestTrace.ATTRIBUTE, trace);
+
+            long elapsed = System.currentTimeMillis() - started;
+            List<String> exceeded = trace.overBudget();
+            if (!exceeded.isEmpty()) {
+                logger.warn("{} {} over budget ({}): {} status={} ms={}", request.getMethod(), request.getRequestURI(),
+                        String.join(", ", exceeded), trace, response.getStatus(), elapsed);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("{} {} {} status={} ms={}", request.getMethod(), request.getRequestURI(),
+                        trace, response.getStatus(), elapsed);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+-- Direct uploads that have been completed, one row per intent (its blob name is unique), so
+-- a token can't be presented twice. Rows outlive the tokens only briefly and are pruned.
+CREATE TABLE upload_completions (
+    blob_name   VARCHAR(255) NOT NULL,
+    attached_at DATETIME(6),
+    created_at  DATETIME(6)  NOT NULL,
+    PRIMARY KEY (blob_name)
+);
+
+CREATE INDEX idx_upload_completions_created ON upload_completions (created_at);
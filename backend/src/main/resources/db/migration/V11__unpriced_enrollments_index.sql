@@ -0,0 +1,4 @@
+-- The revenue backfill looks for enrollments with no amount_paid in id order. Without this
+-- index every run scans (and under REPEATABLE READ locks) the whole table, even when
+-- everything has long been priced; with it, a run with nothing left to do reads nothing.
+CREATE INDEX idx_enrollments_unpriced ON enrollments (amount_paid, id);
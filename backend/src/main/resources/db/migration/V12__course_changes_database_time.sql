@@ -0,0 +1,3 @@
+-- Change times are taken from the database clock at insert instead of the application's,
+-- so they follow id order however the nodes' clocks drift
+ALTER TABLE course_changes ALTER COLUMN changed_at SET DEFAULT (CURRENT_TIMESTAMP(6));
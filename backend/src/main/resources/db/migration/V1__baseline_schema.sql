@@ -0,0 +1,34 @@
+-- Baseline schema, matching the tables Hibernate generated with ddl-auto=update.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate)
+-- so this script only runs against an empty schema.
+
+CREATE TABLE users (
+    id                BIGINT       NOT NULL AUTO_INCREMENT,
+    username          VARCHAR(255) NOT NULL,
+    email             VARCHAR(255) NOT NULL,
+    password          VARCHAR(255) NOT NULL,
+    profile_image_url VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE courses (
+    id           BIGINT        NOT NULL AUTO_INCREMENT,
+    name         VARCHAR(255)  NOT NULL,
+    description  VARCHAR(1000) NOT NULL,
+    start_date   DATE          NOT NULL,
+    price        DOUBLE        NOT NULL,
+    image_url    VARCHAR(255),
+    resource_url VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE enrollments (
+    id              BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id         BIGINT      NOT NULL,
+    course_id       BIGINT      NOT NULL,
+    enrollment_date DATETIME(6) NOT NULL,
+    progress        DOUBLE      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_enrollments_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_enrollments_course FOREIGN KEY (course_id) REFERENCES courses (id)
+);
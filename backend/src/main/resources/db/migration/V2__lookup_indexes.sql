@@ -0,0 +1,14 @@
+-- Explicit indexes for the repository lookups.
+-- Databases created by Hibernate keep their generated UK_* keys; these named
+-- indexes are what the queries are guaranteed to use from now on.
+
+-- UserRepository.findByUsername
+CREATE UNIQUE INDEX uk_users_username ON users (username);
+CREATE UNIQUE INDEX uk_users_email ON users (email);
+
+-- EnrollmentRepository: findByUserId, countByUserId, deleteByUserId,
+-- existsByUserIdAndCourseId, findByUserIdAndCourseId, deleteByUserIdAndCourseId
+CREATE INDEX idx_enrollments_user_course ON enrollments (user_id, course_id);
+
+-- EnrollmentRepository: findByCourseId, countByCourseId, deleteByCourseId
+CREATE INDEX idx_enrollments_course_user ON enrollments (course_id, user_id);
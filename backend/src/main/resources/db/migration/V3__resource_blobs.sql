@@ -0,0 +1,17 @@
+-- Content-addressed course resources: one blob per distinct file, shared by every
+-- course that uses it and deleted when the last reference goes away.
+CREATE TABLE resource_blobs (
+    blob_name    VARCHAR(255) NOT NULL,
+    sha256       CHAR(64),
+    content_type VARCHAR(255),
+    size_bytes   BIGINT       NOT NULL,
+    etag         VARCHAR(64),
+    ref_count    INT          NOT NULL,
+    created_at   DATETIME(6)  NOT NULL,
+    PRIMARY KEY (blob_name)
+);
+
+CREATE UNIQUE INDEX uk_resource_blobs_sha256 ON resource_blobs (sha256);
+
+-- CourseRepository.existsByResourceUrl (legacy, non content-addressed resources)
+CREATE INDEX idx_courses_resource_url ON courses (resource_url);
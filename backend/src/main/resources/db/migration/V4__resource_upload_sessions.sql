@@ -0,0 +1,16 @@
+-- In-progress chunked uploads of course resources. Staged blocks live in Azure;
+-- this only records what the client declared so uploads can be resumed and committed.
+CREATE TABLE resource_upload_sessions (
+    id           VARCHAR(36)  NOT NULL,
+    course_id    BIGINT       NOT NULL,
+    blob_name    VARCHAR(255) NOT NULL,
+    sha256       CHAR(64)     NOT NULL,
+    filename     VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255),
+    total_size   BIGINT       NOT NULL,
+    chunk_size   INT          NOT NULL,
+    created_at   DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_resource_upload_sessions_created ON resource_upload_sessions (created_at);
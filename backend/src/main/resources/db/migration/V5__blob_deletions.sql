@@ -0,0 +1,15 @@
+-- Outbox of blobs to delete. Requests only insert a row; a background sweeper deletes
+-- the blobs in batches and retries failures with backoff.
+CREATE TABLE blob_deletions (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    container       VARCHAR(63)  NOT NULL,
+    blob_name       VARCHAR(255) NOT NULL,
+    if_match        VARCHAR(100),
+    attempts        INT          NOT NULL DEFAULT 0,
+    last_error      VARCHAR(500),
+    next_attempt_at DATETIME(6)  NOT NULL,
+    created_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_blob_deletions_next_attempt ON blob_deletions (next_attempt_at);
@@ -0,0 +1,12 @@
+-- Change log behind GET /api/courses/changes. Every course write appends a row in the
+-- same transaction; the id is the sync token clients pass back as ?since=. Deletes are
+-- kept as tombstones (deleted = TRUE). Rows past the retention period are pruned.
+CREATE TABLE course_changes (
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    course_id  BIGINT      NOT NULL,
+    deleted    BOOLEAN     NOT NULL,
+    changed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_course_changes_changed_at ON course_changes (changed_at);
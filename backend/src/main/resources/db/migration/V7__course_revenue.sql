@@ -0,0 +1,20 @@
+-- Revenue rollups. Each enrollment records what was charged for it (amount_paid, exact
+-- decimal); rows from before this column are priced by the backfill job, which fills
+-- amount_paid and adds them to the rollups in the same transaction.
+ALTER TABLE enrollments ADD COLUMN amount_paid DECIMAL(12, 2) NULL;
+
+-- Per-course totals per UTC day and per month (period_start = first day of the month).
+-- Enrollments add to gross on the day they are made, unenrollments add to refunded on
+-- the day they are made. Rows are never deleted, including for deleted courses.
+CREATE TABLE course_revenue (
+    id           BIGINT         NOT NULL AUTO_INCREMENT,
+    period       VARCHAR(5)     NOT NULL,
+    period_start DATE           NOT NULL,
+    course_id    BIGINT         NOT NULL,
+    enrollments  BIGINT         NOT NULL,
+    refunds      BIGINT         NOT NULL,
+    gross        DECIMAL(15, 2) NOT NULL,
+    refunded     DECIMAL(15, 2) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_course_revenue_period_course UNIQUE (period, period_start, course_id)
+);
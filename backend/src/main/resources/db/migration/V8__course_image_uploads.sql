@@ -0,0 +1,15 @@
+-- Course images that could not be stored while blob storage was unavailable. The course
+-- is saved without its image and a background job uploads and attaches it later.
+CREATE TABLE course_image_uploads (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    course_id       BIGINT       NOT NULL,
+    filename        VARCHAR(255) NOT NULL,
+    data            MEDIUMBLOB   NOT NULL,
+    attempts        INT          NOT NULL DEFAULT 0,
+    last_error      VARCHAR(500),
+    next_attempt_at DATETIME(6)  NOT NULL,
+    created_at      DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_course_image_uploads_next_attempt ON course_image_uploads (next_attempt_at);
@@ -0,0 +1,6 @@
+-- Chunked uploads are committed to a blob named after their session and attached right
+-- away. The session is kept, marked committed, until a background job has checked the
+-- content against the declared SHA-256; only then is the blob offered to later uploads.
+ALTER TABLE resource_upload_sessions ADD COLUMN committed_at DATETIME(6);
+
+CREATE INDEX idx_resource_upload_sessions_committed ON resource_upload_sessions (committed_at);
@@ -0,0 +1,134 @@
+package com.brightpath.backend.analytics;
+
+import com.brightpath.backend.analytics.EnrollmentTable.CourseStats;
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.repository.CourseRepository.CoursePrice;
+import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.repository.EnrollmentRepository.EnrollmentFacts;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EnrollmentAnalyticsTest {
+
+    private static final int ROWS = 150_000;
+    private static final int COURSES = 40;
+    private static final int FIRST_DAY = 20_000;
+    private static final int DAYS = 90;
+
+    private final EnrollmentRepository enrollmentRepository = mock(EnrollmentRepository.class);
+    private final CourseRepository courseRepository = mock(CourseRepository.class);
+
+    @Test
+    void aggregatesMatchAStraightforwardCountAcrossSlicesAndGrowth() {
+        Random random = new Random(7);
+        List<Price> prices = new ArrayList<>();
+        // Listed out of order, and the last course is unknown to the enrollments below
+        for (long courseId = COURSES; courseId >= 1; courseId--) {
+            prices.add(new Price(courseId, "Course " + courseId, courseId * 10.0));
+        }
+        List<Facts> rows = new ArrayList<>();
+        for (long id = 1; id <= ROWS; id++) {
+            long courseId = id % 1000 == 0 ? COURSES + 1 : 1 + random.nextInt(COURSES - 1);
+            long day = FIRST_DAY + random.nextInt(DAYS);
+            rows.add(new Facts(id * 2, courseId, new Date(day * 86_400_000L + random.nextInt(86_400_000)),
+                    random.nextInt(101)));
+        }
+        when(courseRepository.findAllPrices()).thenReturn(List.copyOf(prices));
+        // Undercount so the columns have to grow while loading
+        when(enrollmentRepository.count()).thenReturn(ROWS / 3L);
+        when(enrollmentRepository.findFactsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return rows.stream()
+                    .filter(row -> row.id > afterId)
+                    .limit(page.getPageSize())
+                    .map(EnrollmentFacts.class::cast)
+                    .toList();
+        });
+
+        EnrollmentAnalytics analytics = new EnrollmentAnalytics(enrollmentRepository, courseRepository, 7000);
+        assertTrue(analytics.table().isEmpty());
+        analytics.reload();
+        EnrollmentTable table = analytics.table().orElseThrow();
+
+        List<Facts> known = rows.stream().filter(row -> row.courseId <= COURSES).toList();
+        assertEquals(known.size(), table.size());
+
+        // Revenue comes from the rollups, not from the table
+        Map<Long, BigDecimal> revenue = new HashMap<>();
+        for (long courseId = 1; courseId <= COURSES; courseId += 2) {
+            revenue.put(courseId, BigDecimal.valueOf(courseId * 10, 2));
+        }
+        List<CourseStats> stats = table.courseStats(revenue);
+        assertEquals(COURSES, stats.size());
+        for (CourseStats course : stats) {
+            List<Facts> inCourse = known.stream().filter(row -> row.courseId == course.courseId()).toList();
+            assertEquals(inCourse.size(), course.enrollments(), "course " + course.courseId());
+            assertEquals(inCourse.stream().mapToDouble(Facts::getProgress).average().orElse(0),
+                    course.averageProgress(), 1e-6);
+            assertEquals(revenue.getOrDefault(course.courseId(), BigDecimal.ZERO), course.revenue());
+        }
+        assertEquals(0, stats.get(COURSES - 1).enrollments());
+        assertEquals(known.size(), EnrollmentTable.totals(stats).enrollments());
+        assertEquals(revenue.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add),
+                EnrollmentTable.totals(stats).revenue());
+
+        long[] expected = new long[DAYS + 10];
+        known.stream()
+                .filter(row -> row.courseId == 3)
+                .forEach(row -> expected[EnrollmentTable.epochDay(row.date) - (FIRST_DAY - 5)]++);
+        assertArrayEquals(expected, table.dailyEnrollments(FIRST_DAY - 5, FIRST_DAY + DAYS + 4, 3L));
+        assertEquals(known.size(), sum(table.dailyEnrollments(FIRST_DAY, FIRST_DAY + DAYS - 1, null)));
+        assertEquals(0, sum(table.dailyEnrollments(FIRST_DAY, FIRST_DAY + DAYS - 1, 999L)));
+    }
+
+    private static long sum(long[] counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    private record Price(Long getId, String getName, double getPrice) implements CoursePrice {
+    }
+
+    private record Facts(long id, long courseId, Date date, double progress) implements EnrollmentFacts {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public Long getCourseId() {
+            return courseId;
+        }
+
+        @Override
+        public Date getEnrollmentDate() {
+            return date;
+        }
+
+        @Override
+        public double getProgress() {
+            return progress;
+        }
+    }
+}
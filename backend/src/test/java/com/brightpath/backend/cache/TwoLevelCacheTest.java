@@ -0,0 +1,150 @@
+package com.brightpath.backend.cache;
+
+import com.brightpath.backend.dto.UserDto;
+import com.brightpath.backend.model.Course;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Two cache managers sharing one in-memory stand-in behave like two backend nodes
+ * sharing Redis.
+ */
+class TwoLevelCacheTest {
+
+    private final InMemorySharedCache shared = new InMemorySharedCache();
+    private TwoLevelCacheManager nodeA;
+    private TwoLevelCacheManager nodeB;
+    private final List<String> invalidationsSeenByB = new ArrayList<>();
+
+    @BeforeEach
+    void startNodes() {
+        nodeA = node();
+        nodeB = node();
+        nodeB.addInvalidationListener((cache, key) -> invalidationsSeenByB.add(cache + ":" + key));
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodeA.shutdown();
+        nodeB.shutdown();
+    }
+
+    @Test
+    void entryCachedByOneNodeIsServedToAnotherWithoutLoading() {
+        nodeA.getCache("courses").put(1L, course(1L, "Algebra"));
+
+        AtomicInteger loads = new AtomicInteger();
+        Course course = nodeB.getCache("courses").get(1L, () -> {
+            loads.incrementAndGet();
+            return course(1L, "from database");
+        });
+
+        assertEquals("Algebra", course.getName());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void evictionOnOneNodeDropsTheOtherNodesNearCopy() {
+        Cache cacheA = nodeA.getCache("courses");
+        Cache cacheB = nodeB.getCache("courses");
+        cacheA.put(1L, course(1L, "Algebra"));
+        assertEquals("Algebra", cacheB.get(1L, Course.class).getName());
+
+        cacheA.evict(1L);
+
+        assertNull(cacheB.get(1L));
+        assertEquals(List.of("courses:1"), invalidationsSeenByB);
+    }
+
+    @Test
+    void clearIsBroadcastToo() {
+        nodeA.getCache("course-list").put("all", new ArrayList<>(List.of(course(1L, "Algebra"))));
+        assertEquals(1, nodeB.getCache("course-list").get("all", List.class).size());
+
+        nodeA.getCache("course-list").clear();
+
+        assertNull(nodeB.getCache("course-list").get("all"));
+        assertEquals(List.of("course-list:*"), invalidationsSeenByB);
+    }
+
+    @Test
+    void readsReturnIndependentCopies() {
+        Cache cache = nodeA.getCache("courses");
+        Date startDate = new Date(1_700_000_000_000L);
+        Course original = course(1L, "Algebra");
+        original.setStartDate(startDate);
+        cache.put(1L, original);
+
+        Course first = cache.get(1L, Course.class);
+        first.setName("changed by caller");
+        Course second = cache.get(1L, Course.class);
+
+        assertNotSame(first, second);
+        assertEquals("Algebra", second.getName());
+        assertEquals(startDate, second.getStartDate());
+        assertEquals(49.5, second.getPrice());
+    }
+
+    @Test
+    void entitiesLoadedFromTheDatabaseAreCached() {
+        Course loaded = course(1L, "Algebra");
+        loaded.setStartDate(java.sql.Date.valueOf("2026-01-05"));
+        nodeA.getCache("courses").put(1L, loaded);
+
+        assertEquals(loaded.getStartDate(), nodeB.getCache("courses").get(1L, Course.class).getStartDate());
+    }
+
+    @Test
+    void usersAreSharedAsProfilesWithoutPasswords() {
+        nodeA.getCache("users").put(7L, new UserDto(7L, "learner", "l@example.com", "https://x/profile.png"));
+
+        UserDto user = nodeB.getCache("users").get(7L, UserDto.class);
+        assertEquals("learner", user.username());
+        assertEquals("profile.png", user.profileImageFilename());
+        assertFalse(shared.get("brightpath:users:7").contains("password"));
+    }
+
+    @Test
+    void batchLookupLoadsOnlyTheMissesInOneCall() {
+        nodeA.getCache("courses").put(1L, course(1L, "Algebra"));
+        nodeB.getCache("courses").put(3L, course(3L, "Geometry"));
+
+        List<Collection<Long>> loads = new ArrayList<>();
+        List<Course> courses = BatchLookup.load(nodeA.getCache("courses"), List.of(3L, 2L, 1L, 4L, 3L),
+                Course.class, ids -> {
+                    loads.add(List.copyOf(ids));
+                    return List.of(course(2L, "Statistics"));
+                }, Course::getId);
+
+        assertEquals(List.of("Geometry", "Statistics", "Algebra"), courses.stream().map(Course::getName).toList());
+        assertEquals(List.of(List.of(2L, 4L)), loads);
+        // Loaded entries are cached for every node
+        assertEquals("Statistics", nodeB.getCache("courses").get(2L, Course.class).getName());
+    }
+
+    private TwoLevelCacheManager node() {
+        TwoLevelCacheManager manager = new TwoLevelCacheManager(shared, List.of("courses", "course-list", "users"));
+        manager.setRedeleteDelayMillis(0);
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    private static Course course(Long id, String name) {
+        Course course = new Course(name, "description", new Date(), 49.5);
+        course.setId(id);
+        return course;
+    }
+}
@@ -0,0 +1,71 @@
+package com.brightpath.backend.config;
+
+import com.azure.storage.blob.BlobContainerClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BlobContainerInitializerTest {
+
+    private final BlobContainerClient images = container("images");
+    private final BlobContainerClient resources = container("resources");
+    private final BlobContainerInitializer initializer = new BlobContainerInitializer(List.of(images, resources));
+    private final BlobStorageHealthIndicator health = new BlobStorageHealthIndicator(initializer,
+            new BlobResiliencePolicy(new BlobResiliencePolicy.Settings(4, Duration.ZERO, 5, Duration.ofSeconds(30),
+                    1, Duration.ZERO, Duration.ZERO)));
+
+    @AfterEach
+    void shutdown() {
+        initializer.shutdown();
+    }
+
+    @Test
+    void slowStorageDoesNotBlockStartupAndKeepsReadinessDown() throws Exception {
+        CountDownLatch storageResponds = new CountDownLatch(1);
+        when(images.createIfNotExists()).thenAnswer(invocation -> {
+            storageResponds.await();
+            return true;
+        });
+        when(resources.createIfNotExists()).thenReturn(false);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), initializer::initializeAll);
+        initializer.ensureCreated(resources);
+        assertEquals(Status.DOWN, health.health().getStatus());
+
+        storageResponds.countDown();
+        initializer.ensureCreated(images);
+        assertEquals(Status.UP, health.health().getStatus());
+        verify(images, times(1)).createIfNotExists();
+    }
+
+    @Test
+    void failedInitializationIsRetriedOnNextUse() throws Exception {
+        when(images.createIfNotExists())
+                .thenThrow(new RuntimeException("storage unavailable"))
+                .thenReturn(true);
+
+        assertThrows(IOException.class, () -> initializer.ensureCreated(images));
+        initializer.ensureCreated(images);
+
+        verify(images, times(2)).createIfNotExists();
+    }
+
+    private static BlobContainerClient container(String name) {
+        BlobContainerClient client = mock(BlobContainerClient.class);
+        when(client.getBlobContainerName()).thenReturn(name);
+        return client;
+    }
+}
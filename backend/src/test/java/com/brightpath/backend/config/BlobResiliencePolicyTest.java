@@ -0,0 +1,194 @@
+package com.brightpath.backend.config;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.util.Context;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.common.StorageSharedKeyCredential;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.azure.storage.common.policy.RetryPolicyType;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlobResiliencePolicyTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void retriesIdempotentCallsUntilTheyAnswer() {
+        AtomicInteger failuresLeft = new AtomicInteger(2);
+        BlobContainerClient container = container(policy(3, 5), () -> failuresLeft.getAndDecrement() > 0 ? 503 : 200);
+
+        assertTrue(container.exists());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void stopsAfterMaxAttemptsWhateverTheMixOfErrorsAndFailedResponses() {
+        // A connection error and then server errors: three calls in all, not one more per stage
+        AtomicInteger attempt = new AtomicInteger();
+        BlobContainerClient container = container(policy(3, 10), () -> attempt.getAndIncrement() == 0 ? -1 : 503);
+
+        assertThrows(RuntimeException.class, container::exists);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void conditionalWritesAreNotRetried() {
+        // A commit with If-None-Match: * that timed out after it was applied would get 412 on retry
+        BlobContainerClient container = container(policy(3, 10), () -> 503);
+        BlobRequestConditions unlessExists = new BlobRequestConditions().setIfNoneMatch("*");
+
+        assertThrows(BlobStorageException.class, () -> container.getBlobClient("notes.pdf").getBlockBlobClient()
+                .commitBlockListWithResponse(List.of(), null, null, null, unlessExists, null, Context.NONE));
+        assertEquals(1, calls.get());
+
+        BlobRequestConditions unchanged = new BlobRequestConditions().setIfMatch("\"etag-1\"");
+        assertThrows(BlobStorageException.class, () -> container.getBlobClient("notes.pdf")
+                .deleteWithResponse(null, unchanged, null, Context.NONE));
+        assertEquals(2, calls.get());
+
+        // Conditional reads are safe to repeat
+        assertThrows(BlobStorageException.class, () -> container.getBlobClient("notes.pdf")
+                .getPropertiesWithResponse(unchanged, null, Context.NONE));
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void openCircuitRejectsCallsWithoutReachingStorageUntilATrialSucceeds() {
+        AtomicInteger status = new AtomicInteger(503);
+        BlobResiliencePolicy policy = policy(1, 3);
+        BlobContainerClient container = container(policy, status::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RuntimeException.class, container::exists);
+        }
+        assertEquals(Map.of("images", "OPEN"), policy.circuitStates());
+        assertThrows(BlobCallRejectedException.class, container::exists);
+        assertEquals(3, calls.get());
+
+        // Missing blobs are answers, not failures
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        status.set(404);
+        assertFalse(container.exists());
+        assertEquals(Map.of("images", "CLOSED"), policy.circuitStates());
+    }
+
+    @Test
+    void fullBulkheadRejectsInsteadOfQueuing() throws Exception {
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlobResiliencePolicy policy = new BlobResiliencePolicy(new BlobResiliencePolicy.Settings(1, Duration.ZERO,
+                5, Duration.ofSeconds(30), 1, Duration.ZERO, Duration.ZERO), now::get);
+        BlobContainerClient container = container(policy, () -> {
+            inFlight.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 200;
+        });
+
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(container::exists);
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+        assertThrows(BlobCallRejectedException.class, container::exists);
+        release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+    }
+
+    private BlobResiliencePolicy policy(int maxAttempts, int failureThreshold) {
+        return new BlobResiliencePolicy(new BlobResiliencePolicy.Settings(4, Duration.ZERO, failureThreshold,
+                Duration.ofSeconds(30), maxAttempts, Duration.ofMillis(1), Duration.ofMillis(5)), now::get);
+    }
+
+    private BlobContainerClient container(BlobResiliencePolicy policy, IntSupplier status) {
+        // A negative status stands for a connection error
+        HttpClient storage = request -> Mono.fromCallable(() -> {
+            calls.incrementAndGet();
+            int code = status.getAsInt();
+            if (code < 0) {
+                throw new ConnectException("Connection refused");
+            }
+            return response(request, code);
+        });
+        return new BlobServiceClientBuilder()
+                .endpoint("https://account.blob.core.windows.net")
+                .credential(new StorageSharedKeyCredential("account",
+                        Base64.getEncoder().encodeToString(new byte[32])))
+                .retryOptions(new RequestRetryOptions(RetryPolicyType.EXPONENTIAL, 1, (Duration) null, null, null, null))
+                .addPolicy(policy)
+                .httpClient(storage)
+                .buildClient()
+                .getBlobContainerClient("images");
+    }
+
+    private static HttpResponse response(HttpRequest request, int status) {
+        HttpHeaders headers = new HttpHeaders().set("x-ms-request-id", "test");
+        if (status == 404) {
+            headers.set("x-ms-error-code", "ContainerNotFound");
+        }
+        return new HttpResponse(request) {
+            @Override
+            public int getStatusCode() {
+                return status;
+            }
+
+            @Override
+            public String getHeaderValue(String name) {
+                return headers.getValue(name);
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public Flux<ByteBuffer> getBody() {
+                return Flux.empty();
+            }
+
+            @Override
+            public Mono<byte[]> getBodyAsByteArray() {
+                return Mono.just(new byte[0]);
+            }
+
+            @Override
+            public Mono<String> getBodyAsString() {
+                return Mono.just("");
+            }
+
+            @Override
+            public Mono<String> getBodyAsString(Charset charset) {
+                return Mono.just("");
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.brightpath.backend.config;
+
+import com.brightpath.backend.cache.InMemorySharedCache;
+import com.brightpath.backend.cache.RedisSharedCache;
+import com.brightpath.backend.cache.SharedCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.Mockito.mock;
+
+class CacheConfigTest {
+
+    private final DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+    private final CacheConfig cacheConfig = new CacheConfig();
+
+    @Test
+    void redisIsChosenAtRuntimeWithoutAListenerContainerBean() throws Exception {
+        // As under AOT, where no conditional beans follow the property: only the Redis
+        // template and connection factory exist
+        beans.registerSingleton("stringRedisTemplate", mock(StringRedisTemplate.class));
+        beans.registerSingleton("redisConnectionFactory", mock(RedisConnectionFactory.class));
+        ReflectionTestUtils.setField(cacheConfig, "redisEnabled", true);
+
+        SharedCache sharedCache = sharedCache();
+        RedisSharedCache redis = assertInstanceOf(RedisSharedCache.class, sharedCache);
+        redis.destroy();
+    }
+
+    @Test
+    void inMemoryCacheNeedsNoRedisBeans() throws Exception {
+        assertInstanceOf(InMemorySharedCache.class, sharedCache());
+    }
+
+    private SharedCache sharedCache() throws Exception {
+        return cacheConfig.sharedCache(beans.getBeanProvider(StringRedisTemplate.class),
+                beans.getBeanProvider(RedisConnectionFactory.class));
+    }
+}
@@ -0,0 +1,143 @@
+package com.brightpath.backend.config;
+
+import com.brightpath.backend.config.RateLimitFilter.EndpointClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(
+            new RateLimitFilter.Limits(
+                    Map.of(EndpointClass.AUTH, 3L, EndpointClass.DOWNLOAD, 100L,
+                            EndpointClass.UPLOAD, 100L, EndpointClass.DEFAULT, 100L),
+                    1, 1),
+            registry, WebConfig.corsConfiguration("http://localhost:5173"), clock::get);
+
+    @Test
+    void loginBurstIsRejectedUntilTokensRefill() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send("POST", "/api/users/login", "10.0.0.1").getStatus());
+        }
+
+        MockHttpServletResponse rejected = send("POST", "/api/users/login", "10.0.0.1");
+        assertEquals(429, rejected.getStatus());
+        assertEquals("20", rejected.getHeader("Retry-After"));
+
+        // Other clients and other endpoint classes have their own buckets
+        assertEquals(200, send("POST", "/api/users/login", "10.0.0.2").getStatus());
+        assertEquals(200, send("GET", "/api/courses", "10.0.0.1").getStatus());
+
+        clock.addAndGet(20_000_000_000L);
+        assertEquals(200, send("POST", "/api/users/login", "10.0.0.1").getStatus());
+        assertEquals(1.0, registry.get("http.server.requests.rejected")
+                .tag("endpoint", "auth").tag("reason", "rate_limited").counter().count());
+    }
+
+    @Test
+    void rejectionsAreReadableByTheFrontend() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            send("POST", "/api/users/login", "10.0.1.1");
+        }
+        MockHttpServletRequest request = request("POST", "/api/users/login", "10.0.1.1");
+        request.addHeader(HttpHeaders.ORIGIN, "http://localhost:5173");
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request, rejected, new MockFilterChain());
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("http://localhost:5173", rejected.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN));
+        assertTrue(rejected.getHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS).contains(HttpHeaders.RETRY_AFTER));
+
+        // Other origins are still rejected, without CORS headers
+        MockHttpServletRequest foreign = request("POST", "/api/users/login", "10.0.1.1");
+        foreign.addHeader(HttpHeaders.ORIGIN, "https://elsewhere.example");
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        filter.doFilter(foreign, refused, new MockFilterChain());
+        assertEquals(429, refused.getStatus());
+        assertNull(refused.getHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN));
+    }
+
+    @Test
+    void downloadsBeyondTheConcurrencyLimitAreShed() throws Exception {
+        CountDownLatch downloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowDownload = (request, response) -> {
+            downloading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Thread first = new Thread(() -> {
+            try {
+                filter.doFilter(request("GET", "/api/courses/1/download", "10.0.2.1"),
+                        new MockHttpServletResponse(), slowDownload);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        first.start();
+        downloading.await();
+
+        AtomicInteger reachedController = new AtomicInteger();
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/courses/2/download", "10.0.2.2"), shed,
+                (request, response) -> reachedController.incrementAndGet());
+        assertEquals(503, shed.getStatus());
+        assertEquals(0, reachedController.get());
+
+        release.countDown();
+        first.join();
+        assertEquals(200, send("GET", "/api/courses/2/download", "10.0.2.2").getStatus());
+        assertNotNull(registry.find("http.server.requests.rejected").tag("reason", "overloaded").counter());
+    }
+
+    @Test
+    void idleBucketsAreEvicted() throws Exception {
+        send("POST", "/api/users/login", "10.0.3.1");
+        assertEquals(1, filter.bucketCount());
+
+        clock.addAndGet(60_000_000_000L);
+        filter.evictIdleBuckets();
+        assertEquals(0, filter.bucketCount());
+    }
+
+    @Test
+    void classifiesEndpoints() {
+        assertEquals(EndpointClass.AUTH, RateLimitFilter.classify(request("POST", "/api/users/register", "x")));
+        assertEquals(EndpointClass.UPLOAD, RateLimitFilter.classify(request("PUT", "/api/courses/3/image", "x")));
+        assertEquals(EndpointClass.UPLOAD, RateLimitFilter.classify(request("POST", "/api/uploads/intents", "x")));
+        assertEquals(EndpointClass.DEFAULT,
+                RateLimitFilter.classify(request("PUT", "/api/courses/3/resource/uploads/abc/chunks/4", "x")));
+        assertEquals(EndpointClass.DEFAULT, RateLimitFilter.classify(request("GET", "/api/courses/3", "x")));
+    }
+
+    private MockHttpServletResponse send(String method, String path, String ip) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, path, ip), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+}
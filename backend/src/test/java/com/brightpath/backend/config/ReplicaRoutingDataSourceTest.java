@@ -0,0 +1,88 @@
+package com.brightpath.backend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Routes against separate in-memory databases, each of which reports its own name.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = database("primary");
+    private final DataSource replica1 = database("replica1");
+    private final DataSource replica2 = database("replica2");
+
+    @AfterEach
+    void clearRequest() {
+        ReadYourWrites.end();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicasAndWritesToPrimary() {
+        DataSource routing = routing(List.of(replica1), false);
+
+        assertEquals("replica1", whoAmI(routing, true));
+        assertEquals("primary", whoAmI(routing, false));
+    }
+
+    @Test
+    void readsAreSpreadAcrossReplicas() {
+        DataSource routing = routing(List.of(replica1, replica2), false);
+
+        assertEquals("replica1", whoAmI(routing, true));
+        assertEquals("replica2", whoAmI(routing, true));
+        assertEquals("replica1", whoAmI(routing, true));
+    }
+
+    @Test
+    void readsFollowingAWriteInTheSameRequestStayOnPrimary() {
+        DataSource routing = routing(List.of(replica1), true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ReadYourWrites.begin(response, 0, 5000);
+
+        assertEquals("replica1", whoAmI(routing, true));
+        assertEquals("primary", whoAmI(routing, false));
+        assertEquals("primary", whoAmI(routing, true));
+        assertNotNull(response.getHeader(ReadYourWrites.HEADER));
+    }
+
+    @Test
+    void clientPinnedByEarlierWriteReadsFromPrimary() {
+        DataSource routing = routing(List.of(replica1), true);
+        ReadYourWrites.begin(new MockHttpServletResponse(), System.currentTimeMillis() + 5000, 5000);
+
+        assertEquals("primary", whoAmI(routing, true));
+    }
+
+    private DataSource routing(List<DataSource> replicas, boolean readYourWrites) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, readYourWrites));
+    }
+
+    private String whoAmI(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        jdbc.execute("DELETE FROM node");
+        jdbc.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,635 @@
+package com.brightpath.backend.controller;
+
+import com.brightpath.backend.analytics.EnrollmentAnalytics;
+import com.brightpath.backend.model.BlobDeletion;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.Enrollment;
+import com.brightpath.backend.model.User;
+import com.brightpath.backend.repository.BlobDeletionRepository;
+import com.brightpath.backend.repository.CourseChangeRepository;
+import com.brightpath.backend.repository.CourseImageUploadRepository;
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.repository.CourseRevenueRepository;
+import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.repository.ResourceBlobRepository;
+import com.brightpath.backend.repository.ResourceUploadSessionRepository;
+import com.brightpath.backend.repository.UserRepository;
+import com.brightpath.backend.service.CourseImageUploadQueue;
+import com.brightpath.backend.service.CourseRecommendations;
+import com.brightpath.backend.service.CourseService;
+import com.brightpath.backend.service.ResourceCache;
+import com.brightpath.backend.service.ResourceUploadService;
+import com.brightpath.backend.service.RevenueRollupService;
+import com.brightpath.backend.service.UserService;
+import com.brightpath.backend.trace.CallBudget;
+import com.brightpath.backend.trace.RequestTrace;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Calls every controller method against H2 and in-memory blob storage, with caches cold,
+ * and fails if a call goes over its {@link CallBudget}.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:budget;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "azure.storage.account-name=budgettest",
+        "azure.storage.account-key=YnVkZ2V0LXRlc3Qta2V5",
+        "cors.allowed-origins=http://localhost:5173",
+        "app.rate-limit.enabled=false",
+        "app.trace.response-headers=true",
+        "app.resources.chunk-size-bytes=1024",
+        "app.resources.cache.dir=${java.io.tmpdir}/budget-resource-cache",
+        "app.resources.cache.revalidate-seconds=0",
+        "app.courses.changes.settle-seconds=0",
+        "app.cache.redelete-delay-ms=0"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointBudgetTest {
+
+    @TestConfiguration
+    static class BlobStorage {
+        // Picked up by AzureBlobConfig as the storage client's transport
+        @Bean
+        InMemoryBlobStorage inMemoryBlobStorage() {
+            return new InMemoryBlobStorage();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InMemoryBlobStorage storage;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private ResourceBlobRepository resourceBlobRepository;
+
+    @Autowired
+    private ResourceUploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private BlobDeletionRepository blobDeletionRepository;
+
+    @Autowired
+    private CourseChangeRepository courseChangeRepository;
+
+    @Autowired
+    private CourseRecommendations courseRecommendations;
+
+    @Autowired
+    private EnrollmentAnalytics enrollmentAnalytics;
+
+    @Autowired
+    private CourseRevenueRepository courseRevenueRepository;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private CourseImageUploadRepository courseImageUploadRepository;
+
+    @Autowired
+    private CourseImageUploadQueue courseImageUploadQueue;
+
+    @Autowired
+    private ResourceUploadService resourceUploadService;
+
+    @Autowired
+    private ResourceCache resourceCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<Method> exercised = new HashSet<>();
+
+    private User user;
+    private Course course;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        enrollmentRepository.deleteAll();
+        uploadSessionRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        resourceBlobRepository.deleteAll();
+        blobDeletionRepository.deleteAll();
+        courseChangeRepository.deleteAll();
+        courseRevenueRepository.deleteAll();
+        courseImageUploadRepository.deleteAll();
+        storage.clear();
+        resourceCache.clear();
+
+        user = userService.save(new User("learner", "learner@example.com", "secret"));
+        course = courseService.saveCourse(new Course("Algebra", "Basics", new Date(), 49.0));
+        for (int i = 0; i < 5; i++) {
+            courseService.saveCourse(new Course("Course " + i, "More", new Date(), 10.0 + i));
+            User classmate = userService.save(new User("classmate" + i, "classmate" + i + "@example.com", "secret"));
+            Enrollment enrollment = new Enrollment();
+            enrollment.setUser(classmate);
+            enrollment.setCourse(course);
+            enrollmentRepository.save(enrollment);
+        }
+    }
+
+    @AfterAll
+    void everyControllerMethodIsBudgetedAndCovered() {
+        Set<String> unbudgeted = new TreeSet<>();
+        Set<String> untested = new TreeSet<>();
+        for (HandlerMethod handler : handlerMapping.getHandlerMethods().values()) {
+            if (!handler.getBeanType().getPackageName().equals(getClass().getPackageName())) {
+                continue;
+            }
+            if (!handler.hasMethodAnnotation(CallBudget.class)) {
+                unbudgeted.add(handler.toString());
+            }
+            if (!exercised.contains(handler.getMethod())) {
+                untested.add(handler.toString());
+            }
+        }
+        assertEquals(Set.of(), unbudgeted, "controller methods without @CallBudget");
+        assertEquals(Set.of(), untested, "controller methods without a budget test");
+    }
+
+    @Test
+    void courseEndpoints() throws Exception {
+        call(get("/api/courses"), 200);
+        call(get("/api/courses/{id}", course.getId()), 200);
+        JsonNode batch = json(call(get("/api/courses").param("ids", course.getId() + ",0," + course.getId()), 200));
+        assertEquals(1, batch.size());
+        call(put("/api/courses/{id}", course.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Algebra II\",\"description\":\"Harder\",\"startDate\":\"2026-02-01\",\"price\":59.0}"), 200);
+
+        JsonNode created = json(call(multipart("/api/courses")
+                .file(new MockMultipartFile("image", "cover.png", "image/png", png()))
+                .file(new MockMultipartFile("file", "notes.pdf", "application/pdf", pdf(2000)))
+                .param("name", "Geometry").param("description", "Shapes")
+                .param("startDate", "2026-01-05").param("price", "39.0"), 201));
+        long createdId = created.path("course").path("id").asLong();
+
+        call(multipart("/api/courses/{id}/image", createdId)
+                .file(new MockMultipartFile("image", "cover2.png", "image/png", png()))
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }), 200);
+        call(multipart("/api/courses/{id}/resource", course.getId())
+                .file(new MockMultipartFile("file", "syllabus.pdf", "application/pdf", pdf(3000)))
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }), 200);
+        call(get("/api/courses/{id}/resource", course.getId()), 200);
+        call(get("/api/courses/{id}/download", course.getId()), 200);
+        // Served from the resource cache the second time
+        MvcResult cached = call(get("/api/courses/{id}/download", course.getId()), 200);
+        assertEquals(3000, cached.getResponse().getContentAsByteArray().length);
+        assertEquals(0, ((RequestTrace) cached.getRequest().getAttribute(RequestTrace.ATTRIBUTE)).getBlobCalls());
+        call(delete("/api/courses/{id}/image", createdId), 200);
+        call(delete("/api/courses/{id}", createdId), 200);
+    }
+
+    @Test
+    void cachedDownloadsOfLegacyResourcesAreRevalidated() throws Exception {
+        storage.put("course-resources", "legacy-notes.pdf", pdf(2500), "application/pdf");
+        course.setResourceUrl("https://budgettest.blob.core.windows.net/course-resources/legacy-notes.pdf");
+        courseService.save(course);
+
+        call(get("/api/courses/{id}/download", course.getId()), 200);
+        MvcResult revalidated = call(get("/api/courses/{id}/download", course.getId()), 200);
+        assertArrayEquals(pdf(2500), revalidated.getResponse().getContentAsByteArray());
+
+        storage.put("course-resources", "legacy-notes.pdf", pdf(2600), "application/pdf");
+        MvcResult changed = call(get("/api/courses/{id}/download", course.getId()), 200);
+        assertArrayEquals(pdf(2600), changed.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    void courseCreationQueuesTheImageWhileStorageIsUnavailable() throws Exception {
+        call(multipart("/api/courses/{id}/resource", course.getId())
+                .file(new MockMultipartFile("file", "syllabus.pdf", "application/pdf", pdf(3000)))
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }), 200);
+        storage.setUnavailable(true);
+
+        JsonNode created = json(call(multipart("/api/courses")
+                .file(new MockMultipartFile("image", "cover.png", "image/png", png()))
+                .param("name", "Geometry").param("description", "Shapes")
+                .param("startDate", "2026-01-05").param("price", "39.0"), 201));
+        assertTrue(created.path("imageQueued").asBoolean());
+        long createdId = created.path("course").path("id").asLong();
+        assertTrue(created.path("course").path("imageUrl").isNull());
+        String retryAfter = call(get("/api/courses/{id}/download", course.getId()), 503)
+                .getResponse().getHeader(HttpHeaders.RETRY_AFTER);
+        assertNotNull(retryAfter);
+
+        storage.setUnavailable(false);
+        courseImageUploadRepository.findAll().forEach(upload -> {
+            upload.setNextAttemptAt(new Date(0));
+            courseImageUploadRepository.save(upload);
+        });
+        courseImageUploadQueue.drain();
+        assertEquals(0, courseImageUploadRepository.count());
+        String imageUrl = courseRepository.findById(createdId).orElseThrow().getImageUrl();
+        assertNotNull(imageUrl);
+        assertNotNull(storage.get("course-images", imageUrl.substring(imageUrl.lastIndexOf('/') + 1)));
+    }
+
+    @Test
+    void queuedImagesAreDroppedAfterTheLastAttempt() throws Exception {
+        storage.setUnavailable(true);
+        JsonNode created = json(call(multipart("/api/courses")
+                .file(new MockMultipartFile("image", "cover.png", "image/png", png()))
+                .param("name", "Geometry").param("description", "Shapes")
+                .param("startDate", "2026-01-05").param("price", "39.0"), 201));
+        assertTrue(created.path("imageQueued").asBoolean());
+
+        courseImageUploadRepository.findAll().forEach(upload -> {
+            upload.setAttempts(19);
+            upload.setNextAttemptAt(new Date(0));
+            courseImageUploadRepository.save(upload);
+        });
+        courseImageUploadQueue.drain();
+        assertEquals(0, courseImageUploadRepository.count());
+        assertNull(courseRepository.findById(created.path("course").path("id").asLong()).orElseThrow().getImageUrl());
+    }
+
+    @Test
+    void courseChangesEndpoint() throws Exception {
+        JsonNode snapshot = json(call(get("/api/courses/changes"), 200));
+        assertEquals(6, snapshot.path("changes").size());
+        String token = snapshot.path("token").asText();
+
+        Course other = courseService.saveCourse(new Course("Statistics", "Data", new Date(), 29.0));
+        courseService.updateCourse(course.getId(), new Course("Algebra", "Basics", new Date(), 45.0));
+        courseService.updateCourse(course.getId(), new Course("Algebra", "Basics", new Date(), 44.0));
+        courseService.deleteCourse(other.getId());
+
+        JsonNode delta = json(call(get("/api/courses/changes").param("since", token), 200));
+        JsonNode changes = delta.path("changes");
+        assertEquals(2, changes.size());
+        // One entry per course, in the order of its latest change
+        assertEquals(course.getId().longValue(), changes.get(0).path("courseId").asLong());
+        assertEquals(44.0, changes.get(0).path("course").path("price").asDouble());
+        assertEquals(other.getId().longValue(), changes.get(1).path("courseId").asLong());
+        assertTrue(changes.get(1).path("deleted").asBoolean());
+        assertTrue(changes.get(1).path("course").isMissingNode());
+
+        JsonNode caughtUp = json(call(get("/api/courses/changes")
+                .param("since", delta.path("token").asText()), 200));
+        assertEquals(0, caughtUp.path("changes").size());
+        assertEquals(delta.path("token").asText(), caughtUp.path("token").asText());
+
+        // Pages follow the token until hasMore is cleared
+        JsonNode firstPage = json(call(get("/api/courses/changes").param("since", token).param("limit", "1"), 200));
+        assertEquals(1, firstPage.path("changes").size());
+        assertTrue(firstPage.path("hasMore").asBoolean());
+
+        call(get("/api/courses/changes").param("since", "not-a-token"), 400);
+        courseChangeRepository.deleteAllInBatch(courseChangeRepository.findAll().subList(0, 8));
+        call(get("/api/courses/changes").param("since", token), 410);
+    }
+
+    @Test
+    void batchLookupsServeCachedEntriesWithoutQuerying() throws Exception {
+        String ids = courseRepository.findAll().stream().map(c -> c.getId().toString())
+                .reduce((a, b) -> a + "," + b).orElseThrow();
+        assertEquals(6, json(call(get("/api/courses").param("ids", ids), 200)).size());
+
+        // Warm: straight from the cache
+        MvcResult warm = mockMvc.perform(get("/api/courses").param("ids", ids)).andReturn();
+        RequestTrace trace = (RequestTrace) warm.getRequest().getAttribute(RequestTrace.ATTRIBUTE);
+        assertEquals(0, trace.getSqlStatements(), trace.toString());
+        assertEquals(6, json(warm).size());
+
+        call(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[]}"), 400);
+        call(get("/api/courses").param("ids", ids.repeat(20).replace(",", ",0,")), 400);
+    }
+
+    @Test
+    void relatedCoursesEndpoint() throws Exception {
+        // Three of the classmates in Algebra also took Geometry, one of them Statistics too
+        Course geometry = courseService.saveCourse(new Course("Geometry", "Shapes", new Date(), 39.0));
+        Course statistics = courseService.saveCourse(new Course("Statistics", "Data", new Date(), 29.0));
+        List<Enrollment> classmates = enrollmentRepository.findByCourseId(course.getId());
+        for (int i = 0; i < 3; i++) {
+            enroll(classmates.get(i).getUser(), geometry);
+        }
+        enroll(classmates.get(0).getUser(), statistics);
+        courseRecommendations.rebuild();
+
+        JsonNode related = json(call(get("/api/courses/{id}/related", course.getId()), 200)).path("courses");
+        assertEquals(2, related.size());
+        assertEquals("Geometry", related.get(0).path("name").asText());
+        assertEquals("Statistics", related.get(1).path("name").asText());
+        assertEquals(0, json(call(get("/api/courses/{id}/related", course.getId()).param("limit", "0"), 200))
+                .path("courses").size());
+    }
+
+    @Test
+    void adminStatsEndpoints() throws Exception {
+        // Charged at 49.0; the price changing afterwards doesn't change the revenue
+        revenueRollupService.backfill();
+        course.setPrice(99.0);
+        courseService.updateCourse(course.getId(), course);
+        enrollmentAnalytics.reload();
+
+        JsonNode stats = json(call(get("/api/admin/stats"), 200));
+        assertEquals(5, stats.path("totals").path("enrollments").asLong());
+        assertEquals(5 * 49.0, stats.path("totals").path("revenue").asDouble());
+        assertEquals(6, stats.path("courses").size());
+
+        JsonNode daily = json(call(get("/api/admin/stats/daily").param("courseId", course.getId().toString()), 200));
+        JsonNode days = daily.path("days");
+        assertEquals(30, days.size());
+        assertEquals(5, days.get(29).path("enrollments").asLong());
+        call(get("/api/admin/stats/daily").param("from", "2026-02-01").param("to", "2026-01-01"), 400);
+    }
+
+    @Test
+    void revenueEndpoint() throws Exception {
+        // The enrollments made in setUp predate amounts and are priced by the backfill
+        assertEquals(5, revenueRollupService.backfill());
+        call(post("/api/enrollments/{userId}/{courseId}", user.getId(), course.getId()), 200);
+        call(delete("/api/enrollments/{userId}/{courseId}", user.getId(), course.getId()), 200);
+
+        JsonNode monthly = json(call(get("/api/admin/stats/revenue"), 200));
+        JsonNode totals = monthly.path("totals");
+        assertEquals(6, totals.path("enrollments").asLong());
+        assertEquals(1, totals.path("refunds").asLong());
+        assertEquals(294.0, totals.path("gross").asDouble());
+        assertEquals(245.0, totals.path("net").asDouble());
+        assertEquals(1, monthly.path("rows").size());
+
+        JsonNode daily = json(call(get("/api/admin/stats/revenue").param("period", "day")
+                .param("courseId", course.getId().toString()), 200));
+        assertEquals(49.0, daily.path("totals").path("refunded").asDouble());
+        call(get("/api/admin/stats/revenue").param("period", "week"), 400);
+    }
+
+    @Test
+    void userEndpoints() throws Exception {
+        call(multipart("/api/users/register")
+                .file(new MockMultipartFile("profileImage", "me.png", "image/png", png()))
+                .param("username", "newcomer").param("email", "newcomer@example.com").param("password", "pw"), 200);
+        call(post("/api/users/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"learner\",\"password\":\"secret\"}"), 200);
+        call(get("/api/users/{id}", user.getId()), 200);
+        JsonNode batch = json(call(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[" + user.getId() + ",0]}"), 200)).path("users");
+        assertEquals(1, batch.size());
+        assertEquals("learner", batch.get(0).path("username").asText());
+        assertTrue(batch.get(0).path("password").isMissingNode(), batch.toString());
+        call(put("/api/users/{id}", user.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"learner\",\"email\":\"learner@example.org\"}"), 200);
+        call(multipart("/api/users/{id}/profile-image", user.getId())
+                .file(new MockMultipartFile("profileImage", "me.bmp", "image/bmp", bmp())), 200);
+        call(multipart("/api/users/{id}/profile-image", user.getId())
+                .file(new MockMultipartFile("profileImage", "me.png", "image/png", png()))
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }), 200);
+        call(delete("/api/users/{id}/profile-image", user.getId()), 200);
+    }
+
+    @Test
+    void enrollmentEndpoints() throws Exception {
+        call(post("/api/enrollments/{userId}/{courseId}", user.getId(), course.getId()), 200);
+        call(get("/api/enrollments/user/{userId}/courses", user.getId()), 200);
+        JsonNode courseIds = json(call(get("/api/enrollments/user/{userId}/course-ids", user.getId()), 200));
+        assertEquals(course.getId().longValue(), courseIds.path("courseIds").get(0).asLong());
+        call(get("/api/enrollments/course/{courseId}", course.getId()), 200);
+        call(delete("/api/enrollments/{userId}/{courseId}", user.getId(), course.getId()), 200);
+    }
+
+    @Test
+    void storedContentWithoutARecordIsReusedNotOverwritten() throws Exception {
+        // Left behind by a request that failed after its upload, and since queued as an orphan
+        byte[] pdf = pdf(3000);
+        String blobName = sha256(pdf) + ".pdf";
+        storage.put("course-resources", blobName, pdf, "application/pdf");
+        String etag = storage.get("course-resources", blobName).etag();
+        blobDeletionRepository.save(new BlobDeletion("course-resources", blobName, etag));
+
+        call(multipart("/api/courses/{id}/resource", course.getId())
+                .file(new MockMultipartFile("file", "syllabus.pdf", "application/pdf", pdf))
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }), 200);
+
+        assertEquals(etag, storage.get("course-resources", blobName).etag());
+        // Registered with the existing blob's version, quoted or not
+        assertEquals(etag.replace("\"", ""),
+                resourceBlobRepository.findById(blobName).orElseThrow().getEtag().replace("\"", ""));
+        assertEquals(0, blobDeletionRepository.count());
+    }
+
+    @Test
+    void chunkedUploadEndpoints() throws Exception {
+        byte[] pdf = pdf(2500);
+        String uploadId = chunkedUpload("big.pdf", pdf, sha256(pdf));
+        call(get("/api/courses/{id}/resource/uploads/{uploadId}", course.getId(), uploadId), 200);
+        call(post("/api/courses/{id}/resource/uploads/{uploadId}/commit", course.getId(), uploadId), 200);
+        call(post("/api/courses/{id}/resource/uploads/{uploadId}/commit", course.getId(), uploadId), 400);
+
+        // Not shared with later uploads of the same content until it has been verified
+        assertTrue(resourceBlobRepository.findBySha256(sha256(pdf)).isEmpty());
+        resourceUploadService.verifyCommittedUploads();
+        assertEquals(uploadId + ".pdf", resourceBlobRepository.findBySha256(sha256(pdf)).orElseThrow().getBlobName());
+        assertEquals(0, uploadSessionRepository.count());
+    }
+
+    @Test
+    void chunkedUploadsThatDontMatchTheirDigestAreNotShared() throws Exception {
+        byte[] pdf = pdf(2500);
+        String declared = sha256(pdf(2600));
+        String uploadId = chunkedUpload("big.pdf", pdf, declared);
+        call(post("/api/courses/{id}/resource/uploads/{uploadId}/commit", course.getId(), uploadId), 200);
+
+        resourceUploadService.verifyCommittedUploads();
+        assertTrue(resourceBlobRepository.findBySha256(declared).isEmpty());
+        assertArrayEquals(pdf, storage.get("course-resources", uploadId + ".pdf").content());
+        assertEquals(0, uploadSessionRepository.count());
+    }
+
+    private String chunkedUpload(String filename, byte[] content, String sha256) throws Exception {
+        JsonNode session = json(call(post("/api/courses/{id}/resource/uploads", course.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("filename", filename,
+                        "contentType", "application/pdf", "size", content.length, "sha256", sha256))), 201));
+        String uploadId = session.path("uploadId").asText();
+
+        for (int i = 0; i < session.path("chunkCount").asInt(); i++) {
+            byte[] chunk = Arrays.copyOfRange(content, i * 1024, Math.min(content.length, (i + 1) * 1024));
+            call(put("/api/courses/{id}/resource/uploads/{uploadId}/chunks/{index}", course.getId(), uploadId, i)
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM).content(chunk), 200);
+        }
+        return uploadId;
+    }
+
+    @Test
+    void directUploadEndpoints() throws Exception {
+        byte[] png = png();
+        JsonNode intent = json(call(post("/api/uploads/intents").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("target", "COURSE_IMAGE", "ownerId", course.getId(),
+                        "filename", "cover.png", "contentType", "image/png", "size", png.length))), 201));
+
+        // What the browser does with the SAS URL
+        storage.put("course-images", intent.path("blobName").asText(), png, "image/png");
+
+        // Create-only: the blob can't be rewritten through the SAS once it exists
+        assertTrue(intent.path("uploadUrl").asText().contains("sp=c&"), intent.path("uploadUrl").asText());
+
+        String complete = objectMapper.writeValueAsString(Map.of("token", intent.path("token").asText()));
+        String url = json(call(post("/api/uploads/complete").contentType(MediaType.APPLICATION_JSON)
+                .content(complete), 200)).path("url").asText();
+
+        // A replayed token reports the same upload without attaching anything again
+        course.setImageUrl(null);
+        courseService.saveCourse(course);
+        assertEquals(url, json(call(post("/api/uploads/complete").contentType(MediaType.APPLICATION_JSON)
+                .content(complete), 200)).path("url").asText());
+        assertNull(courseRepository.findById(course.getId()).orElseThrow().getImageUrl());
+    }
+
+    @Test
+    void eventEndpoints() throws Exception {
+        call(get("/api/events/catalog").accept(MediaType.TEXT_EVENT_STREAM), 200);
+    }
+
+    private MvcResult call(MockHttpServletRequestBuilder request, int expectedStatus) throws Exception {
+        // Worst case: nothing cached from earlier requests
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.getCache().evictAll();
+
+        MvcResult result = mockMvc.perform(request).andReturn();
+        HandlerMethod handler = (HandlerMethod) result.getHandler();
+        assertNotNull(handler, "no handler for request");
+        exercised.add(handler.getMethod());
+
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(expectedStatus, result.getResponse().getStatus(), handler + ": " + body);
+
+        RequestTrace trace = (RequestTrace) result.getRequest().getAttribute(RequestTrace.ATTRIBUTE);
+        assertNotNull(trace, "request was not traced");
+        assertNotNull(trace.getBudget(), handler + " has no @CallBudget");
+        assertTrue(trace.overBudget().isEmpty(), handler + " over budget: " + trace.overBudget() + " (" + trace + ")");
+        return result;
+    }
+
+    private void enroll(User student, Course course) {
+        Enrollment enrollment = new Enrollment();
+        enrollment.setUser(student);
+        enrollment.setCourse(course);
+        enrollmentRepository.save(enrollment);
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] png() throws IOException {
+        return image("png", BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private static byte[] bmp() throws IOException {
+        return image("bmp", BufferedImage.TYPE_3BYTE_BGR);
+    }
+
+    private static byte[] image(String format, int type) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(32, 32, type), format, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] pdf(int size) {
+        byte[] pdf = new byte[size];
+        byte[] header = "%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, pdf, 0, header.length);
+        for (int i = header.length; i < size; i++) {
+            pdf[i] = (byte) ('a' + (i * 7 + size) % 26);
+        }
+        return pdf;
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,265 @@
+package com.brightpath.backend.controller;
+
+import com.azure.core.http.HttpClient;
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.util.BinaryData;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Just enough of the Blob service REST API, kept in memory, for the storage client to run
+ * against in tests: containers, put blob, staged blocks, block lists, properties,
+ * (ranged, conditional) downloads and deletes. While {@link #setUnavailable unavailable}, every call
+ * gets a 503.
+ */
+class InMemoryBlobStorage implements HttpClient {
+
+    private static final Pattern LATEST_BLOCK = Pattern.compile("<Latest>([^<]*)</Latest>");
+
+    record Blob(byte[] content, String contentType, String etag) {
+    }
+
+    private final Set<String> containers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Blob> blobs = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, byte[]>> stagedBlocks = new ConcurrentHashMap<>();
+    private volatile boolean unavailable;
+
+    void put(String container, String name, byte[] content, String contentType) {
+        blobs.put(container + "/" + name, new Blob(content, contentType, newEtag()));
+    }
+
+    Blob get(String container, String name) {
+        return blobs.get(container + "/" + name);
+    }
+
+    void clear() {
+        blobs.clear();
+        stagedBlocks.clear();
+        unavailable = false;
+    }
+
+    void setUnavailable(boolean unavailable) {
+        this.unavailable = unavailable;
+    }
+
+    @Override
+    public Mono<HttpResponse> send(HttpRequest request) {
+        return Mono.fromCallable(() -> handle(request));
+    }
+
+    private HttpResponse handle(HttpRequest request) {
+        String path = URLDecoder.decode(request.getUrl().getPath().substring(1), StandardCharsets.UTF_8);
+        Map<String, String> query = query(request.getUrl().getQuery());
+        HttpMethod method = request.getHttpMethod();
+        if (unavailable) {
+            return error(request, 503, "ServerBusy");
+        }
+
+        if ("container".equals(query.get("restype"))) {
+            if (method == HttpMethod.PUT) {
+                return containers.add(path) ? respond(request, 201, headers(null))
+                        : error(request, 409, "ContainerAlreadyExists");
+            }
+            return containers.contains(path) ? respond(request, 200, headers(null))
+                    : error(request, 404, "ContainerNotFound");
+        }
+
+        if (method == HttpMethod.PUT && "block".equals(query.get("comp"))) {
+            stagedBlocks.computeIfAbsent(path, key -> new ConcurrentHashMap<>()).put(query.get("blockid"), body(request));
+            return respond(request, 201, headers(null));
+        }
+        if (method == HttpMethod.PUT && "blocklist".equals(query.get("comp"))) {
+            Map<String, byte[]> staged = stagedBlocks.getOrDefault(path, Map.of());
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            Matcher matcher = LATEST_BLOCK.matcher(new String(body(request), StandardCharsets.UTF_8));
+            while (matcher.find()) {
+                byte[] block = staged.get(matcher.group(1));
+                if (block == null) {
+                    return error(request, 400, "InvalidBlockList");
+                }
+                content.writeBytes(block);
+            }
+            HttpResponse response = stored(request, path, content.toByteArray());
+            if (response.getStatusCode() == 201) {
+                stagedBlocks.remove(path);
+            }
+            return response;
+        }
+        if (method == HttpMethod.GET && "blocklist".equals(query.get("comp"))) {
+            Map<String, byte[]> staged = stagedBlocks.get(path);
+            if (staged == null && !blobs.containsKey(path)) {
+                return error(request, 404, "BlobNotFound");
+            }
+            StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?><BlockList><CommittedBlocks />");
+            xml.append("<UncommittedBlocks>");
+            if (staged != null) {
+                staged.forEach((id, block) -> xml.append("<Block><Name>").append(id).append("</Name><Size>")
+                        .append(block.length).append("</Size></Block>"));
+            }
+            xml.append("</UncommittedBlocks></BlockList>");
+            HttpHeaders headers = headers(null).set("Content-Type", "application/xml");
+            return respond(request, 200, headers, xml.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        if (method == HttpMethod.PUT) {
+            return stored(request, path, body(request));
+        }
+
+        Blob blob = blobs.get(path);
+        if (blob == null) {
+            return error(request, 404, "BlobNotFound");
+        }
+        String ifMatch = request.getHeaders().getValue("If-Match");
+        if (ifMatch != null && !ifMatch.equals(blob.etag())) {
+            return error(request, 412, "ConditionNotMet");
+        }
+        String ifNoneMatch = request.getHeaders().getValue("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.equals(blob.etag()) && method == HttpMethod.GET) {
+            return respond(request, 304, headers(blob.etag()));
+        }
+        if (method == HttpMethod.DELETE) {
+            blobs.remove(path);
+            return respond(request, 202, headers(null));
+        }
+
+        HttpHeaders headers = headers(blob.etag())
+                .set("Content-Type", blob.contentType())
+                .set("x-ms-blob-type", "BlockBlob")
+                .set("Accept-Ranges", "bytes");
+        if (method == HttpMethod.HEAD) {
+            headers.set("Content-Length", Integer.toString(blob.content().length));
+            return respond(request, 200, headers, new byte[0]);
+        }
+
+        byte[] content = blob.content();
+        String range = request.getHeaders().getValue("x-ms-range");
+        if (range == null) {
+            return respond(request, 200, headers.set("Content-Length", Integer.toString(content.length)), content);
+        }
+        String[] bounds = range.substring("bytes=".length()).split("-");
+        int start = Integer.parseInt(bounds[0]);
+        int end = bounds.length > 1 && !bounds[1].isEmpty()
+                ? Math.min(Integer.parseInt(bounds[1]), content.length - 1) : content.length - 1;
+        if (start >= content.length) {
+            return error(request, 416, "InvalidRange");
+        }
+        byte[] slice = new byte[end - start + 1];
+        System.arraycopy(content, start, slice, 0, slice.length);
+        headers.set("Content-Length", Integer.toString(slice.length))
+                .set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+        return respond(request, 206, headers, slice);
+    }
+
+    private HttpResponse stored(HttpRequest request, String path, byte[] content) {
+        if ("*".equals(request.getHeaders().getValue("If-None-Match")) && blobs.containsKey(path)) {
+            return error(request, 409, "BlobAlreadyExists");
+        }
+        String contentType = request.getHeaders().getValue("x-ms-blob-content-type");
+        Blob blob = new Blob(content, contentType == null ? "application/octet-stream" : contentType, newEtag());
+        blobs.put(path, blob);
+        return respond(request, 201, headers(blob.etag()).set("x-ms-request-server-encrypted", "true"));
+    }
+
+    private static byte[] body(HttpRequest request) {
+        BinaryData body = request.getBodyAsBinaryData();
+        return body == null ? new byte[0] : body.toBytes();
+    }
+
+    private static HttpHeaders headers(String etag) {
+        HttpHeaders headers = new HttpHeaders()
+                .set("x-ms-request-id", UUID.randomUUID().toString())
+                .set("x-ms-version", "2021-12-02")
+                .set("Date", DateTimeFormatter.RFC_1123_DATE_TIME.format(OffsetDateTime.now(ZoneOffset.UTC)))
+                .set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(OffsetDateTime.now(ZoneOffset.UTC)));
+        if (etag != null) {
+            headers.set("ETag", etag);
+        }
+        return headers;
+    }
+
+    private static HttpResponse error(HttpRequest request, int status, String code) {
+        String xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?><Error><Code>" + code + "</Code><Message>" + code
+                + "</Message></Error>";
+        HttpHeaders headers = headers(null).set("x-ms-error-code", code).set("Content-Type", "application/xml");
+        return respond(request, status, headers, xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HttpResponse respond(HttpRequest request, int status, HttpHeaders headers) {
+        return respond(request, status, headers.set("Content-Length", "0"), new byte[0]);
+    }
+
+    private static HttpResponse respond(HttpRequest request, int status, HttpHeaders headers, byte[] body) {
+        return new HttpResponse(request) {
+            @Override
+            public int getStatusCode() {
+                return status;
+            }
+
+            @Override
+            @Deprecated
+            public String getHeaderValue(String name) {
+                return headers.getValue(name);
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public Flux<ByteBuffer> getBody() {
+                return body.length == 0 ? Flux.empty() : Flux.just(ByteBuffer.wrap(body));
+            }
+
+            @Override
+            public Mono<byte[]> getBodyAsByteArray() {
+                return Mono.just(body);
+            }
+
+            @Override
+            public Mono<String> getBodyAsString() {
+                return getBodyAsString(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public Mono<String> getBodyAsString(Charset charset) {
+                return Mono.just(new String(body, charset));
+            }
+        };
+    }
+
+    private static Map<String, String> query(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                int separator = pair.indexOf('=');
+                String key = separator < 0 ? pair : pair.substring(0, separator);
+                String value = separator < 0 ? "" : pair.substring(separator + 1);
+                query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static String newEtag() {
+        return "\"0x" + Long.toHexString(System.nanoTime()).toUpperCase() + "\"";
+    }
+}
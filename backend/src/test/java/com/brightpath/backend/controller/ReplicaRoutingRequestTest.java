@@ -0,0 +1,133 @@
+package com.brightpath.backend.controller;
+
+import com.brightpath.backend.service.EnrolledCourseIndex;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Whole requests against a primary and a replica that are separate databases with the
+ * same rows, so it shows where each statement of a request went.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingRequestTest.PRIMARY_URL,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "app.datasource.replica-urls=" + ReplicaRoutingRequestTest.REPLICA_URL,
+        "app.datasource.replica-username=sa",
+        "app.datasource.replica-password=",
+        "azure.storage.account-name=routingtest",
+        "azure.storage.account-key=cm91dGluZy10ZXN0LWtleQ==",
+        "cors.allowed-origins=http://localhost:5173",
+        "app.rate-limit.enabled=false"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingRequestTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @TestConfiguration
+    static class BlobStorage {
+        @Bean
+        InMemoryBlobStorage inMemoryBlobStorage() {
+            return new InMemoryBlobStorage();
+        }
+    }
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EnrolledCourseIndex enrolledCourseIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    static void migrateReplica() {
+        // The application migrates the primary; replication would copy the schema over
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @BeforeEach
+    void sameRowsOnBoth() {
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("DELETE FROM course_changes");
+            database.update("DELETE FROM course_revenue");
+            database.update("DELETE FROM enrollments");
+            database.update("DELETE FROM courses");
+            database.update("DELETE FROM users");
+            database.update("INSERT INTO users (id, username, email, password) VALUES (1, 'learner', 'l@example.com', 'x')");
+            database.update("INSERT INTO courses (id, name, description, start_date, price)"
+                    + " VALUES (1, 'Algebra', 'Basics', '2026-01-05', 49.0)");
+        }
+    }
+
+    @Test
+    void writeAfterAReadInTheSameRequestGoesToThePrimary() throws Exception {
+        // Looks the user and course up read-only before enrolling
+        mockMvc.perform(post("/api/enrollments/{userId}/{courseId}", 1, 1)).andExpect(status().isOk());
+
+        assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM enrollments", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM enrollments", Integer.class));
+    }
+
+    @Test
+    void enrolledCourseIdsAreLoadedFromThePrimary() throws Exception {
+        // Enrolled on the primary, not replicated yet
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.update("INSERT INTO users (id, username, email, password) VALUES (2, 'newcomer', 'n@example.com', 'x')");
+        }
+        primary.update("INSERT INTO enrollments (id, user_id, course_id, enrollment_date, progress)"
+                + " VALUES (1, 2, 1, CURRENT_TIMESTAMP, 0)");
+
+        // Also when first read inside a read-only transaction, which would otherwise use the replica
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        assertArrayEquals(new long[]{1}, readOnly.execute(status -> enrolledCourseIndex.enrolledCourseIds(2L)));
+        mockMvc.perform(get("/api/enrollments/user/{userId}/course-ids", 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.courseIds[0]").value(1));
+    }
+
+    @Test
+    void courseChangesAreReadFromThePrimary() throws Exception {
+        // Settled on the primary, but the replica is further behind than the settle window
+        primary.update("INSERT INTO courses (id, name, description, start_date, price)"
+                + " VALUES (2, 'Geometry', 'Shapes', '2026-02-02', 59.0)");
+        primary.update("INSERT INTO course_changes (id, course_id, deleted, changed_at)"
+                + " VALUES (1, 2, FALSE, DATEADD('MINUTE', -5, CURRENT_TIMESTAMP))");
+
+        mockMvc.perform(get("/api/courses/changes").param("since", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].course.name").value("Geometry"))
+                .andExpect(jsonPath("$.token").value("1"));
+        mockMvc.perform(get("/api/courses/changes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes.length()").value(2))
+                .andExpect(jsonPath("$.token").value("1"));
+    }
+}
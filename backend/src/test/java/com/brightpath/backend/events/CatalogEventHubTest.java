@@ -0,0 +1,139 @@
+package com.brightpath.backend.events;
+
+import com.brightpath.backend.cache.InMemorySharedCache;
+import com.brightpath.backend.model.Course;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two hubs sharing one in-memory stand-in behave like two backend nodes sharing Redis.
+ */
+class CatalogEventHubTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    private final InMemorySharedCache shared = new InMemorySharedCache();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CatalogEventHub nodeA = node(2);
+    private final CatalogEventHub nodeB = node(2);
+
+    @AfterEach
+    void stopNodes() {
+        nodeA.shutdown();
+        nodeB.shutdown();
+    }
+
+    @Test
+    void eventPublishedOnOneNodeReachesSubscribersOnEveryNode() throws Exception {
+        RecordingEmitter onA = new RecordingEmitter(2);
+        RecordingEmitter onB = new RecordingEmitter(2);
+        assertTrue(nodeA.subscribe(onA));
+        assertTrue(nodeB.subscribe(onB));
+
+        Course course = new Course("Algebra", "Basics", new java.sql.Date(0), 39.0);
+        course.setId(7L);
+        nodeA.publish(CatalogEvent.courseUpdated(course));
+        nodeA.publish(CatalogEvent.enrollmentsChanged(7L, -1));
+
+        for (RecordingEmitter emitter : List.of(onA, onB)) {
+            emitter.await();
+            assertEquals(2, emitter.events.size());
+            assertTrue(emitter.events.get(0).startsWith("event:catalog\ndata:{\"type\":\"course-updated\",\"courseId\":7,"));
+            assertTrue(emitter.events.get(0).contains("\"name\":\"Algebra\""));
+            assertEquals("event:catalog\ndata:{\"type\":\"enrollments-changed\",\"courseId\":7,\"delta\":-1}\n\n",
+                    emitter.events.get(1));
+        }
+    }
+
+    @Test
+    void subscriberThatFallsBehindIsDroppedWithoutHoldingUpOthers() throws Exception {
+        BlockedEmitter slow = new BlockedEmitter();
+        RecordingEmitter fast = new RecordingEmitter(BUFFER_SIZE * 3);
+        nodeA.subscribe(slow);
+        nodeA.subscribe(fast);
+
+        // The fast subscriber keeps up with every event while the slow one's buffer fills
+        for (long i = 0; i < BUFFER_SIZE * 3; i++) {
+            nodeB.publish(CatalogEvent.courseDeleted(i));
+            fast.await((int) i + 1);
+        }
+
+        assertEquals(BUFFER_SIZE * 3, fast.events.size());
+        assertEquals(1, nodeA.subscriberCount());
+        assertEquals(1.0, meterRegistry.counter("catalog.events.dropped.subscribers").count());
+        slow.release.countDown();
+    }
+
+    @Test
+    void refusesSubscribersOverTheLimit() {
+        assertTrue(nodeA.subscribe(new RecordingEmitter(0)));
+        assertTrue(nodeA.subscribe(new RecordingEmitter(0)));
+        assertFalse(nodeA.subscribe(new RecordingEmitter(0)));
+    }
+
+    private CatalogEventHub node(int maxSubscribers) {
+        return new CatalogEventHub(shared, objectMapper, meterRegistry, Executors.newCachedThreadPool(),
+                BUFFER_SIZE, maxSubscribers, 60_000);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        private final int expected;
+
+        RecordingEmitter(int expected) {
+            this.expected = expected;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder.build().stream().map(data -> data.getData().toString()).collect(Collectors.joining()));
+        }
+
+        void await() throws InterruptedException {
+            await(expected);
+        }
+
+        void await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(events.size() >= count, "events not delivered");
+        }
+    }
+
+    // A client whose socket stopped draining: the first send never returns
+    private static class BlockedEmitter extends SseEmitter {
+
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Broken pipe");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.brightpath.backend.reactive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+@SpringBootTest(classes = ReactiveReadApplication.class, properties = {
+        "spring.config.name=reactive-read",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-read;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "cors.allowed-origins=http://localhost:5173"
+})
+@AutoConfigureWebTestClient
+class ReactiveReadApiTest {
+
+    // Subset of V1__baseline.sql that the read API touches
+    private static final List<String> SCHEMA = List.of(
+            "CREATE TABLE IF NOT EXISTS users (id BIGINT AUTO_INCREMENT PRIMARY KEY, username VARCHAR(255) NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS courses (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL,"
+                    + " description VARCHAR(1000) NOT NULL, start_date DATE NOT NULL, price DOUBLE NOT NULL,"
+                    + " image_url VARCHAR(255), resource_url VARCHAR(255))",
+            "CREATE TABLE IF NOT EXISTS enrollments (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL,"
+                    + " course_id BIGINT NOT NULL)",
+            "DELETE FROM enrollments",
+            "DELETE FROM courses",
+            "DELETE FROM users",
+            "INSERT INTO users (id, username) VALUES (1, 'learner'), (2, 'idle')",
+            "INSERT INTO courses (id, name, description, start_date, price, image_url, resource_url) VALUES"
+                    + " (1, 'Algebra', 'Basics', DATE '2026-01-05', 39.0,"
+                    + " 'https://acct.blob.core.windows.net/course-images/algebra.png', NULL),"
+                    + " (2, 'Geometry', 'Shapes', DATE '2026-03-02', 49.5, NULL,"
+                    + " 'https://acct.blob.core.windows.net/course-resources/geometry.pdf')",
+            "INSERT INTO enrollments (id, user_id, course_id) VALUES (1, 1, 2), (2, 1, 1)");
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setUp() {
+        SCHEMA.forEach(sql -> databaseClient.sql(sql).then().block());
+    }
+
+    @Test
+    void listsAllCoursesInIdOrder() {
+        client.get().uri("/api/courses").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[0].name").isEqualTo("Algebra")
+                .jsonPath("$[0].startDate").isEqualTo("2026-01-05")
+                .jsonPath("$[0].price").isEqualTo(39.0)
+                .jsonPath("$[0].imageFilename").isEqualTo("algebra.png")
+                .jsonPath("$[1].resourceUrl").isEqualTo("https://acct.blob.core.windows.net/course-resources/geometry.pdf");
+    }
+
+    @Test
+    void returnsCourseOrNotFound() {
+        client.get().uri("/api/courses/2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.success").isEqualTo(true)
+                .jsonPath("$.course.name").isEqualTo("Geometry")
+                .jsonPath("$.course.imageUrl").doesNotExist();
+
+        client.get().uri("/api/courses/99").exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.success").isEqualTo(false)
+                .jsonPath("$.message").isEqualTo("Course not found");
+
+        client.get().uri("/api/courses/abc").exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void returnsCoursesOfUserInEnrollmentOrder() {
+        client.get().uri("/api/enrollments/user/1/courses").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.success").isEqualTo(true)
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.courses[0].name").isEqualTo("Geometry")
+                .jsonPath("$.courses[1].name").isEqualTo("Algebra");
+
+        client.get().uri("/api/enrollments/user/2/courses").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(0);
+
+        client.get().uri("/api/enrollments/user/99/courses").exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("User not found");
+    }
+}
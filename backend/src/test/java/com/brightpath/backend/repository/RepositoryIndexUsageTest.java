@@ -0,0 +1,114 @@
+package com.brightpath.backend.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Flyway migrations against an in-memory database and checks with EXPLAIN
+ * that every derived repository query is answered from an index, not a table scan.
+ */
+class RepositoryIndexUsageTest {
+
+    private static final String URL = "jdbc:h2:mem:index_usage;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure().dataSource(URL, "sa", "").load().migrate();
+    }
+
+    @Test
+    void findByUsernameUsesIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM users u WHERE u.username = 'alice'", "uk_users_username");
+    }
+
+    @Test
+    void findByUserIdUsesIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM enrollments e WHERE e.user_id = 1", "idx_enrollments_user_course", "fk_enrollments_user");
+    }
+
+    @Test
+    void countByUserIdUsesIndex() throws SQLException {
+        assertUsesIndex("SELECT COUNT(e.id) FROM enrollments e WHERE e.user_id = 1", "idx_enrollments_user_course", "fk_enrollments_user");
+    }
+
+    @Test
+    void findByCourseIdUsesIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM enrollments e WHERE e.course_id = 1", "idx_enrollments_course_user", "fk_enrollments_course");
+    }
+
+    @Test
+    void countByCourseIdUsesIndex() throws SQLException {
+        assertUsesIndex("SELECT COUNT(e.id) FROM enrollments e WHERE e.course_id = 1", "idx_enrollments_course_user", "fk_enrollments_course");
+    }
+
+    @Test
+    void existsByUserIdAndCourseIdUsesIndex() throws SQLException {
+        assertUsesIndex("SELECT e.id FROM enrollments e WHERE e.user_id = 1 AND e.course_id = 2 LIMIT 1", "idx_enrollments_user_course");
+    }
+
+    @Test
+    void findByUserIdAndCourseIdUsesIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM enrollments e WHERE e.user_id = 1 AND e.course_id = 2", "idx_enrollments_user_course");
+    }
+
+    @Test
+    void findRevenueByPeriodUsesIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM course_revenue r WHERE r.period = 'MONTH'"
+                + " AND r.period_start BETWEEN '2026-01-01' AND '2026-12-01'", "uk_course_revenue_period_course");
+    }
+
+    /**
+     * Single-column lookups on a foreign key may also be answered from the index the
+     * constraint brings along, so those name it as an alternative; the explicit index has
+     * to exist regardless
+     */
+    private void assertUsesIndex(String query, String index, String... alternatives) throws SQLException {
+        assertTrue(indexExists(index), () -> "Missing index " + index);
+        String plan = explain(query);
+        assertFalse(plan.contains("tableScan"), () -> "Table scan for: " + query + "\n" + plan);
+        // H2 prints the chosen index and its lookup condition as "/* PUBLIC.<index>: <column> = ... */"
+        boolean used = plan.contains("/* PUBLIC." + index.toUpperCase(Locale.ROOT));
+        for (String alternative : alternatives) {
+            used |= plan.contains("/* PUBLIC." + alternative.toUpperCase(Locale.ROOT) + "_INDEX");
+        }
+        assertTrue(used, () -> "Index " + index + " not used for: " + query + "\n" + plan);
+    }
+
+    private boolean indexExists(String index) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = ? OR INDEX_NAME LIKE ?")) {
+            // Indexes backing a constraint are named after it
+            statement.setString(1, index.toUpperCase(Locale.ROOT));
+            statement.setString(2, index.toUpperCase(Locale.ROOT) + "\\_INDEX\\_%");
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private String explain(String query) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN " + query)) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            return plan.toString();
+        }
+    }
+}
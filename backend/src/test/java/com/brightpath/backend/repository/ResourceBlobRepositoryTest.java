@@ -0,0 +1,42 @@
+package com.brightpath.backend.repository;
+
+import com.brightpath.backend.model.ResourceBlob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class ResourceBlobRepositoryTest {
+
+    @Autowired
+    private ResourceBlobRepository resourceBlobRepository;
+
+    @BeforeEach
+    void setUp() {
+        resourceBlobRepository.deleteAll();
+    }
+
+    @Test
+    void registeringAnAlreadyRegisteredBlobFailsInsteadOfOverwritingIt() {
+        resourceBlobRepository.saveAndFlush(new ResourceBlob("notes.pdf", "a".repeat(64), "application/pdf", 10, "etag-1"));
+        resourceBlobRepository.incrementRefCount("notes.pdf");
+
+        // A concurrent upload of the same content registers the blob a second time
+        assertThrows(DataIntegrityViolationException.class, () -> resourceBlobRepository.saveAndFlush(
+                new ResourceBlob("notes.pdf", "a".repeat(64), "application/pdf", 10, "etag-2")));
+
+        ResourceBlob stored = resourceBlobRepository.findById("notes.pdf").orElseThrow();
+        assertEquals(2, stored.getRefCount());
+        assertEquals("etag-1", stored.getEtag());
+    }
+}
@@ -0,0 +1,176 @@
+package com.brightpath.backend.service;
+
+import com.azure.core.http.rest.PagedIterable;
+import com.azure.core.http.rest.Response;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.batch.BlobBatch;
+import com.azure.storage.blob.batch.BlobBatchClient;
+import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.BlobItemProperties;
+import com.brightpath.backend.model.BlobDeletion;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.User;
+import com.brightpath.backend.repository.BlobDeletionRepository;
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.repository.ResourceBlobRepository;
+import com.brightpath.backend.repository.ResourceUploadSessionRepository;
+import com.brightpath.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class BlobGarbageCollectorTest {
+
+    @Autowired
+    private BlobDeletionRepository blobDeletionRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ResourceBlobRepository resourceBlobRepository;
+
+    @Autowired
+    private ResourceUploadSessionRepository uploadSessionRepository;
+
+    private final BlobContainerClient profileImages = container("profile-images");
+    private final BlobContainerClient courseImages = container("course-images");
+    private final BlobContainerClient courseResources = container("course-resources");
+    private final BlobBatchClient batchClient = mock(BlobBatchClient.class);
+    private final BlobBatch batch = mock(BlobBatch.class);
+
+    private BlobGarbageCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        blobDeletionRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        when(batchClient.getBlobBatch()).thenReturn(batch);
+        collector = new BlobGarbageCollector(profileImages, courseImages, courseResources, batchClient,
+                blobDeletionRepository, courseRepository, userRepository, resourceBlobRepository,
+                uploadSessionRepository, 24);
+    }
+
+    @Test
+    void sweepRemovesFinishedDeletionsAndRetriesFailures() {
+        collector.scheduleDeletion(courseImages, "deleted.png", null);
+        collector.scheduleDeletion(courseImages, "missing.png", null);
+        collector.scheduleDeletion(courseResources, "rewritten.pdf", "\"0x1\"");
+        collector.scheduleDeletion(courseImages, "throttled.png", null);
+        stubDelete("deleted.png", 202);
+        stubDelete("missing.png", 404);
+        stubDelete("rewritten.pdf", 412);
+        stubDelete("throttled.png", 503);
+
+        collector.sweep();
+
+        verify(batchClient, times(1)).submitBatchWithResponse(eq(batch), eq(false), any(), any());
+        List<BlobDeletion> remaining = blobDeletionRepository.findAll();
+        assertEquals(1, remaining.size());
+        BlobDeletion retry = remaining.get(0);
+        assertEquals("throttled.png", retry.getBlobName());
+        assertEquals(1, retry.getAttempts());
+        assertEquals("HTTP 503", retry.getLastError());
+        assertTrue(retry.getNextAttemptAt().after(new Date()));
+
+        // Not due yet, so the next sweep leaves it alone
+        collector.sweep();
+        verify(batchClient, times(1)).getBlobBatch();
+    }
+
+    @Test
+    void reconcileQueuesOnlyOldUnreferencedBlobs() {
+        Course course = new Course("Algebra", "Basics", new Date(), 10.0,
+                "https://account.blob.core.windows.net/course-images/kept.png");
+        course.setResourceUrl("https://account.blob.core.windows.net/course-resources/kept.pdf");
+        courseRepository.save(course);
+        User user = new User("ada", "ada@example.com", "secret");
+        user.setProfileImageUrl("https://account.blob.core.windows.net/profile-images/ada.png");
+        userRepository.save(user);
+
+        OffsetDateTime old = OffsetDateTime.now().minusDays(3);
+        list(courseImages, blob("kept.png", old), blob("orphan.png", old),
+                blob("fresh.png", OffsetDateTime.now().minusMinutes(5)));
+        list(courseResources, blob("kept.pdf", old), blob("orphan.pdf", old));
+        list(profileImages, blob("ada.png", old));
+
+        collector.reconcile();
+
+        List<String> queued = blobDeletionRepository.findAll().stream()
+                .map(deletion -> deletion.getContainer() + "/" + deletion.getBlobName())
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(List.of("course-images/orphan.png", "course-resources/orphan.pdf"), queued);
+        assertTrue(blobDeletionRepository.findAll().stream().allMatch(deletion -> deletion.getIfMatch() != null));
+    }
+
+    @Test
+    void reconcileMatchesEncodedUrlsToTheBlobsTheyName() {
+        Course course = new Course("Java", "Intro", new Date(), 10.0,
+                "https://account.blob.core.windows.net/course-images/cover%20%281%29.png");
+        course.setResourceUrl("https://account.blob.core.windows.net/course-resources/Intro%20to%20Java%20%28v2%29.pdf");
+        courseRepository.save(course);
+
+        OffsetDateTime old = OffsetDateTime.now().minusDays(3);
+        list(courseImages, blob("cover (1).png", old));
+        list(courseResources, blob("Intro to Java (v2).pdf", old), blob("Intro to Java (v1).pdf", old));
+        list(profileImages);
+
+        collector.reconcile();
+
+        List<String> queued = blobDeletionRepository.findAll().stream()
+                .map(deletion -> deletion.getContainer() + "/" + deletion.getBlobName())
+                .collect(Collectors.toList());
+        assertEquals(List.of("course-resources/Intro to Java (v1).pdf"), queued);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubDelete(String blobName, int status) {
+        Response<Void> response = mock(Response.class);
+        when(response.getStatusCode()).thenReturn(status);
+        when(batch.deleteBlob(any(), eq(blobName), any(), any())).thenReturn(response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void list(BlobContainerClient container, BlobItem... blobs) {
+        PagedIterable<BlobItem> iterable = mock(PagedIterable.class);
+        when(iterable.iterator()).thenAnswer(invocation -> List.of(blobs).iterator());
+        when(container.listBlobs()).thenReturn(iterable);
+    }
+
+    private static BlobItem blob(String name, OffsetDateTime lastModified) {
+        return new BlobItem().setName(name)
+                .setProperties(new BlobItemProperties().setLastModified(lastModified).setETag("\"0x" + name.hashCode() + "\""));
+    }
+
+    private static BlobContainerClient container(String name) {
+        BlobContainerClient container = mock(BlobContainerClient.class);
+        when(container.getBlobContainerName()).thenReturn(name);
+        return container;
+    }
+}
@@ -0,0 +1,91 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.dto.CourseChangeDto;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.CourseChange;
+import com.brightpath.backend.repository.CourseChangeRepository;
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.service.CourseChangeService.ChangePage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CourseChangeService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:course_changes;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "app.courses.changes.settle-seconds=60"
+})
+class CourseChangeServiceTest {
+
+    @Autowired
+    private CourseChangeService courseChangeService;
+
+    @Autowired
+    private CourseChangeRepository courseChangeRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        courseChangeRepository.deleteAll();
+        courseRepository.deleteAll();
+    }
+
+    @Test
+    void aSettledChangeDoesNotCarryTheTokenPastAnEarlierOne() {
+        Course algebra = courseRepository.save(new Course("Algebra", "Basics", new Date(), 49.0));
+        Course geometry = courseRepository.save(new Course("Geometry", "Shapes", new Date(), 59.0));
+        Course logic = courseRepository.save(new Course("Logic", "Proofs", new Date(), 39.0));
+        // The lower id carries the later time (clock skew, or rows inserted out of order)
+        change(1, algebra, "CURRENT_TIMESTAMP");
+        change(2, geometry, "DATEADD('MINUTE', -5, CURRENT_TIMESTAMP)");
+        change(3, logic, "CURRENT_TIMESTAMP");
+
+        ChangePage page = courseChangeService.changesSince(0, 10).orElseThrow();
+        assertEquals(List.of(algebra.getId(), geometry.getId()),
+                page.changes().stream().map(CourseChangeDto::courseId).toList());
+        assertEquals(2, page.token());
+
+        // Nothing settled after the token yet
+        ChangePage caughtUp = courseChangeService.changesSince(page.token(), 10).orElseThrow();
+        assertEquals(List.of(), caughtUp.changes());
+        assertEquals(2, caughtUp.token());
+    }
+
+    @Test
+    void changeTimesComeFromTheDatabase() {
+        Course algebra = courseRepository.save(new Course("Algebra", "Basics", new Date(), 49.0));
+        courseChangeService.record(algebra.getId(), false);
+
+        CourseChange recorded = courseChangeRepository.findAll().get(0);
+        assertNotNull(recorded.getChangedAt());
+    }
+
+    private void change(long id, Course course, String changedAt) {
+        jdbcTemplate.update("INSERT INTO course_changes (id, course_id, deleted, changed_at) VALUES (?, ?, FALSE, "
+                + changedAt + ")", id, course.getId());
+    }
+}
@@ -0,0 +1,131 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.repository.EnrollmentRepository.EnrollmentPair;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CourseRecommendationsTest {
+
+    private static final int STUDENTS = 12_000;
+    private static final int COURSES = 60;
+    private static final int MAX_RELATED = 5;
+    private static final int MAX_COURSES_PER_STUDENT = 8;
+
+    private final EnrollmentRepository enrollmentRepository = mock(EnrollmentRepository.class);
+
+    @Test
+    void matchesAStraightforwardCountOverManyBatchesAndThreads() {
+        List<Pair> pairs = randomEnrollments(new Random(42));
+        when(enrollmentRepository.findPairsAfter(anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            long afterUserId = invocation.getArgument(0);
+            long afterCourseId = invocation.getArgument(1);
+            Pageable page = invocation.getArgument(2);
+            return pairs.stream()
+                    .filter(pair -> pair.userId > afterUserId
+                            || (pair.userId == afterUserId && pair.courseId > afterCourseId))
+                    .limit(page.getPageSize())
+                    .map(EnrollmentPair.class::cast)
+                    .toList();
+        });
+
+        CourseRecommendations recommendations =
+                new CourseRecommendations(enrollmentRepository, MAX_RELATED, MAX_COURSES_PER_STUDENT, 4);
+        recommendations.rebuild();
+
+        Map<Long, long[]> expected = countDirectly(pairs);
+        for (long courseId = 1; courseId <= COURSES; courseId++) {
+            assertArrayEquals(expected.getOrDefault(courseId, new long[0]),
+                    recommendations.relatedCourseIds(courseId, MAX_RELATED), "course " + courseId);
+        }
+        assertEquals(2, recommendations.relatedCourseIds(1L, 2).length);
+    }
+
+    @Test
+    void duplicateEnrollmentRowsCountOnce() {
+        when(enrollmentRepository.findPairsAfter(anyLong(), anyLong(), any())).thenReturn(List.of(
+                new Pair(1, 1), new Pair(1, 1), new Pair(1, 1), new Pair(1, 3),
+                new Pair(2, 1), new Pair(2, 2),
+                new Pair(3, 1), new Pair(3, 2)));
+
+        CourseRecommendations recommendations =
+                new CourseRecommendations(enrollmentRepository, MAX_RELATED, MAX_COURSES_PER_STUDENT, 1);
+        recommendations.rebuild();
+
+        assertArrayEquals(new long[]{2, 3}, recommendations.relatedCourseIds(1L, MAX_RELATED));
+        assertArrayEquals(new long[]{1}, recommendations.relatedCourseIds(2L, MAX_RELATED));
+        assertArrayEquals(new long[]{1}, recommendations.relatedCourseIds(3L, MAX_RELATED));
+    }
+
+    private List<Pair> randomEnrollments(Random random) {
+        List<Pair> pairs = new ArrayList<>();
+        for (long userId = 1; userId <= STUDENTS; userId++) {
+            // Some students over the cap, and lower course ids more popular
+            int taken = random.nextInt(20) == 0 ? MAX_COURSES_PER_STUDENT + 2 : 1 + random.nextInt(4);
+            TreeSet<Long> courses = new TreeSet<>();
+            while (courses.size() < taken) {
+                courses.add(1 + (long) (COURSES * Math.pow(random.nextDouble(), 2)));
+            }
+            for (long courseId : courses) {
+                pairs.add(new Pair(userId, courseId));
+            }
+        }
+        return pairs;
+    }
+
+    private Map<Long, long[]> countDirectly(List<Pair> pairs) {
+        Map<Long, List<Long>> byStudent = new HashMap<>();
+        pairs.forEach(pair -> byStudent.computeIfAbsent(pair.userId, id -> new ArrayList<>()).add(pair.courseId));
+
+        Map<Long, Map<Long, Integer>> counts = new HashMap<>();
+        for (List<Long> courses : byStudent.values()) {
+            if (courses.size() > MAX_COURSES_PER_STUDENT) {
+                continue;
+            }
+            for (long a : courses) {
+                for (long b : courses) {
+                    if (a != b) {
+                        counts.computeIfAbsent(a, id -> new HashMap<>()).merge(b, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        Map<Long, long[]> top = new HashMap<>();
+        counts.forEach((course, partners) -> top.put(course, partners.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<Long, Integer>>comparingInt(Map.Entry::getValue).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(MAX_RELATED)
+                .mapToLong(Map.Entry::getKey)
+                .toArray()));
+        return top;
+    }
+
+    private record Pair(long userId, long courseId) implements EnrollmentPair {
+
+        @Override
+        public Long getUserId() {
+            return userId;
+        }
+
+        @Override
+        public Long getCourseId() {
+            return courseId;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.cache.InMemorySharedCache;
+import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.service.EnrolledCourseIndex.EnrollmentChange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two indexes sharing one in-memory stand-in behave like two backend nodes sharing Redis.
+ */
+class EnrolledCourseIndexTest {
+
+    private final InMemorySharedCache shared = new InMemorySharedCache();
+    private final EnrollmentRepository enrollmentRepository = mock(EnrollmentRepository.class);
+    private final EnrolledCourseIndex nodeA = new EnrolledCourseIndex(enrollmentRepository, shared, 100, 30);
+    private final EnrolledCourseIndex nodeB = new EnrolledCourseIndex(enrollmentRepository, shared, 100, 30);
+
+    @Test
+    void loadsOnceAndAppliesChangesInPlace() {
+        when(enrollmentRepository.findCourseIdsByUserId(1L)).thenReturn(List.of(30L, 10L, 20L));
+
+        assertTrue(nodeA.isEnrolled(1L, 20L));
+        assertFalse(nodeA.isEnrolled(1L, 40L));
+        nodeA.onEnrollmentChange(new EnrollmentChange(1L, 40L, true));
+        nodeA.onEnrollmentChange(new EnrollmentChange(1L, 10L, false));
+
+        assertArrayEquals(new long[]{20L, 30L, 40L}, nodeA.enrolledCourseIds(1L));
+        verify(enrollmentRepository, times(1)).findCourseIdsByUserId(1L);
+    }
+
+    @Test
+    void changeOnOneNodeDropsTheOtherNodesBitmap() {
+        when(enrollmentRepository.findCourseIdsByUserId(1L)).thenReturn(List.of(10L));
+        assertTrue(nodeB.isEnrolled(1L, 10L));
+
+        when(enrollmentRepository.findCourseIdsByUserId(1L)).thenReturn(List.of());
+        nodeA.onEnrollmentChange(new EnrollmentChange(1L, 10L, false));
+
+        assertFalse(nodeB.isEnrolled(1L, 10L));
+        verify(enrollmentRepository, times(2)).findCourseIdsByUserId(1L);
+    }
+
+    @Test
+    void loadThatRacedWithAChangeIsNotKept() {
+        // The change commits while the query is running, so the rows read may predate it
+        when(enrollmentRepository.findCourseIdsByUserId(1L)).thenAnswer(invocation -> {
+            nodeA.onEnrollmentChange(new EnrollmentChange(1L, 10L, true));
+            return List.of();
+        }).thenReturn(List.of(10L));
+
+        assertFalse(nodeA.isEnrolled(1L, 10L));
+        assertTrue(nodeA.isEnrolled(1L, 10L));
+        assertTrue(nodeA.isEnrolled(1L, 10L));
+        verify(enrollmentRepository, times(2)).findCourseIdsByUserId(1L);
+    }
+}
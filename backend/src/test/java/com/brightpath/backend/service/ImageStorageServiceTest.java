@@ -0,0 +1,165 @@
+package com.brightpath.backend.service;
+
+import com.azure.core.http.HttpResponse;
+import com.azure.core.util.Context;
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.brightpath.backend.config.BlobCallRejectedException;
+import com.brightpath.backend.config.BlobContainerInitializer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ImageStorageServiceTest {
+
+    private final BlobContainerClient profileImages = mock(BlobContainerClient.class);
+    private final BlobContainerClient courseImages = mock(BlobContainerClient.class);
+    private final BlobContainerInitializer containerInitializer = mock(BlobContainerInitializer.class);
+
+    private final ImageStorageService service = new ImageStorageService(profileImages, courseImages,
+            containerInitializer, mock(BlobGarbageCollector.class), true, false, 0.85f);
+
+    @Test
+    void renamedNonImageIsRejectedWithoutTouchingStorage() {
+        MockMultipartFile file = new MockMultipartFile("image", "photo.jpg", "image/jpeg",
+                "definitely not a picture".getBytes(StandardCharsets.UTF_8));
+
+        IOException e = assertThrows(IOException.class, () -> service.uploadCourseImage(file));
+
+        assertTrue(e.getMessage().contains("not a supported image"));
+        verifyNoInteractions(courseImages, containerInitializer);
+    }
+
+    @Test
+    void truncatedBmpIsRejectedWithoutTouchingStorage() throws IOException {
+        byte[] bmp = bmp(64, 64);
+        byte[] truncated = new byte[40];
+        System.arraycopy(bmp, 0, truncated, 0, truncated.length);
+        MockMultipartFile file = new MockMultipartFile("image", "photo.bmp", "image/bmp", truncated);
+
+        assertThrows(IOException.class, () -> service.uploadCourseImage(file));
+        verifyNoInteractions(courseImages, containerInitializer);
+    }
+
+    @Test
+    void formatComesFromContentNotName() throws IOException {
+        BlobClient blobClient = mock(BlobClient.class);
+        when(profileImages.getBlobClient(any())).thenReturn(blobClient);
+        ByteArrayOutputStream gif = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_INDEXED), "gif", gif);
+        MockMultipartFile file = new MockMultipartFile("profileImage", "avatar.bmp", "image/bmp", gif.toByteArray());
+
+        service.uploadProfileImage(file);
+
+        ArgumentCaptor<String> name = ArgumentCaptor.forClass(String.class);
+        verify(profileImages).getBlobClient(name.capture());
+        assertTrue(name.getValue().endsWith(".gif"));
+        ArgumentCaptor<BlobParallelUploadOptions> options = ArgumentCaptor.forClass(BlobParallelUploadOptions.class);
+        verify(blobClient).uploadWithResponse(options.capture(), eq(null), eq(Context.NONE));
+        assertEquals("image/gif", options.getValue().getHeaders().getContentType());
+    }
+
+    @Test
+    void failedReencodeWritesNothing() throws IOException {
+        ImageStorageService failing = spy(service);
+        doThrow(new IOException("encoder failed")).when(failing).encode(any(), any(), any());
+        MockMultipartFile file = new MockMultipartFile("image", "scan.bmp", "image/bmp", bmp(64, 64));
+
+        IOException e = assertThrows(IOException.class, () -> failing.uploadCourseImage(file));
+
+        assertFalse(e instanceof StorageUnavailableException);
+        verifyNoInteractions(courseImages, containerInitializer);
+    }
+
+    @Test
+    void reencodedImageIsUploadedInOneRequest() throws IOException {
+        BlobClient blobClient = mock(BlobClient.class);
+        when(courseImages.getBlobClient(any())).thenReturn(blobClient);
+        MockMultipartFile file = new MockMultipartFile("image", "scan.bmp", "image/bmp", bmp(64, 64));
+
+        service.uploadCourseImage(file);
+
+        ArgumentCaptor<BlobParallelUploadOptions> options = ArgumentCaptor.forClass(BlobParallelUploadOptions.class);
+        verify(blobClient).uploadWithResponse(options.capture(), eq(null), eq(Context.NONE));
+        assertEquals("image/jpeg", options.getValue().getHeaders().getContentType());
+        byte[] uploaded = options.getValue().getDataStream().readAllBytes();
+        assertEquals(ImageFormat.JPEG, ImageFormat.sniff(uploaded, uploaded.length));
+    }
+
+    @Test
+    void onlyUnavailableStorageIsReportedAsSuch() throws IOException {
+        BlobClient blobClient = mock(BlobClient.class);
+        when(courseImages.getBlobClient(any())).thenReturn(blobClient);
+        ByteArrayOutputStream gif = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_INDEXED), "gif", gif);
+        MockMultipartFile file = new MockMultipartFile("image", "cover.gif", "image/gif", gif.toByteArray());
+
+        doThrow(storageError(403)).when(blobClient).uploadWithResponse(any(), any(), any());
+        IOException refused = assertThrows(IOException.class, () -> service.uploadCourseImage(file));
+        assertFalse(refused instanceof StorageUnavailableException);
+
+        for (int status : new int[]{408, 429, 503}) {
+            doThrow(storageError(status)).when(blobClient).uploadWithResponse(any(), any(), any());
+            assertThrows(StorageUnavailableException.class, () -> service.uploadCourseImage(file));
+        }
+        doThrow(new BlobCallRejectedException("open")).when(blobClient).uploadWithResponse(any(), any(), any());
+        assertThrows(StorageUnavailableException.class, () -> service.uploadCourseImage(file));
+    }
+
+    @Test
+    void bmpIsReencodedToMuchSmallerJpeg() throws IOException {
+        byte[] bmp = bmp(400, 300);
+        MockMultipartFile file = new MockMultipartFile("image", "scan.bmp", "image/bmp", bmp);
+
+        BufferedImage decoded = service.decode(file);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.encode(decoded, ImageFormat.JPEG, out);
+
+        byte[] jpeg = out.toByteArray();
+        assertEquals(ImageFormat.JPEG, ImageFormat.sniff(jpeg, jpeg.length));
+        assertTrue(jpeg.length * 4 < bmp.length, "jpeg " + jpeg.length + " vs bmp " + bmp.length);
+        BufferedImage roundTrip = ImageIO.read(new ByteArrayInputStream(jpeg));
+        assertEquals(400, roundTrip.getWidth());
+        assertEquals(300, roundTrip.getHeight());
+    }
+
+    private static BlobStorageException storageError(int status) {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatusCode()).thenReturn(status);
+        return new BlobStorageException("HTTP " + status, response, null);
+    }
+
+    private static byte[] bmp(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8 | 0x80);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "bmp", out);
+        return out.toByteArray();
+    }
+}
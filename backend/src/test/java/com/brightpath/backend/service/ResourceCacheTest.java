@@ -0,0 +1,215 @@
+package com.brightpath.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceCacheTest {
+
+    private static final String CONTENT_ADDRESSED = "a".repeat(64) + ".pdf";
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong now = new AtomicLong();
+    private final FakeStorage storage = new FakeStorage();
+
+    @Test
+    void servesRepeatedDownloadsLocallyAndRevalidatesWithTheETag() throws IOException {
+        ResourceCache cache = cache(1000, 100, 10_000);
+        storage.put("small.pdf", bytes(50, 1));
+        storage.put("large.pdf", bytes(500, 2));
+
+        assertArrayEquals(bytes(50, 1), read(cache, "small.pdf"));
+        assertArrayEquals(bytes(500, 2), read(cache, "large.pdf"));
+        assertArrayEquals(bytes(50, 1), read(cache, "small.pdf"));
+        assertArrayEquals(bytes(500, 2), read(cache, "large.pdf"));
+        assertEquals(List.of("small.pdf:null", "large.pdf:null"), storage.requests);
+
+        // Past the revalidation interval: unchanged blobs answer 304, changed ones are fetched
+        now.addAndGet(TimeUnit.MINUTES.toMillis(6));
+        storage.put("large.pdf", bytes(400, 3));
+        assertArrayEquals(bytes(50, 1), read(cache, "small.pdf"));
+        assertArrayEquals(bytes(400, 3), read(cache, "large.pdf"));
+        assertEquals(List.of("small.pdf:null", "large.pdf:null", "small.pdf:etag-1", "large.pdf:etag-2"),
+                storage.requests);
+        assertArrayEquals(bytes(400, 3), read(cache, "large.pdf"));
+        assertEquals(4, storage.requests.size());
+        assertEquals(2, cachedFiles());
+    }
+
+    @Test
+    void contentAddressedBlobsAreNeverRevalidated() throws IOException {
+        ResourceCache cache = cache(1000, 100, 10_000);
+        storage.put(CONTENT_ADDRESSED, bytes(300, 4));
+
+        read(cache, CONTENT_ADDRESSED);
+        now.addAndGet(TimeUnit.DAYS.toMillis(30));
+        assertArrayEquals(bytes(300, 4), read(cache, CONTENT_ADDRESSED));
+        assertEquals(1, storage.requests.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedFilesToStayWithinTheDiskBound() throws IOException {
+        ResourceCache cache = cache(0, 0, 1000);
+        storage.put("a.pdf", bytes(400, 1));
+        storage.put("b.pdf", bytes(400, 2));
+        storage.put("c.pdf", bytes(400, 3));
+        storage.put("huge.pdf", bytes(1500, 4));
+
+        read(cache, "a.pdf");
+        read(cache, "b.pdf");
+        read(cache, "a.pdf");
+        read(cache, "c.pdf"); // Evicts b, the least recently used
+        assertEquals(2, cachedFiles());
+
+        read(cache, "a.pdf");
+        read(cache, "b.pdf");
+        assertEquals(List.of("a.pdf:null", "b.pdf:null", "c.pdf:null", "b.pdf:null"), storage.requests);
+
+        // Larger than the whole cache: served from the download, which is then removed
+        assertArrayEquals(bytes(1500, 4), read(cache, "huge.pdf"));
+        assertEquals(2, cachedFiles());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void servesTheCachedCopyWhileStorageIsUnavailable() throws IOException {
+        ResourceCache cache = cache(1000, 100, 10_000);
+        storage.put("notes.pdf", bytes(50, 1));
+        read(cache, "notes.pdf");
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(6));
+        storage.unavailable = true;
+        assertArrayEquals(bytes(50, 1), read(cache, "notes.pdf"));
+        assertThrows(StorageUnavailableException.class, () -> read(cache, "other.pdf"));
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() throws Exception {
+        ResourceCache cache = cache(0, 0, 10_000);
+        storage.put("popular.pdf", bytes(500, 5));
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ResourceCache.Fetcher slow = (ifNoneMatch, target) -> {
+            fetching.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            synchronized (storage) {
+                return storage.fetch("popular.pdf", ifNoneMatch, target);
+            }
+        };
+
+        ExecutorService downloads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> reads = new ArrayList<>();
+            reads.add(downloads.submit(() -> read(cache, "popular.pdf", slow)));
+            assertTrue(fetching.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < 8; i++) {
+                reads.add(downloads.submit(() -> read(cache, "popular.pdf", slow)));
+            }
+            Thread.sleep(200); // Lets the others reach the cache and wait on the fetch
+            release.countDown();
+            for (Future<byte[]> download : reads) {
+                assertArrayEquals(bytes(500, 5), download.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            downloads.shutdownNow();
+        }
+        assertEquals(List.of("popular.pdf:null"), storage.requests);
+        assertEquals(1, cachedFiles());
+    }
+
+    @Test
+    void startsEmpty() throws IOException {
+        Files.write(directory.resolve("left-over.blob"), bytes(10, 1));
+        Files.write(directory.resolve("unrelated.txt"), bytes(10, 1));
+        cache(1000, 100, 10_000);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(directory.resolve("unrelated.txt")), files.toList());
+        }
+    }
+
+    private ResourceCache cache(long memoryMaxBytes, long memoryMaxFileBytes, long diskMaxBytes) throws IOException {
+        return new ResourceCache(directory, memoryMaxBytes, memoryMaxFileBytes, diskMaxBytes, 300, now::get);
+    }
+
+    private byte[] read(ResourceCache cache, String blobName) throws IOException {
+        return read(cache, blobName, (ifNoneMatch, target) -> storage.fetch(blobName, ifNoneMatch, target));
+    }
+
+    private byte[] read(ResourceCache cache, String blobName, ResourceCache.Fetcher fetcher) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResourceCache.Content content = cache.open(blobName, fetcher)) {
+            content.transferTo(out);
+            assertEquals(content.size(), out.size());
+        }
+        return out.toByteArray();
+    }
+
+    private long cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".blob")).count();
+        }
+    }
+
+    private static byte[] bytes(int size, int seed) {
+        byte[] bytes = new byte[size];
+        Arrays.fill(bytes, (byte) seed);
+        bytes[size - 1] = (byte) size;
+        return bytes;
+    }
+
+    private static final class FakeStorage {
+        final Map<String, byte[]> blobs = new HashMap<>();
+        final Map<String, String> etags = new HashMap<>();
+        final List<String> requests = new ArrayList<>();
+        int versions;
+        boolean unavailable;
+
+        void put(String name, byte[] content) {
+            blobs.put(name, content);
+            etags.put(name, "etag-" + ++versions);
+        }
+
+        String fetch(String name, String ifNoneMatch, Path target) throws IOException {
+            if (unavailable) {
+                throw new StorageUnavailableException("storage unavailable", null);
+            }
+            requests.add(name + ":" + ifNoneMatch);
+            if (etags.get(name).equals(ifNoneMatch)) {
+                return null;
+            }
+            Files.write(target, blobs.get(name));
+            return etags.get(name);
+        }
+    }
+}
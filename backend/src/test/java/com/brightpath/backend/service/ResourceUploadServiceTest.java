@@ -0,0 +1,87 @@
+package com.brightpath.backend.service;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import com.brightpath.backend.config.BlobCallRejectedException;
+import com.brightpath.backend.model.ResourceUploadSession;
+import com.brightpath.backend.repository.ResourceUploadSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResourceUploadServiceTest {
+
+    private final BlobContainerClient container = mock(BlobContainerClient.class);
+    private final ResourceUploadSessionRepository uploadSessionRepository = mock(ResourceUploadSessionRepository.class);
+    private final ResourceUploadService service = new ResourceUploadService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "courseResourcesContainerClient", container);
+        ReflectionTestUtils.setField(service, "uploadSessionRepository", uploadSessionRepository);
+        ReflectionTestUtils.setField(service, "resourceStorageService", mock(ResourceStorageService.class));
+    }
+
+    @Test
+    void oneFailingUploadDoesNotHoldUpTheOthers() {
+        ResourceUploadSession broken = session("broken");
+        ResourceUploadSession replaced = session("replaced");
+        BlobStorageException notFound = notFound();
+        when(blob(broken).openInputStream()).thenThrow(new IllegalStateException("corrupt block list"));
+        when(blob(replaced).openInputStream()).thenThrow(notFound);
+        when(uploadSessionRepository.findByCommittedAtNotNullOrderByCommittedAtAsc(any()))
+                .thenReturn(List.of(broken, replaced));
+
+        service.verifyCommittedUploads();
+
+        verify(uploadSessionRepository, never()).delete(broken);
+        verify(uploadSessionRepository).delete(replaced);
+    }
+
+    @Test
+    void unavailableStorageEndsTheRun() {
+        ResourceUploadSession first = session("first");
+        ResourceUploadSession second = session("second");
+        when(blob(first).openInputStream()).thenThrow(new BlobCallRejectedException("circuit open"));
+        BlockBlobClient secondBlob = blob(second);
+        when(uploadSessionRepository.findByCommittedAtNotNullOrderByCommittedAtAsc(any()))
+                .thenReturn(List.of(first, second));
+
+        service.verifyCommittedUploads();
+
+        verify(secondBlob, never()).openInputStream();
+        verify(uploadSessionRepository, never()).delete(any());
+    }
+
+    private BlockBlobClient blob(ResourceUploadSession session) {
+        BlobClient blobClient = mock(BlobClient.class);
+        BlockBlobClient blockBlobClient = mock(BlockBlobClient.class);
+        when(container.getBlobClient(session.getBlobName())).thenReturn(blobClient);
+        when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+        return blockBlobClient;
+    }
+
+    private static ResourceUploadSession session(String id) {
+        ResourceUploadSession session = new ResourceUploadSession();
+        session.setId(id);
+        session.setBlobName("resource_" + id + ".pdf");
+        session.setSha256("0".repeat(64));
+        return session;
+    }
+
+    private static BlobStorageException notFound() {
+        BlobStorageException notFound = mock(BlobStorageException.class);
+        when(notFound.getStatusCode()).thenReturn(404);
+        return notFound;
+    }
+}
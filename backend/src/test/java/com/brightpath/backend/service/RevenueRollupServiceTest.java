@@ -0,0 +1,198 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.cache.InMemorySharedCache;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.CourseRevenue;
+import com.brightpath.backend.model.Enrollment;
+import com.brightpath.backend.model.RevenuePeriod;
+import com.brightpath.backend.model.User;
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.repository.CourseRevenueRepository;
+import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EnrollmentService.class, EnrolledCourseIndex.class, InMemorySharedCache.class, RevenueRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:revenue;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "app.revenue.backfill-batch-size=3"
+})
+class RevenueRollupServiceTest {
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private RevenueRollupService revenueRollupService;
+
+    @Autowired
+    private CourseRevenueRepository courseRevenueRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRevenueRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void refundsReturnWhatWasChargedAfterAPriceChange() {
+        Course course = courseRepository.save(new Course("Statistics", "Intro", new Date(), 19.99));
+        List<User> students = List.of(student("ada"), student("bo"), student("cy"));
+        students.forEach(student -> enrollmentService.enrollUser(student, course));
+
+        course.setPrice(25.0);
+        courseRepository.save(course);
+        enrollmentService.enrollUser(student("di"), course);
+        enrollmentService.unenrollUser(students.get(0).getId(), course.getId());
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (RevenuePeriod period : RevenuePeriod.values()) {
+            List<CourseRevenue> rows = revenueRollupService.report(period, today, today, null);
+            assertEquals(1, rows.size(), period.name());
+            CourseRevenue row = rows.get(0);
+            assertEquals(period.startOf(today), row.getPeriodStart());
+            assertEquals(4, row.getEnrollments());
+            assertEquals(1, row.getRefunds());
+            assertEquals(new BigDecimal("84.97"), row.getGross());
+            assertEquals(new BigDecimal("19.99"), row.getRefunded());
+            assertEquals(new BigDecimal("64.98"), row.getNet());
+        }
+    }
+
+    @Test
+    void backfillPricesEarlierEnrollmentsOnceInBatches() {
+        Course algebra = courseRepository.save(new Course("Algebra", "Basics", new Date(), 10.10));
+        Course geometry = courseRepository.save(new Course("Geometry", "Shapes", new Date(), 0.3));
+        LocalDate january = LocalDate.of(2026, 1, 31);
+        LocalDate february = LocalDate.of(2026, 2, 1);
+        for (int i = 0; i < 7; i++) {
+            Enrollment enrollment = new Enrollment();
+            enrollment.setUser(student("student" + i));
+            enrollment.setCourse(i % 2 == 0 ? algebra : geometry);
+            enrollment.setEnrollmentDate(Date.from((i < 4 ? january : february).atTime(23, 59)
+                    .toInstant(ZoneOffset.UTC)));
+            enrollmentRepository.save(enrollment);
+        }
+
+        assertEquals(7, revenueRollupService.backfill());
+        assertEquals(0, revenueRollupService.backfill());
+
+        List<CourseRevenue> months = revenueRollupService.report(RevenuePeriod.MONTH, january, february, algebra.getId());
+        assertEquals(2, months.size());
+        assertEquals(LocalDate.of(2026, 1, 1), months.get(0).getPeriodStart());
+        assertEquals(2, months.get(0).getEnrollments());
+        assertEquals(new BigDecimal("20.20"), months.get(0).getGross());
+        assertEquals(2, months.get(1).getEnrollments());
+
+        List<CourseRevenue> days = revenueRollupService.report(RevenuePeriod.DAY, january, january, geometry.getId());
+        assertEquals(1, days.size());
+        assertEquals(new BigDecimal("0.60"), days.get(0).getGross());
+
+        // A backfilled enrollment refunds the amount it was priced at
+        Enrollment enrolled = enrollmentRepository.findByCourseId(geometry.getId()).get(0);
+        assertEquals(new BigDecimal("0.30"), enrolled.getAmountPaid());
+        enrollmentService.unenrollUser(enrolled.getUser().getId(), geometry.getId());
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        CourseRevenue refund = revenueRollupService.report(RevenuePeriod.DAY, today, today, geometry.getId()).get(0);
+        assertEquals(new BigDecimal("0.30"), refund.getRefunded());
+    }
+
+    @Test
+    void unenrollmentWaitingOnABackfillBatchRefundsWhatItPriced() throws Exception {
+        Course course = courseRepository.save(new Course("Logic", "Proofs", new Date(), 12.5));
+        Enrollment enrollment = new Enrollment();
+        enrollment.setUser(student("ed"));
+        enrollment.setCourse(course);
+        enrollment.setEnrollmentDate(new Date());
+        enrollmentRepository.save(enrollment);
+
+        // A backfill batch that holds its rows while the enrollment is unenrolled
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch priced = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> backfill = executor.submit(() -> new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> {
+                        enrollmentRepository.lockUnpriced(List.of(enrollment.getId()));
+                        locked.countDown();
+                        await(priced);
+                        enrollmentRepository.setAmountPaid(List.of(enrollment.getId()), new BigDecimal("12.50"));
+                        LocalDate day = LocalDate.now(ZoneOffset.UTC);
+                        courseRevenueRepository.add(course.getId(), day, RevenuePeriod.MONTH.startOf(day),
+                                1, 0, new BigDecimal("12.50"), BigDecimal.ZERO);
+                    }));
+            await(locked);
+            Future<?> unenroll = executor.submit(() ->
+                    enrollmentService.unenrollUser(enrollment.getUser().getId(), course.getId()));
+            Thread.sleep(300);
+            priced.countDown();
+            backfill.get(10, TimeUnit.SECONDS);
+            unenroll.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        CourseRevenue month = revenueRollupService.report(RevenuePeriod.MONTH, today, today, course.getId()).get(0);
+        assertEquals(1, month.getEnrollments());
+        assertEquals(1, month.getRefunds());
+        assertEquals(new BigDecimal("0.00"), month.getNet());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out");
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private User student(String name) {
+        return userRepository.save(new User(name, name + "@example.com", "secret"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.cache.InMemorySharedCache;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.CourseChange;
+import com.brightpath.backend.model.Enrollment;
+import com.brightpath.backend.model.User;
+import com.brightpath.backend.repository.CourseChangeRepository;
+import com.brightpath.backend.repository.CourseRepository;
+import com.brightpath.backend.repository.CourseRevenueRepository;
+import com.brightpath.backend.repository.EnrollmentRepository;
+import com.brightpath.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts JDBC statements and connection/commit round trips for the service write paths, compared
+ * with the same repository calls made one implicit transaction at a time (the old behaviour).
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CourseService.class, CourseChangeService.class, EnrollmentService.class, EnrolledCourseIndex.class,
+        InMemorySharedCache.class, RevenueRollupService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:round_trips;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+class TransactionRoundTripBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionRoundTripBenchmarkTest.class);
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CourseChangeRepository courseChangeRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRevenueRepository courseRevenueRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void updateCourseUsesOneTransaction() {
+        Long id = courseRepository.save(course("Before")).getId();
+
+        RoundTrips before = measure(() -> {
+            Course course = courseRepository.findById(id).orElseThrow();
+            course.setName("Implicit");
+            courseRepository.save(course);
+            courseChangeRepository.save(new CourseChange(id, false));
+        });
+        RoundTrips after = measure(() -> courseService.updateCourse(id, course("Explicit")));
+
+        report("updateCourse", before, after);
+        assertEquals(1, after.connections);
+        assertTrue(after.connections < before.connections);
+        assertTrue(after.statements <= before.statements);
+    }
+
+    @Test
+    void unenrollUserUsesOneTransaction() {
+        User user = userRepository.save(new User("learner", "learner@example.com", "secret"));
+        Course course = courseRepository.save(course("Enrolled"));
+
+        enrollmentService.enrollUser(user, course);
+        RoundTrips before = measure(() -> {
+            Enrollment enrollment = enrollmentRepository
+                    .findByUserIdAndCourseId(user.getId(), course.getId()).orElseThrow();
+            enrollmentRepository.delete(enrollment);
+            courseRevenueRepository.add(course.getId(), LocalDate.now(), LocalDate.now().withDayOfMonth(1),
+                    0, 1, BigDecimal.ZERO, enrollment.getAmountPaid());
+        });
+
+        enrollmentService.enrollUser(user, course);
+        RoundTrips after = measure(() -> enrollmentService.unenrollUser(user.getId(), course.getId()));
+
+        report("unenrollUser", before, after);
+        assertEquals(1, after.connections);
+        assertTrue(after.connections < before.connections);
+        assertTrue(after.statements <= before.statements);
+    }
+
+    private RoundTrips measure(Runnable action) {
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+        action.run();
+        return new RoundTrips(statistics.getPrepareStatementCount(), statistics.getConnectCount());
+    }
+
+    private void report(String operation, RoundTrips before, RoundTrips after) {
+        logger.info("{} statements {} -> {}, connections/commits {} -> {}", operation,
+                before.statements, after.statements, before.connections, after.connections);
+    }
+
+    private Course course(String name) {
+        return new Course(name, "Description", new Date(), 10.0);
+    }
+
+    // Each implicit repository transaction takes its own connection and commit
+    private record RoundTrips(long statements, long connections) {
+    }
+}
@@ -0,0 +1,142 @@
+package com.brightpath.backend.service;
+
+import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobProperties;
+import com.brightpath.backend.config.BlobContainerInitializer;
+import com.brightpath.backend.model.Course;
+import com.brightpath.backend.model.UploadCompletion;
+import com.brightpath.backend.repository.UploadCompletionRepository;
+import com.brightpath.backend.service.UploadIntentService.Target;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadIntentServiceTest {
+
+    private final BlobContainerClient profileImages = mock(BlobContainerClient.class);
+    private final BlobContainerClient courseImages = mock(BlobContainerClient.class);
+    private final BlobContainerClient courseResources = mock(BlobContainerClient.class);
+    private final AzureBlobService azureBlobService = mock(AzureBlobService.class);
+    private final ResourceStorageService resourceStorageService = mock(ResourceStorageService.class);
+    private final CourseService courseService = mock(CourseService.class);
+    private final UploadCompletionRepository uploadCompletionRepository = mock(UploadCompletionRepository.class);
+    private final Course course = new Course("Algebra", "Basics", new Date(), 49.0);
+
+    private final UploadIntentService service = new UploadIntentService(profileImages, courseImages, courseResources,
+            mock(BlobContainerInitializer.class), azureBlobService, mock(ImageStorageService.class),
+            resourceStorageService, courseService, mock(UserService.class), uploadCompletionRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "intentSecret", "test-secret");
+        ReflectionTestUtils.setField(service, "sasExpiryMinutes", 10);
+        ReflectionTestUtils.setField(service, "maxResourceSize", 1024L * 1024);
+        course.setId(7L);
+        when(courseService.findById(7L)).thenReturn(Optional.of(course));
+        when(azureBlobService.generateUploadSasUrl(any(), anyString(), anyInt())).thenReturn("https://sas");
+    }
+
+    @Test
+    void blobNamesTakeTheirExtensionFromTheContentType() throws IOException {
+        String image = blobName(service.createIntent(Target.COURSE_IMAGE, 7L, "image/png", 100));
+        assertTrue(image.matches("course_[0-9a-f-]{36}\\.png"), image);
+
+        String video = blobName(service.createIntent(Target.COURSE_RESOURCE, 7L, "video/mp4", 100));
+        assertTrue(video.matches("resource_[0-9a-f-]{36}\\.mp4"), video);
+        String unusualVideo = blobName(service.createIntent(Target.COURSE_RESOURCE, 7L, "video/x-flv", 100));
+        assertTrue(unusualVideo.matches("resource_[0-9a-f-]{36}"), unusualVideo);
+    }
+
+    @Test
+    void tokenWhosePayloadWasChangedIsRejected() throws IOException {
+        String token = token(service.createIntent(Target.COURSE_RESOURCE, 7L, "application/pdf", 100));
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.UTF_8);
+        String otherOwner = payload.replaceFirst("\\|7\\|", "|8|");
+        String tampered = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(otherOwner.getBytes(StandardCharsets.UTF_8)) + "." + parts[1];
+
+        IOException rejected = assertThrows(IOException.class, () -> service.complete(tampered));
+        assertEquals("Invalid upload token", rejected.getMessage());
+        verify(uploadCompletionRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void expiredTokenIsRejected() throws IOException {
+        // Issued so long ago that the SAS and the grace period after it have both run out
+        ReflectionTestUtils.setField(service, "sasExpiryMinutes", -1);
+        String token = token(service.createIntent(Target.COURSE_RESOURCE, 7L, "application/pdf", 100));
+
+        IOException rejected = assertThrows(IOException.class, () -> service.complete(token));
+        assertEquals("Upload token expired", rejected.getMessage());
+    }
+
+    @Test
+    void completingTwiceAttachesOnce() throws IOException {
+        Map<String, Object> intent = service.createIntent(Target.COURSE_RESOURCE, 7L, "application/pdf", 100);
+        String blobName = blobName(intent);
+        BlobClient blobClient = mock(BlobClient.class);
+        when(courseResources.getBlobClient(blobName)).thenReturn(blobClient);
+        when(blobClient.getBlobUrl()).thenReturn("https://account/course-resources/" + blobName);
+        BlobProperties properties = mock(BlobProperties.class);
+        when(properties.getContentType()).thenReturn("application/pdf");
+        when(properties.getBlobSize()).thenReturn(100L);
+        when(properties.getETag()).thenReturn("\"etag-1\"");
+        when(blobClient.getProperties()).thenReturn(properties);
+        UploadCompletion attached = new UploadCompletion(blobName);
+        attached.setAttachedAt(new Date());
+        when(uploadCompletionRepository.saveAndFlush(any()))
+                .thenReturn(attached)
+                .thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(uploadCompletionRepository.findById(blobName)).thenReturn(Optional.of(attached));
+
+        String url = service.complete(token(intent));
+        assertEquals(url, service.complete(token(intent)));
+        verify(courseService, times(1)).updateCourseResource(7L, url);
+        verify(resourceStorageService, times(1)).register(eq(blobName), any(), any(), eq(100L), any());
+    }
+
+    @Test
+    void hostileFilenameCannotSteerTheBlobName() throws IOException {
+        // The filename isn't part of the intent at all; a crafted token naming another blob fails its signature
+        String token = token(service.createIntent(Target.COURSE_IMAGE, 7L, "image/png", 100));
+        String payload = new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]), StandardCharsets.UTF_8);
+        assertEquals(4, payload.split("\\|", -1).length);
+        assertTrue(payload.split("\\|")[2].matches("course_[0-9a-f-]{36}\\.png"), payload);
+
+        String injected = payload.replace(".png|", ".png|x/../profile_other.png|");
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(injected.getBytes(StandardCharsets.UTF_8)) + "." + token.split("\\.")[1];
+        assertThrows(IOException.class, () -> service.complete(forged));
+    }
+
+    private static String blobName(Map<String, Object> intent) {
+        return (String) intent.get("blobName");
+    }
+
+    private static String token(Map<String, Object> intent) {
+        return (String) intent.get("token");
+    }
+}
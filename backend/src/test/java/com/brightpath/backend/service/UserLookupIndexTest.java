@@ -0,0 +1,126 @@
+package com.brightpath.backend.service;
+
+import com.brightpath.backend.cache.InMemorySharedCache;
+import com.brightpath.backend.model.User;
+import com.brightpath.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Import({UserService.class, UserLookupIndex.class, InMemorySharedCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class UserLookupIndexTest {
+
+    private static final int USERS = 2500;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserLookupIndex userLookupIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(user("student" + i));
+        }
+        userRepository.saveAll(users);
+        userLookupIndex.rebuild();
+    }
+
+    @Test
+    void everyExistingUserIsFoundAfterRebuild() {
+        for (int i = 0; i < USERS; i++) {
+            assertTrue(userLookupIndex.mightContainUsername("student" + i));
+            assertTrue(userLookupIndex.mightContainEmail("student" + i + "@example.com"));
+        }
+        // Matches the database's case- and accent-insensitive comparison
+        assertTrue(userLookupIndex.mightContainUsername("STUDENT42"));
+        userService.save(user("José"));
+        assertTrue(userLookupIndex.mightContainUsername("jose"));
+    }
+
+    @Test
+    void mostUnknownNamesAreRuledOut() {
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (userLookupIndex.mightContainUsername("newcomer" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void usernameCheckOfUnknownNameSkipsTheDatabase() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        String unknown = unknownName();
+        assertFalse(userService.isUsernameTaken(unknown));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getConnectCount());
+
+        assertTrue(userService.isUsernameTaken("student7"));
+        assertTrue(statistics.getPrepareStatementCount() > 0);
+    }
+
+    @Test
+    void loginFindsUsersTheFilterHasntSeen() {
+        // Registered on another node whose filter update hasn't arrived here
+        String name = unknownName();
+        userRepository.save(user(name));
+
+        assertFalse(userLookupIndex.mightContainUsername(name));
+        assertTrue(userService.findByUsername(name).isPresent());
+    }
+
+    @Test
+    void savedUserIsFoundWithoutRebuild() {
+        String name = unknownName();
+        userService.save(user(name));
+
+        assertTrue(userService.findByUsername(name).isPresent());
+    }
+
+    private String unknownName() {
+        for (int i = 0; ; i++) {
+            if (!userLookupIndex.mightContainUsername("signup" + i)) {
+                return "signup" + i;
+            }
+        }
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret");
+        return user;
+    }
+}
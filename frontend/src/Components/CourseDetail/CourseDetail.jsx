@@ -10,7 +10,7 @@ import CourseHeader from '../CourseDetail/CourseHeader.jsx';
  
 const CourseDetail = () => {
   const { courseId } = useParams();
-  const { courses, loading, error } = useCourses();
+  const { courses, loading, error, enrollmentCounts, fetchEnrollmentCount } = useCourses();
   const { user } = useUser(); // Get user from context
   const { isEnrolled, enrollInCourse, loading: enrollmentLoading } = useEnrollment(); // Get enrollment functions
   const [course, setCourse] = useState(null);
@@ -23,6 +23,14 @@ const CourseDetail = () => {
     }
   }, [courses, courseId]);
 
+  // Fetched once; after that the catalog feed keeps it current
+  const enrollmentCount = course ? enrollmentCounts[course.id] : undefined;
+  useEffect(() => {
+    if (course && enrollmentCount === undefined) {
+      fetchEnrollmentCount(course.id);
+    }
+  }, [course?.id, enrollmentCount]);
+
   const handleEnroll = async (courseId) => {
     if (!user || !user.id) {
       alert('Please login to enroll in courses');
@@ -204,6 +212,9 @@ const handleDownload = async (courseId, filename = "resource.pdf") => {
                               TechLily@info.com<br />
                               +94 71 123 4567
                             </p>
+                            {enrollmentCount !== undefined && (
+                              <p>{enrollmentCount} {enrollmentCount === 1 ? 'student' : 'students'} enrolled</p>
+                            )}
                           </div>
                         </div>
                       </div>
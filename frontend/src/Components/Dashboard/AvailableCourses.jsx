@@ -12,7 +12,6 @@ const AvailableCourses = () => {
     loading, 
     error, 
     deleteCourse, 
-    refreshCourses, 
     updateCourse 
   } = useCourses();
   
@@ -78,7 +77,6 @@ const handleEnroll = async (courseId) => {
       try {
         await deleteCourse(courseId);
         alert('Course deleted successfully!');
-        await refreshCourses();
       } catch (error) {
         alert(`Failed to delete course: ${error.message}`);
       }
@@ -110,7 +108,6 @@ const handleEnroll = async (courseId) => {
       await updateCourse(editingCourse.id, updatedCourse);
       alert('Course updated successfully!');
       handleCloseModal();
-      await refreshCourses();
     } catch (error) {
       alert(`Failed to update course: ${error.message}`);
     }
@@ -9,6 +9,8 @@ export const CourseProvider = ({ children }) => {
   const [courses, setCourses] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
+  // Enrollment counts of the courses someone has looked at, kept current by the event feed
+  const [enrollmentCounts, setEnrollmentCounts] = useState({});
 
   const fetchCourses = async () => {
     try {
@@ -31,6 +33,24 @@ export const CourseProvider = ({ children }) => {
     }
   };
 
+  const fetchEnrollmentCount = async (courseId) => {
+    try {
+      const token = localStorage.getItem('token');
+      const response = await fetch(`${BACKEND_URL}/api/enrollments/course/${courseId}`, {
+        headers: token ? { 'Authorization': `Bearer ${token}` } : {}
+      });
+
+      if (!response.ok) {
+        throw new Error('Failed to fetch enrollment count');
+      }
+
+      const data = await response.json();
+      setEnrollmentCounts(prev => ({ ...prev, [courseId]: data.count }));
+    } catch (err) {
+      console.error("Enrollment count error:", err);
+    }
+  };
+
   const addCourse = async (courseData) => {
     try {
       const token = localStorage.getItem('token');
@@ -80,7 +100,7 @@ export const CourseProvider = ({ children }) => {
         throw new Error(errorText || 'Failed to update course');
       }
 
-      const updatedCourse = await response.json();
+      const { course: updatedCourse } = await response.json();
       console.log("Updated course:", updatedCourse);
       
       setCourses(prev => prev.map(c => 
@@ -120,6 +140,48 @@ export const CourseProvider = ({ children }) => {
     fetchCourses();
   }, []);
 
+  // Course changes are pushed over server-sent events instead of re-fetching the list.
+  // The browser reconnects on its own; after a reconnect the list is fetched once to
+  // catch up on anything missed while disconnected.
+  useEffect(() => {
+    const events = new EventSource(`${BACKEND_URL}/api/events/catalog`);
+    let connectedBefore = false;
+
+    events.onopen = () => {
+      if (connectedBefore) {
+        fetchCourses();
+        // Fetched again by whoever shows them
+        setEnrollmentCounts({});
+      }
+      connectedBefore = true;
+    };
+
+    events.addEventListener('catalog', (message) => {
+      const event = JSON.parse(message.data);
+      switch (event.type) {
+        case 'course-created':
+        case 'course-updated':
+          setCourses(prev => prev.some(c => c.id === event.courseId)
+            ? prev.map(c => (c.id === event.courseId ? event.course : c))
+            : [...prev, event.course]);
+          break;
+        case 'course-deleted':
+          setCourses(prev => prev.filter(c => c.id !== event.courseId));
+          break;
+        case 'enrollments-changed':
+          // Only counts already fetched; the rest are fetched when first shown
+          setEnrollmentCounts(prev => (event.courseId in prev
+            ? { ...prev, [event.courseId]: prev[event.courseId] + event.delta }
+            : prev));
+          break;
+        default:
+          break;
+      }
+    });
+
+    return () => events.close();
+  }, []);
+
   return (
     <CourseContext.Provider value={{ 
       courses, 
@@ -128,7 +190,9 @@ export const CourseProvider = ({ children }) => {
       addCourse,
       updateCourse,
       deleteCourse,
-      refreshCourses: fetchCourses
+      refreshCourses: fetchCourses,
+      enrollmentCounts,
+      fetchEnrollmentCount
     }}>
       {children}
     </CourseContext.Provider>
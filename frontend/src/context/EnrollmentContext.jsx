@@ -1,5 +1,5 @@
 // EnrollmentContext.js
-import React, { createContext, useContext, useState, useEffect } from 'react';
+import React, { createContext, useContext, useState, useEffect, useMemo } from 'react';
 import { useUser } from './UserContext';
 
 const EnrollmentContext = createContext();
@@ -13,11 +13,12 @@ export const EnrollmentProvider = ({ children }) => {
   const fetchEnrollments = async () => {
     if (!user?.id) return;
     const token = localStorage.getItem('token');
-    const res = await fetch(`${BACKEND_URL}/api/enrollments/user/${user.id}/courses`, {
+    // Ids only: the server answers from its in-memory index without loading courses
+    const res = await fetch(`${BACKEND_URL}/api/enrollments/user/${user.id}/course-ids`, {
       headers: token ? { Authorization: `Bearer ${token}` } : {},
     });
     const data = await res.json();
-    setEnrolledCourses(data.courses?.map(c => c.id) || []);
+    setEnrolledCourses(data.courseIds || []);
   };
 
   const enrollInCourse = async (userId, courseId) => {
@@ -30,7 +31,9 @@ export const EnrollmentProvider = ({ children }) => {
     setEnrolledCourses(prev => [...prev, courseId]); // immediately update local state
   };
 
-  const isEnrolled = (courseId) => enrolledCourses.includes(courseId);
+  // Looked up for every card on a catalog page
+  const enrolledSet = useMemo(() => new Set(enrolledCourses), [enrolledCourses]);
+  const isEnrolled = (courseId) => enrolledSet.has(courseId);
 
   useEffect(() => {
     fetchEnrollments();